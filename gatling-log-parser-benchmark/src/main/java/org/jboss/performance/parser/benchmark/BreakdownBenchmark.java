@@ -0,0 +1,40 @@
+package org.jboss.performance.parser.benchmark;
+
+import org.jboss.performance.parser.SimulationLogParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the per-request breakdown on top of the plain statistics pass.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BreakdownBenchmark {
+
+    @Param({"none", "name", "name+status"})
+    public String breakdown;
+
+    @Benchmark
+    public Object parse(LogFile log) {
+        SimulationLogParser parser = new SimulationLogParser(log.file());
+        if (!"none".equals(breakdown)) {
+            parser.setBreakdown(false, breakdown.endsWith("status"));
+        }
+        parser.parseLogFile();
+        return parser.getBreakdown() != null ? parser.getBreakdown() : parser.getStatistics();
+    }
+}
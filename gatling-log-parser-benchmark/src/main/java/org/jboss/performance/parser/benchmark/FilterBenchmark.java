@@ -0,0 +1,72 @@
+package org.jboss.performance.parser.benchmark;
+
+import org.jboss.performance.parser.GatlingParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The filter command end to end: reading the info it needs and rewriting the log through the skip and truncate
+ * filters.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FilterBenchmark {
+
+    @Param({"none", "skip", "truncate", "skip+truncate"})
+    public String filters;
+
+    private Path dest;
+    private String[] args;
+
+    @Setup(Level.Trial)
+    public void setup(LogFile log) throws IOException {
+        dest = Files.createTempFile("filtered", ".log");
+        List<String> args = new ArrayList<>();
+        args.add("filter");
+        args.add("-d");
+        args.add(dest.toString());
+        if (filters.contains("skip")) {
+            args.add("-s");
+            args.add("1000");
+        }
+        if (filters.contains("truncate")) {
+            args.add("-t");
+            args.add("1000");
+        }
+        args.add(log.file());
+        this.args = args.toArray(new String[0]);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(dest);
+    }
+
+    @Benchmark
+    public long filter() throws IOException {
+        GatlingParser.main(args);
+        return Files.size(dest);
+    }
+}
@@ -0,0 +1,44 @@
+package org.jboss.performance.parser.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Synthetic simulation.log shared by the benchmarks of one trial, in both file layouts and several sizes.
+ */
+@State(Scope.Benchmark)
+public class LogFile {
+
+    @Param({"A", "B"})
+    public String version;
+
+    @Param({"10000", "100000", "1000000"})
+    public int requests;
+
+    @Param({"20"})
+    public int names;
+
+    public Path path;
+
+    @Setup(Level.Trial)
+    public void generate() throws IOException {
+        path = SimulationLogGenerator.write(Files.createTempFile("simulation-" + version + "-" + requests, ".log"), version, requests, names);
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() throws IOException {
+        Files.deleteIfExists(path);
+    }
+
+    public String file() {
+        return path.toString();
+    }
+}
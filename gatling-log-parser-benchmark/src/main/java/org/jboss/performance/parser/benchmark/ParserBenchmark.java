@@ -0,0 +1,57 @@
+package org.jboss.performance.parser.benchmark;
+
+import org.jboss.performance.parser.SimulationInfo;
+import org.jboss.performance.parser.SimulationLogParser;
+import org.jboss.performance.parser.consumer.ResponseTimeStatistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Format detection and the parsing passes of {@link SimulationLogParser}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmark {
+
+    @Param({"1", "4"})
+    public int parallelism;
+
+    @Benchmark
+    public Object detectFormat(LogFile log) {
+        return new SimulationLogParser(log.file()).fileFormat;
+    }
+
+    @Benchmark
+    public ResponseTimeStatistics parseLogFile(LogFile log) {
+        SimulationLogParser parser = new SimulationLogParser(log.file());
+        parser.setParallelism(parallelism);
+        parser.parseLogFile();
+        return parser.getStatistics();
+    }
+
+    @Benchmark
+    public SimulationInfo parseInfo(LogFile log) {
+        SimulationLogParser parser = new SimulationLogParser(log.file());
+        parser.setParallelism(parallelism);
+        return parser.parseInfo();
+    }
+
+    @Benchmark
+    public SimulationInfo readInfo(LogFile log) {
+        return new SimulationLogParser(log.file()).readInfo();
+    }
+}
@@ -0,0 +1,87 @@
+package org.jboss.performance.parser.benchmark;
+
+import org.jboss.performance.parser.SimulationLogParser;
+import org.jboss.performance.parser.consumer.ResponseTimeStatistics;
+import org.jboss.performance.parser.printer.PercentileStatsPrinter;
+import org.jboss.performance.parser.printer.StatsPrinter;
+import org.jboss.performance.parser.printer.SummaryStatsPrinter;
+import org.jboss.performance.parser.printer.Util;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Every {@link StatsPrinter} over both inputs: the histogram based statistics the parser produces and a plain list
+ * of values. Standard output is discarded while measuring.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PrinterBenchmark {
+
+    @Param({"summary", "percentile"})
+    public String printer;
+
+    private StatsPrinter statsPrinter;
+    private ResponseTimeStatistics statistics;
+    private List<Double> values;
+    private PrintStream stdout;
+
+    @Setup(Level.Trial)
+    public void setup(LogFile log) {
+        statsPrinter = "summary".equals(printer) ? new SummaryStatsPrinter() : new PercentileStatsPrinter(Util.CENTILES);
+        SimulationLogParser parser = new SimulationLogParser(log.file());
+        parser.parseLogFile();
+        statistics = parser.getStatistics();
+        values = new ArrayList<>(log.requests);
+        Random random = new Random(42);
+        for (int i = 0; i < log.requests; ++i) {
+            values.add((double) Math.max(1, (long) Math.exp(3 + random.nextGaussian() * 0.7)));
+        }
+        stdout = System.out;
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        }));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.setOut(stdout);
+    }
+
+    @Benchmark
+    public void histogram() {
+        statsPrinter.printStats(statistics);
+    }
+
+    @Benchmark
+    public void list() {
+        statsPrinter.printStats(values);
+    }
+}
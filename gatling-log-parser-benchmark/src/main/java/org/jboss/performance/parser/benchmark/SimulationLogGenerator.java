@@ -0,0 +1,129 @@
+package org.jboss.performance.parser.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+/**
+ * Writes synthetic simulation.log files in the layout of {@code FileVersionA} or {@code FileVersionB}.
+ * <p>
+ * Output is deterministic for given arguments: users start at a fixed rate, each issues requests with names drawn
+ * from a fixed set, log-normally distributed response times and a small KO ratio, and the rows are written in
+ * completion order like Gatling does.
+ */
+public final class SimulationLogGenerator {
+
+    public static final long START_TIME = 1464356362472L;
+
+    private SimulationLogGenerator() {
+    }
+
+    /**
+     * Usage: {@code SimulationLogGenerator <file> <A|B> <requests> [<names>]}
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("Usage: SimulationLogGenerator <file> <A|B> <requests> [<names>]");
+            System.exit(1);
+        }
+        write(Paths.get(args[0]), args[1], Integer.parseInt(args[2]), args.length > 3 ? Integer.parseInt(args[3]) : 20);
+    }
+
+    public static String name(int index) {
+        return "request_" + index;
+    }
+
+    public static Path write(Path file, String version, int requests, int names) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            write(writer, version, requests, names);
+        }
+        return file;
+    }
+
+    public static byte[] generate(String version, int requests, int names) {
+        StringBuilder sb = new StringBuilder(requests * 120);
+        try {
+            write(new StringBuilderWriter(sb), version, requests, names);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static void write(Writer writer, String version, int requests, int names) throws IOException {
+        boolean a = "A".equals(version);
+        if (!a && !"B".equals(version)) {
+            throw new IllegalArgumentException("Unknown version " + version);
+        }
+        Random random = new Random(42);
+        if (a) {
+            writer.write("org.jboss.perf.Simulation\tsimulation\tRUN\t" + START_TIME + "\t \t2.0\n");
+        } else {
+            writer.write("RUN\torg.jboss.perf.Simulation\t\tsimulation\t" + START_TIME + "\t \t2.0\n");
+        }
+        int requestsPerUser = 10;
+        long time = START_TIME + 500;
+        int user = 0;
+        for (int i = 0; i < requests; ) {
+            ++user;
+            long userStart = time;
+            userRow(writer, a, user, "START", userStart, a ? 0 : userStart);
+            long requestStart = userStart;
+            for (int j = 0; j < requestsPerUser && i < requests; ++j, ++i) {
+                long responseTime = Math.max(1, (long) Math.exp(3 + random.nextGaussian() * 0.7));
+                long end = requestStart + responseTime;
+                String name = name(random.nextInt(names));
+                String status = random.nextInt(100) == 0 ? "KO" : "OK";
+                if (a) {
+                    writer.write("Simulation\t" + user + "\tREQUEST\t\t" + name + "\t" + requestStart + "\t" + (requestStart + 1)
+                            + "\t" + (end - 1) + "\t" + end + "\t" + status + "\t \n");
+                } else {
+                    writer.write("REQUEST\tSimulation\t" + user + "\t\t" + name + "\t" + requestStart + "\t" + end
+                            + "\t" + status + "\t \n");
+                }
+                requestStart = end + 1;
+            }
+            userRow(writer, a, user, "END", userStart, requestStart);
+            time += 2;
+        }
+    }
+
+    private static void userRow(Writer writer, boolean a, int user, String event, long start, long end) throws IOException {
+        if (a) {
+            writer.write("Simulation\t" + user + "\tUSER\t" + event + "\t" + start + "\t" + end + "\n");
+        } else {
+            writer.write("USER\tSimulation\t" + user + "\t" + event + "\t" + start + "\t" + end + "\n");
+        }
+    }
+
+    private static class StringBuilderWriter extends Writer {
+        private final StringBuilder sb;
+
+        StringBuilderWriter(StringBuilder sb) {
+            this.sb = sb;
+        }
+
+        @Override
+        public void write(char[] chars, int offset, int length) {
+            sb.append(chars, offset, length);
+        }
+
+        @Override
+        public void write(String str) {
+            sb.append(str);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package org.jboss.performance.parser.benchmark;
+
+import org.jboss.performance.parser.format.FileFormat;
+import org.jboss.performance.parser.format.FileVersionA;
+import org.jboss.performance.parser.format.FileVersionB;
+import org.jboss.performance.parser.reader.FieldCursor;
+import org.jboss.performance.parser.reader.LineReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the {@code String.split} based line handling the parser used to do with {@link FieldCursor}.
+ * Both variants read the same in-memory log and sum the response times of all REQUEST rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenizerBenchmark {
+
+    @Param({"A", "B"})
+    public String version;
+
+    @Param({"100000"})
+    public int requests;
+
+    private FileFormat fileFormat;
+    private byte[] log;
+
+    @Setup
+    public void setup() {
+        fileFormat = "A".equals(version) ? new FileVersionA() : new FileVersionB();
+        log = SimulationLogGenerator.generate(version, requests, 10);
+    }
+
+    @Benchmark
+    public double split() throws IOException {
+        double sum = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(log), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] columns = line.split(fileFormat.getSEPARATOR());
+                if (fileFormat.getREQUEST().equals(columns[fileFormat.getTypeField()])) {
+                    sum += Double.parseDouble(columns[fileFormat.getCompleteTimestampField()]) - Double.parseDouble(columns[fileFormat.getRequestTimestampField()]);
+                }
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double cursor() throws IOException {
+        double sum = 0;
+        try (LineReader reader = new LineReader(new ByteArrayInputStream(log))) {
+            FieldCursor cursor = new FieldCursor(fileFormat);
+            while (reader.next()) {
+                cursor.reset(reader);
+                if (cursor.fieldEquals(fileFormat.getTypeField(), fileFormat.getREQUEST())) {
+                    sum += cursor.longField(fileFormat.getCompleteTimestampField()) - cursor.longField(fileFormat.getRequestTimestampField());
+                }
+            }
+        }
+        return sum;
+    }
+}
@@ -1,14 +1,64 @@
 package org.jboss.performance.parser;
 
+import org.jboss.performance.parser.consumer.ResponseTimeStatistics;
+import org.jboss.performance.parser.consumer.Timeline;
+import org.jboss.performance.parser.filter.Filter;
+import org.jboss.performance.parser.filter.RequestNameFilter;
+import org.jboss.performance.parser.filter.ScenarioFilter;
+import org.jboss.performance.parser.filter.SkipFilter;
+import org.jboss.performance.parser.filter.StatusFilter;
+import org.jboss.performance.parser.filter.TimeWindowFilter;
+import org.jboss.performance.parser.filter.TruncateFilter;
+import org.jboss.performance.parser.format.UnknownFileFormatException;
+import org.jboss.performance.parser.metrics.MeteredOutputStream;
+import org.jboss.performance.parser.metrics.ParserMetrics;
+import org.jboss.performance.parser.metrics.ProgressReporter;
+import org.jboss.performance.parser.printer.BreakdownPrinter;
+import org.jboss.performance.parser.printer.ComparisonPrinter;
+import org.jboss.performance.parser.printer.QueryPrinter;
+import org.jboss.performance.parser.printer.TimelinePrinter;
 import org.jboss.performance.parser.printer.Util;
+import org.jboss.performance.parser.query.Query;
+import org.jboss.performance.parser.query.QueryEngine;
+import org.jboss.performance.parser.query.QueryResult;
+import org.jboss.performance.parser.query.RequestColumns;
+import org.jboss.performance.parser.reader.Compression;
+import org.jboss.performance.parser.report.ReportComparison;
+import org.jboss.performance.parser.report.ReportFormat;
+import org.jboss.performance.parser.report.ReportWriter;
+import org.jboss.performance.parser.report.RequestResult;
+import org.jboss.performance.parser.report.SimulationReport;
+import org.jboss.performance.parser.report.StatisticsResult;
+import org.jboss.performance.parser.report.TimelineCollector;
+import org.jboss.performance.parser.server.AnalysisServer;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedWriter;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import javax.management.JMException;
 
 public class GatlingParser {
+    private static final long DEFAULT_PROGRESS = 5000;
+
     public static void main(String[] args) {
         if (args.length == 0) {
             printHelp();
@@ -21,6 +71,21 @@ public class GatlingParser {
                 case "filter":
                     filterLog(args);
                     break;
+                case "timeline":
+                    printTimeline(args);
+                    break;
+                case "watch":
+                    watch(args);
+                    break;
+                case "compare":
+                    compare(args);
+                    break;
+                case "query":
+                    query(args);
+                    break;
+                case "serve":
+                    serve(args);
+                    break;
                 case "help":
                 default:
                     printHelp();
@@ -32,8 +97,18 @@ public class GatlingParser {
 
     private static void filterLog(String[] args) {
         String dest = null;
-        List<SimulationLogParser.Filter> filters = new ArrayList<>();
+        boolean merge = false;
+        long from = Long.MIN_VALUE;
+        long to = Long.MAX_VALUE;
+        List<String> names = new ArrayList<>();
+        List<String> scenarios = new ArrayList<>();
+        Compression compression = null;
+        List<Filter> filters = new ArrayList<>();
         List<String> sources = new ArrayList<>();
+        long progress = DEFAULT_PROGRESS;
+        boolean profile = false;
+        boolean jmx = false;
+        boolean index = false;
         for (int i = 1; i < args.length; ++i) {
             switch (args[i].toLowerCase().trim()) {
                 case "-d":
@@ -41,15 +116,61 @@ public class GatlingParser {
                     ++i;
                     dest = arg(args, i);
                     break;
+                case "-m":
+                case "--merge":
+                    merge = true;
+                    break;
+                case "-c":
+                case "--compress":
+                    ++i;
+                    compression = Compression.forName(arg(args, i));
+                    break;
                 case "-s":
                 case "--skip":
                     ++i;
-                    filters.add(new SimulationLogParser.SkipFilter(Long.valueOf(arg(args, i))));
+                    filters.add(new SkipFilter(Long.valueOf(arg(args, i))));
                     break;
                 case "-t":
                 case "--truncate":
                     ++i;
-                    filters.add(new SimulationLogParser.TruncateFilter(Long.valueOf(arg(args, i))));
+                    filters.add(new TruncateFilter(Long.valueOf(arg(args, i))));
+                    break;
+                case "--from":
+                    ++i;
+                    from = Long.parseLong(arg(args, i));
+                    break;
+                case "--to":
+                    ++i;
+                    to = Long.parseLong(arg(args, i));
+                    break;
+                case "--name":
+                    ++i;
+                    names.add(arg(args, i));
+                    break;
+                case "--status":
+                    ++i;
+                    filters.add(new StatusFilter(arg(args, i).toUpperCase()));
+                    break;
+                case "--scenario":
+                    ++i;
+                    scenarios.add(arg(args, i));
+                    break;
+                case "--index":
+                    index = true;
+                    break;
+                case "--progress":
+                    ++i;
+                    progress = Long.parseLong(arg(args, i)) * 1000;
+                    break;
+                case "-q":
+                case "--quiet":
+                    progress = 0;
+                    break;
+                case "--profile":
+                    profile = true;
+                    break;
+                case "--jmx":
+                    jmx = true;
                     break;
                 default:
                     sources.add(args[i]);
@@ -59,17 +180,51 @@ public class GatlingParser {
             System.err.println("No destination set!");
             System.exit(1);
         }
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(dest))) {
-            for (String src : sources) {
-                SimulationLogParser simulationLogParser = new SimulationLogParser(src);
-                SimulationInfo info = simulationLogParser.parseInfo();
-                simulationLogParser.rewrite(info, writer, filters);
+        if (from != Long.MIN_VALUE || to != Long.MAX_VALUE) {
+            filters.add(new TimeWindowFilter(from, to));
+        }
+        if (!names.isEmpty()) {
+            filters.add(new RequestNameFilter(names.toArray(new String[0])));
+        }
+        if (!scenarios.isEmpty()) {
+            filters.add(new ScenarioFilter(scenarios.toArray(new String[0])));
+        }
+        if (compression == null) {
+            compression = Compression.forFileName(dest);
+        }
+        ParserMetrics metrics = new ParserMetrics();
+        ProgressReporter reporter = startReporter(metrics, progress, profile, jmx);
+        try (OutputStream output = new BufferedOutputStream(new MeteredOutputStream(compression.compress(new FileOutputStream(dest)), metrics), 64 * 1024)) {
+            if (merge) {
+                SimulationLogMerger merger = new SimulationLogMerger(sources);
+                merger.setMetrics(metrics);
+                merger.setOffsetIndex(index);
+                merger.merge(output, filters);
+            } else {
+                for (String src : sources) {
+                    SimulationLogParser simulationLogParser = new SimulationLogParser(src);
+                    simulationLogParser.setMetrics(metrics);
+                    simulationLogParser.setOffsetIndex(index);
+                    SimulationInfo info = simulationLogParser.readInfo();
+                    simulationLogParser.rewrite(info, output, filters);
+                }
             }
         } catch (IOException e) {
-            e.printStackTrace();  // TODO: Customise this generated block
+            System.err.println("Cannot filter: " + e);
+            System.exit(1);
+        } catch (UncheckedIOException e) {
+            exit(e);
+        } finally {
+            reporter.close();
         }
     }
 
+    /** Exits with 1 after printing a failure of the parser, which names the log, and its cause. */
+    private static void exit(UncheckedIOException e) {
+        System.err.println(e.getMessage() + ": " + e.getCause());
+        System.exit(1);
+    }
+
     private static String arg(String[] args, int i) {
         if (i >= args.length) {
             System.err.println("Argument " + args[i - 1] + " requires value");
@@ -85,20 +240,560 @@ public class GatlingParser {
     }
 
     private static void printStats(String[] args) {
-        String filename = args[1];
+        List<String> filenames = new ArrayList<>();
+        int parallelism = 1;
+        int files = Runtime.getRuntime().availableProcessors();
+        boolean perFile = false;
+        ReportFormat format = ReportFormat.TEXT;
+        long highestTrackableValue = ResponseTimeStatistics.DEFAULT_HIGHEST_TRACKABLE_VALUE;
+        int significantDigits = ResponseTimeStatistics.DEFAULT_SIGNIFICANT_DIGITS;
+        boolean breakdown = false;
+        boolean byGroup = false;
+        boolean byStatus = false;
+        boolean cache = false;
+        boolean index = false;
+        long expectedInterval = 0;
+        double sample = 0;
+        long seed = System.nanoTime();
+        long skip = -1;
+        long truncate = -1;
+        long progress = DEFAULT_PROGRESS;
+        boolean profile = false;
+        boolean jmx = false;
+        for (int i = 1; i < args.length; ++i) {
+            switch (args[i].toLowerCase().trim()) {
+                case "-p":
+                case "--parallel":
+                    ++i;
+                    parallelism = Integer.parseInt(arg(args, i));
+                    break;
+                case "--highest":
+                    ++i;
+                    highestTrackableValue = Long.parseLong(arg(args, i));
+                    break;
+                case "--precision":
+                    ++i;
+                    significantDigits = Integer.parseInt(arg(args, i));
+                    break;
+                case "-b":
+                case "--breakdown":
+                    breakdown = true;
+                    break;
+                case "--by-group":
+                    breakdown = byGroup = true;
+                    break;
+                case "--by-status":
+                    breakdown = byStatus = true;
+                    break;
+                case "-j":
+                case "--files":
+                    ++i;
+                    files = Integer.parseInt(arg(args, i));
+                    break;
+                case "--per-file":
+                    perFile = true;
+                    break;
+                case "-f":
+                case "--format":
+                    ++i;
+                    format = ReportFormat.forName(arg(args, i));
+                    break;
+                case "--cache":
+                    cache = true;
+                    break;
+                case "--index":
+                    index = true;
+                    break;
+                case "--expected-interval":
+                    ++i;
+                    String value = arg(args, i);
+                    expectedInterval = "auto".equalsIgnoreCase(value) ? -1 : Long.parseLong(value);
+                    break;
+                case "--sample":
+                    ++i;
+                    String fraction = arg(args, i);
+                    sample = fraction.endsWith("%") ? Double.parseDouble(fraction.substring(0, fraction.length() - 1)) / 100
+                            : Double.parseDouble(fraction);
+                    break;
+                case "--seed":
+                    ++i;
+                    seed = Long.parseLong(arg(args, i));
+                    break;
+                case "-s":
+                case "--skip":
+                    ++i;
+                    skip = Long.parseLong(arg(args, i));
+                    break;
+                case "-t":
+                case "--truncate":
+                    ++i;
+                    truncate = Long.parseLong(arg(args, i));
+                    break;
+                case "--progress":
+                    ++i;
+                    progress = Long.parseLong(arg(args, i)) * 1000;
+                    break;
+                case "-q":
+                case "--quiet":
+                    progress = 0;
+                    break;
+                case "--profile":
+                    profile = true;
+                    break;
+                case "--jmx":
+                    jmx = true;
+                    break;
+                default:
+                    filenames.add(args[i]);
+            }
+        }
 
-        if (filename != null) {
+        final int fileParallelism = parallelism;
+        final long fileHighestTrackableValue = highestTrackableValue;
+        final int fileSignificantDigits = significantDigits;
+        final boolean fileCache = cache;
+        final boolean fileIndex = index;
+        final long fileExpectedInterval = expectedInterval;
+        final double fileSample = sample;
+        final long fileSeed = seed;
+        final long fileSkip = skip;
+        final long fileTruncate = truncate;
+        final boolean fileBreakdown = breakdown;
+        final boolean fileByGroup = byGroup;
+        final boolean fileByStatus = byStatus;
+        final ParserMetrics metrics = new ParserMetrics();
+        Function<String, SimulationLogParser> parserFactory = filename -> {
             SimulationLogParser simulationLogParser = new SimulationLogParser(filename);
+            simulationLogParser.setMetrics(metrics);
+            simulationLogParser.setParallelism(fileParallelism);
+            simulationLogParser.setHistogramPrecision(fileHighestTrackableValue, fileSignificantDigits);
+            simulationLogParser.setColumnarCache(fileCache);
+            simulationLogParser.setOffsetIndex(fileIndex);
+            simulationLogParser.setExpectedInterval(fileExpectedInterval);
+            simulationLogParser.setSample(fileSample, fileSeed);
+            simulationLogParser.setWindow(fileSkip, fileTruncate);
+            if (fileBreakdown) {
+                simulationLogParser.setBreakdown(fileByGroup, fileByStatus);
+            }
+            return simulationLogParser;
+        };
 
-            simulationLogParser.parseLogFile();
+        ReportWriter writer = format.writer();
+        if (filenames.size() == 1) {
+            SimulationLogParser simulationLogParser;
+            ProgressReporter reporter = startReporter(metrics, progress, profile, jmx);
+            try {
+                simulationLogParser = parserFactory.apply(filenames.get(0));
+                simulationLogParser.parseLogFile();
+            } catch (UncheckedIOException e) {
+                exit(e);
+                return;
+            } catch (UnknownFileFormatException e) {
+                System.err.println(e.getMessage());
+                System.exit(1);
+                return;
+            } finally {
+                reporter.close();
+            }
 
             //print stats
-            simulationLogParser.printStats(Util.getPrinters());
+            writeReport(writer, simulationLogParser.getReport(Util.CENTILES));
+        } else if (filenames.size() > 1) {
+            SimulationLogAggregator aggregator = new SimulationLogAggregator(filenames, parserFactory, files);
+            ProgressReporter reporter = startReporter(metrics, progress, profile, jmx);
+            try {
+                aggregator.parseLogFiles();
+            } catch (UncheckedIOException e) {
+                exit(e);
+                return;
+            } catch (UnknownFileFormatException e) {
+                System.err.println(e.getMessage());
+                System.exit(1);
+                return;
+            } finally {
+                reporter.close();
+            }
+            if (aggregator.getStatistics() == null) {
+                // interrupted
+                System.exit(1);
+            }
+
+            if (perFile) {
+                for (int i = 0; i < aggregator.getParsers().size(); ++i) {
+                    if (format == ReportFormat.TEXT) {
+                        System.out.println("--- " + filenames.get(i));
+                    }
+                    writeReport(writer, aggregator.getParsers().get(i).getReport(Util.CENTILES));
+                }
+                if (format == ReportFormat.TEXT) {
+                    System.out.println("--- total");
+                }
+            }
+            SimulationReport report = SimulationReport.of(aggregator.getStatistics(), aggregator.getBreakdown(), Util.CENTILES);
+            if (aggregator.getCorrectedStatistics() != null) {
+                report = report.withCorrected(StatisticsResult.of(aggregator.getCorrectedStatistics().getHistogram(), Util.CENTILES),
+                        aggregator.getCorrectedStatistics().getExpectedInterval());
+            }
+            writeReport(writer, report);
+        }
+    }
+
+    /**
+     * Prints progress to stderr every {@code progress} ms (0 disables it) and a profile at the end of runs that took
+     * longer than that, or of every run with {@code profile}.
+     */
+    private static ProgressReporter startReporter(ParserMetrics metrics, long progress, boolean profile, boolean jmx) {
+        if (jmx) {
+            try {
+                metrics.register();
+            } catch (JMException e) {
+                System.err.println("Cannot register parser metrics MBean: " + e);
+            }
+        }
+        return new ProgressReporter(metrics, System.err, progress, profile);
+    }
+
+    private static void writeReport(ReportWriter writer, SimulationReport report) {
+        try {
+            Writer output = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+            writer.write(report, output);
+            output.flush();
+        } catch (IOException e) {
+            System.err.println("Cannot write report: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static void printTimeline(String[] args) {
+        String filename = null;
+        long interval = Timeline.DEFAULT_INTERVAL;
+        int window = Timeline.DEFAULT_WINDOW;
+        ReportFormat format = ReportFormat.TEXT;
+        boolean users = false;
+        for (int i = 1; i < args.length; ++i) {
+            switch (args[i].toLowerCase().trim()) {
+                case "-i":
+                case "--interval":
+                    ++i;
+                    interval = Long.parseLong(arg(args, i));
+                    break;
+                case "-u":
+                case "--users":
+                    users = true;
+                    break;
+                case "-w":
+                case "--window":
+                    ++i;
+                    window = Integer.parseInt(arg(args, i));
+                    break;
+                case "-f":
+                case "--format":
+                    ++i;
+                    format = ReportFormat.forName(arg(args, i));
+                    break;
+                default:
+                    filename = args[i];
+            }
+        }
+
+        if (filename != null) {
+            SimulationLogParser simulationLogParser = new SimulationLogParser(filename);
+            // text rows are printed as soon as an interval closes, other formats need the whole timeline
+            TimelineCollector collector = format == ReportFormat.TEXT ? null : new TimelineCollector(users, TimelinePrinter.CENTILES);
+            Timeline timeline;
+            try {
+                timeline = simulationLogParser.parseTimeline(interval, window, users,
+                        collector == null ? new TimelinePrinter(users, TimelinePrinter.CENTILES) : collector);
+            } catch (UncheckedIOException e) {
+                exit(e);
+                return;
+            }
+            if (collector != null) {
+                writeReport(format.writer(), new SimulationReport(TimelinePrinter.CENTILES, null, false, false,
+                        Collections.<RequestResult>emptyList(), collector.getIntervals()));
+            } else if (users) {
+                System.out.println("peak users: " + timeline.getPeakUsers() + " at " + timeline.getPeakUsersTime());
+            }
+            if (timeline.getLate() > 0) {
+                System.err.println(timeline.getLate() + " requests completed more than " + window + " intervals out of order and were not counted");
+            }
+            if (timeline.getLateUsers() > 0) {
+                System.err.println(timeline.getLateUsers() + " users started or ended more than " + window
+                        + " intervals out of order and were only counted in later intervals");
+            }
+        }
+    }
+
+    private static void watch(String[] args) {
+        String filename = null;
+        long pollInterval = 200;
+        long snapshotInterval = 5000;
+        long idleTimeout = 0;
+        boolean breakdown = false;
+        for (int i = 1; i < args.length; ++i) {
+            switch (args[i].toLowerCase().trim()) {
+                case "-i":
+                case "--interval":
+                    ++i;
+                    snapshotInterval = Long.parseLong(arg(args, i));
+                    break;
+                case "--poll":
+                    ++i;
+                    pollInterval = Long.parseLong(arg(args, i));
+                    break;
+                case "--idle":
+                    ++i;
+                    idleTimeout = Long.parseLong(arg(args, i));
+                    break;
+                case "-b":
+                case "--breakdown":
+                    breakdown = true;
+                    break;
+                default:
+                    filename = args[i];
+            }
+        }
+
+        if (filename != null) {
+            try {
+                Path file = Paths.get(filename);
+                while (!Files.isRegularFile(file) || Files.size(file) == 0) {
+                    Thread.sleep(pollInterval);
+                }
+                SimulationLogParser simulationLogParser = new SimulationLogParser(filename);
+                if (breakdown) {
+                    simulationLogParser.setBreakdown(false, false);
+                }
+                simulationLogParser.watch(pollInterval, snapshotInterval, idleTimeout, () -> {
+                    System.out.println("--- " + new Date());
+                    simulationLogParser.printStats(Util.getPrinters());
+                    simulationLogParser.printBreakdown(new BreakdownPrinter(Util.CENTILES));
+                });
+            } catch (IOException e) {
+                System.err.println("Cannot watch " + filename + ": " + e);
+                System.exit(1);
+            } catch (UncheckedIOException e) {
+                exit(e);
+            } catch (IllegalArgumentException e) {
+                // compressed or binary
+                System.err.println(e.getMessage());
+                System.exit(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static void compare(String[] args) {
+        List<String> filenames = new ArrayList<>();
+        double threshold = 10;
+        double minDelta = 1;
+        double[] gated = {95, 99};
+        int parallelism = 1;
+        boolean cache = false;
+        long skip = -1;
+        long truncate = -1;
+        boolean breakdown = false;
+        boolean byGroup = false;
+        boolean byStatus = false;
+        for (int i = 1; i < args.length; ++i) {
+            switch (args[i].toLowerCase().trim()) {
+                case "--threshold":
+                    ++i;
+                    threshold = Double.parseDouble(arg(args, i));
+                    break;
+                case "--min-delta":
+                    ++i;
+                    minDelta = Double.parseDouble(arg(args, i));
+                    break;
+                case "--centiles":
+                    ++i;
+                    String[] centiles = arg(args, i).split(",");
+                    gated = new double[centiles.length];
+                    for (int j = 0; j < centiles.length; ++j) {
+                        gated[j] = Double.parseDouble(centiles[j].trim());
+                    }
+                    break;
+                case "-p":
+                case "--parallel":
+                    ++i;
+                    parallelism = Integer.parseInt(arg(args, i));
+                    break;
+                case "--cache":
+                    cache = true;
+                    break;
+                case "-s":
+                case "--skip":
+                    ++i;
+                    skip = Long.parseLong(arg(args, i));
+                    break;
+                case "-t":
+                case "--truncate":
+                    ++i;
+                    truncate = Long.parseLong(arg(args, i));
+                    break;
+                case "-b":
+                case "--breakdown":
+                    breakdown = true;
+                    break;
+                case "--by-group":
+                    breakdown = byGroup = true;
+                    break;
+                case "--by-status":
+                    breakdown = byStatus = true;
+                    break;
+                default:
+                    filenames.add(args[i]);
+            }
+        }
+        if (filenames.size() != 2) {
+            System.err.println("compare needs a baseline and a candidate log");
+            System.exit(1);
+        }
+
+        final int fileParallelism = parallelism;
+        final boolean fileCache = cache;
+        final long fileSkip = skip;
+        final long fileTruncate = truncate;
+        final boolean fileBreakdown = breakdown;
+        final boolean fileByGroup = byGroup;
+        final boolean fileByStatus = byStatus;
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<SimulationReport>> reports = new ArrayList<>();
+            for (String filename : filenames) {
+                reports.add(executor.submit(() -> {
+                    SimulationLogParser simulationLogParser = new SimulationLogParser(filename);
+                    simulationLogParser.setParallelism(fileParallelism);
+                    simulationLogParser.setColumnarCache(fileCache);
+                    simulationLogParser.setWindow(fileSkip, fileTruncate);
+                    if (fileBreakdown) {
+                        simulationLogParser.setBreakdown(fileByGroup, fileByStatus);
+                    }
+                    simulationLogParser.parseLogFile();
+                    return simulationLogParser.getReport(Util.CENTILES);
+                }));
+            }
+            ReportComparison comparison = new ReportComparison(reports.get(0).get(), reports.get(1).get(), gated, threshold / 100, minDelta);
+            new ComparisonPrinter().printComparison(comparison);
+            if (comparison.hasRegression()) {
+                System.exit(2);
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            System.err.println("Cannot compare: " + (e instanceof ExecutionException ? e.getCause() : e));
+            System.exit(1);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void query(String[] args) {
+        List<String> positional = new ArrayList<>();
+        int parallelism = 1;
+        boolean cache = false;
+        boolean csv = false;
+        for (int i = 1; i < args.length; ++i) {
+            switch (args[i].toLowerCase().trim()) {
+                case "-p":
+                case "--parallel":
+                    ++i;
+                    parallelism = Integer.parseInt(arg(args, i));
+                    break;
+                case "--cache":
+                    cache = true;
+                    break;
+                case "--csv":
+                    csv = true;
+                    break;
+                default:
+                    positional.add(args[i]);
+            }
+        }
+        if (positional.size() != 2) {
+            System.err.println("Expected a query and a log, e.g. query \"p99 where name = /checkout and status = KO and time between 5m and 10m group by name\" simulation.log");
+            System.exit(1);
+        }
+        QueryEngine engine;
+        try {
+            engine = new QueryEngine(Query.parse(positional.get(0)));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid query: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        SimulationLogParser simulationLogParser = new SimulationLogParser(positional.get(1));
+        simulationLogParser.setParallelism(parallelism);
+        simulationLogParser.setColumnarCache(cache);
+        RequestColumns columns;
+        try {
+            columns = simulationLogParser.readColumns();
+        } catch (UncheckedIOException e) {
+            exit(e);
+            return;
+        }
+        QueryResult result = engine.execute(columns);
+        new QueryPrinter(csv).printResult(result);
+    }
+
+    private static void serve(String[] args) {
+        String bind = "127.0.0.1";
+        int port = AnalysisServer.DEFAULT_PORT;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int parallelism = 1;
+        long cacheBytes = AnalysisServer.DEFAULT_CACHE_BYTES;
+        String root = ".";
+        for (int i = 1; i < args.length; ++i) {
+            switch (args[i].toLowerCase().trim()) {
+                case "--bind":
+                    ++i;
+                    bind = arg(args, i);
+                    break;
+                case "--port":
+                    ++i;
+                    port = Integer.parseInt(arg(args, i));
+                    break;
+                case "--threads":
+                    ++i;
+                    threads = Integer.parseInt(arg(args, i));
+                    break;
+                case "-p":
+                case "--parallel":
+                    ++i;
+                    parallelism = Integer.parseInt(arg(args, i));
+                    break;
+                case "--cache-mb":
+                    ++i;
+                    cacheBytes = Long.parseLong(arg(args, i)) * 1024 * 1024;
+                    break;
+                default:
+                    root = args[i];
+            }
+        }
+        try {
+            AnalysisServer server = new AnalysisServer(new InetSocketAddress(bind, port), Paths.get(root), threads, parallelism, cacheBytes);
+            server.start();
+            System.err.println("Serving logs under " + Paths.get(root).toRealPath() + " on http://" + bind + ":" + server.getAddress().getPort());
+        } catch (IOException e) {
+            System.err.println("Cannot start server: " + e);
+            System.exit(1);
         }
     }
 
     private static void printHelp() {
-        System.err.println("Mode: stats, filter");
+        System.err.println("Mode: stats, filter, timeline, watch, compare, query, serve");
+        System.err.println("Text logs and the binary logs of Gatling 3.13+ are detected automatically; filter writes binary logs out as text");
+        System.err.println("stats accepts several logs: they are parsed concurrently (-j threads) and merged; --per-file also prints each one");
+        System.err.println("stats and timeline: -f/--format text|json|csv");
+        System.err.println("timeline options: -i/--interval ms, -w/--window intervals, -u/--users adds active and peak users from the USER rows");
+        System.err.println("stats --expected-interval ms|auto also reports percentiles corrected for coordinated omission");
+        System.err.println("stats --sample 0.01|1% reads random ranges of an uncompressed text log (-p threads) and estimates count and percentiles with 95% bounds; --seed n");
+        System.err.println("filter -m merges several logs into one ordered by timestamp instead of concatenating them");
+        System.err.println("compare baseline candidate: --threshold %, --min-delta ms, --centiles 95,99; exits with 2 on regression");
+        System.err.println("query \"[select] count|mean|min|max|p99, ... [where name|group|status = x | in (x, y) and time|duration < 5m | between 5m and 10m ...] [group by name, group, status]\" log: --csv, -p, --cache");
+        System.err.println("stats and filter: progress goes to stderr every --progress seconds (default 5) and a profile after long runs; -q/--quiet, --profile, --jmx");
+        System.err.println("serve [root dir]: HTTP GET /stats, /info, /filter?file=..&<options> and /cache, runs cached by path, size and mtime; --bind, --port, --threads, -p, --cache-mb");
+        System.err.println("filter options: -s/--skip ms, -t/--truncate ms, --from/--to epoch ms, --name request, --status OK|KO, --scenario name");
+        System.err.println("stats and filter --index: with a time window, read only the parts of an uncompressed text log that the sparse index <log>.index maps to it; the index is built on first use");
     }
 
 }
@@ -14,4 +14,21 @@ public class SimulationInfo {
    public SimulationInfo(String file) {
       this.file = file;
    }
+
+   public String getFile() {
+      return file;
+   }
+
+   /**
+    * Merges info gathered from another part of the same file.
+    */
+   public void combine(SimulationInfo other) {
+      if (clazz == null) {
+         clazz = other.clazz;
+         name = other.name;
+         startTime = other.startTime;
+      }
+      firstRequestStart = Math.min(firstRequestStart, other.firstRequestStart);
+      lastRequestComplete = Math.max(lastRequestComplete, other.lastRequestComplete);
+   }
 }
@@ -0,0 +1,122 @@
+package org.jboss.performance.parser;
+
+import org.jboss.performance.parser.consumer.CorrectedStatistics;
+import org.jboss.performance.parser.consumer.RequestBreakdown;
+import org.jboss.performance.parser.consumer.ResponseTimeStatistics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Parses several simulation logs concurrently, e.g. the per-injector logs of a distributed run, and merges their
+ * statistics into one report.
+ * <p>
+ * Every log gets its own {@link SimulationLogParser} (so formats may be mixed) created by the given factory, which is
+ * also where options like the histogram precision or the breakdown are set; they should be the same for all logs.
+ * At most {@code threads} logs are parsed at a time. Results are merged in the order the files were given.
+ */
+public class SimulationLogAggregator {
+
+    private final List<String> simulationLogFiles;
+    private final Function<String, SimulationLogParser> parserFactory;
+    private final int threads;
+    private final List<SimulationLogParser> parsers = new ArrayList<>();
+    private ResponseTimeStatistics statistics;
+    private CorrectedStatistics correctedStatistics;
+    private RequestBreakdown requestBreakdown;
+
+    public SimulationLogAggregator(List<String> simulationLogFiles, Function<String, SimulationLogParser> parserFactory, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Threads must be positive: " + threads);
+        }
+        this.simulationLogFiles = simulationLogFiles;
+        this.parserFactory = parserFactory;
+        this.threads = threads;
+    }
+
+    public void parseLogFiles() {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, Math.max(1, simulationLogFiles.size())));
+        try {
+            List<Future<SimulationLogParser>> futures = new ArrayList<>();
+            for (String file : simulationLogFiles) {
+                futures.add(executor.submit(() -> {
+                    SimulationLogParser parser = parserFactory.apply(file);
+                    parser.parseLogFile();
+                    return parser;
+                }));
+            }
+            parsers.clear();
+            statistics = null;
+            correctedStatistics = null;
+            requestBreakdown = null;
+            for (Future<SimulationLogParser> future : futures) {
+                SimulationLogParser parser = future.get();
+                parsers.add(parser);
+                combine(parser);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // e.g. the UncheckedIOException of a log that cannot be read: the whole run fails with it
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void combine(SimulationLogParser parser) {
+        ResponseTimeStatistics fileStatistics = parser.getStatistics();
+        if (statistics == null) {
+            statistics = new ResponseTimeStatistics(fileStatistics.getHistogram().getHighestTrackableValue(),
+                    fileStatistics.getHistogram().getNumberOfSignificantValueDigits());
+        }
+        statistics.combine(fileStatistics);
+        CorrectedStatistics fileCorrected = parser.getCorrectedStatistics();
+        if (fileCorrected != null) {
+            if (correctedStatistics == null) {
+                correctedStatistics = new CorrectedStatistics(fileCorrected.getExpectedInterval(),
+                        statistics.getHistogram().getHighestTrackableValue(), statistics.getHistogram().getNumberOfSignificantValueDigits());
+            }
+            correctedStatistics.combine(fileCorrected);
+        }
+        RequestBreakdown fileBreakdown = parser.getBreakdown();
+        if (fileBreakdown != null) {
+            if (requestBreakdown == null) {
+                requestBreakdown = new RequestBreakdown(fileBreakdown.isByGroup(), fileBreakdown.isByStatus(),
+                        statistics.getHistogram().getHighestTrackableValue(), statistics.getHistogram().getNumberOfSignificantValueDigits());
+            }
+            requestBreakdown.combine(fileBreakdown);
+        }
+    }
+
+    /** @return statistics of all logs together, or {@code null} before {@link #parseLogFiles()} */
+    public ResponseTimeStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * @return corrected statistics of all logs together, or {@code null} unless the parsers correct for coordinated
+     * omission; every log is corrected with its own expected interval
+     */
+    public CorrectedStatistics getCorrectedStatistics() {
+        return correctedStatistics;
+    }
+
+    /** @return per-request statistics of all logs together, or {@code null} unless the parsers collect a breakdown */
+    public RequestBreakdown getBreakdown() {
+        return requestBreakdown;
+    }
+
+    /** Parsers of the individual logs, in the order the files were given, for per-file reports. */
+    public List<SimulationLogParser> getParsers() {
+        return parsers;
+    }
+}
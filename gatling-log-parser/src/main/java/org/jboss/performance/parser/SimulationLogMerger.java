@@ -0,0 +1,223 @@
+package org.jboss.performance.parser;
+
+import org.jboss.performance.parser.filter.Filter;
+import org.jboss.performance.parser.format.FileFormat;
+import org.jboss.performance.parser.metrics.ParserMetrics;
+import org.jboss.performance.parser.reader.FieldCursor;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Writes several simulation logs as a single time-ordered log, e.g. to feed the per-injector logs of a distributed run
+ * to the report generator.
+ * <p>
+ * Every source is read and filtered on its own thread into a bounded queue of line batches; the calling thread does
+ * a k-way merge of the queue heads. Lines are ordered by the time Gatling logged them: completion for REQUEST, start
+ * or end for USER START/END. That is the order each source is already in, so the merge needs no buffering beyond the
+ * queues. Lines without a timestamp keep their position after the preceding line of the same source, ties go to the
+ * earlier source. The RUN and ASSERTION lines are taken from the first source only.
+ * <p>
+ * All sources must be in the same format. Filters are shared by the source threads and must be stateless.
+ */
+public class SimulationLogMerger {
+
+    private static final int BATCH_LINES = 1024;
+    private static final int QUEUE_BATCHES = 16;
+
+    private final List<String> simulationLogFiles;
+    private ParserMetrics metrics;
+    private boolean offsetIndex;
+
+    public SimulationLogMerger(List<String> simulationLogFiles) {
+        this.simulationLogFiles = simulationLogFiles;
+    }
+
+    /** @see SimulationLogParser#setMetrics(ParserMetrics) */
+    public void setMetrics(ParserMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /** @see SimulationLogParser#setOffsetIndex(boolean) */
+    public void setOffsetIndex(boolean offsetIndex) {
+        this.offsetIndex = offsetIndex;
+    }
+
+    public void merge(OutputStream output, List<Filter> filters) throws IOException {
+        List<Source> sources = new ArrayList<>();
+        for (String file : simulationLogFiles) {
+            SimulationLogParser parser = new SimulationLogParser(file);
+            parser.setMetrics(metrics);
+            parser.setOffsetIndex(offsetIndex);
+            if (!sources.isEmpty() && sources.get(0).parser.fileFormat.getClass() != parser.fileFormat.getClass()) {
+                throw new IllegalArgumentException("Cannot merge " + file + ": format differs from " + simulationLogFiles.get(0));
+            }
+            sources.add(new Source(sources.size(), file, parser, filters));
+        }
+        List<Thread> threads = new ArrayList<>();
+        for (Source source : sources) {
+            Thread thread = new Thread(source, "simulation-log-merge-" + source.index);
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+        try {
+            PriorityQueue<Source> heads = new PriorityQueue<>(Math.max(1, sources.size()),
+                    Comparator.comparingLong(Source::key).thenComparingInt(source -> source.index));
+            for (Source source : sources) {
+                if (source.advance()) {
+                    heads.add(source);
+                }
+            }
+            while (!heads.isEmpty()) {
+                Source source = heads.poll();
+                source.write(output);
+                if (source.advance()) {
+                    heads.add(source);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } finally {
+            for (Thread thread : threads) {
+                thread.interrupt();
+            }
+        }
+    }
+
+    /** Lines of one source with their sort keys, copied out of the reader buffer. */
+    private static class Batch {
+        final long[] keys = new long[BATCH_LINES];
+        final int[] ends = new int[BATCH_LINES];
+        byte[] bytes = new byte[64 * 1024];
+        int lines;
+
+        void add(long key, FieldCursor line) {
+            int start = lines == 0 ? 0 : ends[lines - 1];
+            int length = line.lineEnd() - line.lineStart();
+            if (start + length > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, start + length));
+            }
+            System.arraycopy(line.buffer(), line.lineStart(), bytes, start, length);
+            keys[lines] = key;
+            ends[lines] = start + length;
+            ++lines;
+        }
+
+        boolean isFull() {
+            return lines == BATCH_LINES;
+        }
+    }
+
+    private static class Source implements Runnable {
+        private static final Batch END = new Batch();
+
+        final int index;
+        final String file;
+        final SimulationLogParser parser;
+        final List<Filter> filters;
+        final BlockingQueue<Batch> queue = new ArrayBlockingQueue<>(QUEUE_BATCHES);
+        volatile Exception failure;
+
+        // producer side
+        private Batch pending = new Batch();
+        private long lastKey = Long.MIN_VALUE;
+
+        // consumer side
+        private Batch head;
+        private int position;
+
+        Source(int index, String file, SimulationLogParser parser, List<Filter> filters) {
+            this.index = index;
+            this.file = file;
+            this.parser = parser;
+            this.filters = filters;
+        }
+
+        @Override
+        public void run() {
+            try {
+                SimulationInfo info = parser.readInfo();
+                parser.rewrite(info, filters, this::accept);
+                if (pending.lines > 0) {
+                    queue.put(pending);
+                }
+            } catch (IOException | RuntimeException e) {
+                // e.g. a malformed row; advance() hands it to the merging thread
+                failure = e;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                try {
+                    queue.put(END);
+                } catch (InterruptedException e) {
+                    // merge was abandoned
+                }
+            }
+        }
+
+        private void accept(FieldCursor line) {
+            FileFormat fileFormat = parser.fileFormat;
+            int type = fileFormat.getTypeField();
+            if (line.fieldEquals(type, fileFormat.getREQUEST())) {
+                lastKey = line.longField(fileFormat.getCompleteTimestampField());
+            } else if (line.fieldEquals(type, fileFormat.getUSER())) {
+                lastKey = line.longField(line.fieldEquals(fileFormat.getUserEventField(), fileFormat.getSTART())
+                        ? fileFormat.getUserStartField() : fileFormat.getUserEndField());
+            } else if (line.fieldEquals(type, fileFormat.getRUN()) || line.fieldEquals(type, SimulationLogParser.ASSERTION_STRING)) {
+                if (index > 0) {
+                    return;
+                }
+            }
+            pending.add(lastKey, line);
+            if (pending.isFull()) {
+                try {
+                    queue.put(pending);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new UncheckedIOException(new InterruptedIOException());
+                }
+                pending = new Batch();
+            }
+        }
+
+        /** Moves to the next line, waiting for the source thread if needed; {@code false} at the end. */
+        boolean advance() throws IOException, InterruptedException {
+            ++position;
+            if (head == null || position >= head.lines) {
+                if (head == END) {
+                    return false;
+                }
+                head = queue.take();
+                position = 0;
+                if (head == END) {
+                    if (failure != null) {
+                        throw new IOException("Cannot merge " + file, failure);
+                    }
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        long key() {
+            return head.keys[position];
+        }
+
+        void write(OutputStream output) throws IOException {
+            int start = position == 0 ? 0 : head.ends[position - 1];
+            output.write(head.bytes, start, head.ends[position] - start);
+            output.write('\n');
+        }
+    }
+}
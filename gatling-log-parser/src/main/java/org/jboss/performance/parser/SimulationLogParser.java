@@ -1,22 +1,61 @@
 package org.jboss.performance.parser;
 
+import org.jboss.performance.parser.cache.ColumnarLog;
+import org.jboss.performance.parser.cache.ColumnarLogBuilder;
+import org.jboss.performance.parser.cache.OffsetIndex;
+import org.jboss.performance.parser.consumer.CorrectedStatistics;
+import org.jboss.performance.parser.consumer.RequestBreakdown;
+import org.jboss.performance.parser.consumer.RequestSink;
+import org.jboss.performance.parser.consumer.ResponseTimeStatistics;
+import org.jboss.performance.parser.consumer.SampledStatistics;
+import org.jboss.performance.parser.consumer.Timeline;
+import org.jboss.performance.parser.consumer.TimelineBucket;
+import org.jboss.performance.parser.filter.Filter;
+import org.jboss.performance.parser.filter.FilterPipeline;
+import org.jboss.performance.parser.filter.LogRecord;
+import org.jboss.performance.parser.format.BinaryFileVersion;
 import org.jboss.performance.parser.format.FileFormat;
 import org.jboss.performance.parser.format.FileVersionA;
 import org.jboss.performance.parser.format.FileVersionB;
 import org.jboss.performance.parser.format.UnknownFileFormatException;
+import org.jboss.performance.parser.metrics.MeteredInputStream;
+import org.jboss.performance.parser.metrics.ParserMetrics;
+import org.jboss.performance.parser.metrics.Stage;
+import org.jboss.performance.parser.metrics.StageTimer;
+import org.jboss.performance.parser.printer.BreakdownPrinter;
 import org.jboss.performance.parser.printer.StatsPrinter;
+import org.jboss.performance.parser.query.QueryEngine;
+import org.jboss.performance.parser.query.RequestColumns;
+import org.jboss.performance.parser.query.RequestTable;
+import org.jboss.performance.parser.report.SampleResult;
+import org.jboss.performance.parser.report.SimulationReport;
+import org.jboss.performance.parser.report.StatisticsResult;
+import org.jboss.performance.parser.reader.BinaryLogReader;
+import org.jboss.performance.parser.reader.Compression;
+import org.jboss.performance.parser.reader.FieldCursor;
+import org.jboss.performance.parser.reader.FieldInterner;
+import org.jboss.performance.parser.reader.LineReader;
+import org.jboss.performance.parser.reader.LogFollower;
+import org.jboss.performance.parser.reader.LogScanner;
+import org.jboss.performance.parser.reader.RangeInputStream;
 
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
 
 /**
  * Created by johara on 10/05/16.
@@ -24,10 +63,31 @@ import java.util.stream.Stream;
 public class SimulationLogParser {
 
     public static final String ASSERTION_STRING = "ASSERTION";
+    private static final long TAIL_SCAN_BYTES = 64 * 1024;
+    private static final long MIN_SAMPLE_RANGE = 64 * 1024;
+    private static final long MAX_SAMPLE_RANGE = 4 * 1024 * 1024;
+    private static final int SAMPLE_RANGES = 256;
     public final FileFormat fileFormat;
 
     private final String simulationLogFile;
-    private List<Double> responseTimeList;
+    private int parallelism = 1;
+    private long highestTrackableValue = ResponseTimeStatistics.DEFAULT_HIGHEST_TRACKABLE_VALUE;
+    private int significantDigits = ResponseTimeStatistics.DEFAULT_SIGNIFICANT_DIGITS;
+    private boolean columnarCache;
+    private boolean offsetIndex;
+    private long skip = -1;
+    private long truncate = -1;
+    private boolean breakdown;
+    private boolean breakdownByGroup;
+    private boolean breakdownByStatus;
+    private long expectedInterval;
+    private double sample;
+    private long sampleSeed;
+    private ResponseTimeStatistics statistics;
+    private CorrectedStatistics correctedStatistics;
+    private RequestBreakdown requestBreakdown;
+    private SampledStatistics sampledStatistics;
+    private ParserMetrics metrics;
 
     public SimulationLogParser(String simulationLogFile) {
         this.simulationLogFile = simulationLogFile;
@@ -35,6 +95,13 @@ public class SimulationLogParser {
     }
 
     private FileFormat getFileFormat() {
+        try {
+            if (BinaryLogReader.detect(simulationLogFile)) {
+                return new BinaryFileVersion();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read " + simulationLogFile, e);
+        }
         String header = readFile();
         FileFormat fileFormat;
 
@@ -50,19 +117,21 @@ public class SimulationLogParser {
 
         fileFormat = null;
 
-        throw new UnknownFileFormatException();
+        throw new UnknownFileFormatException("Unknown format of " + simulationLogFile);
     }
 
     private String readFile() {
-        try (BufferedReader reader = new BufferedReader(new FileReader(simulationLogFile))) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(Compression.open(simulationLogFile, false), StandardCharsets.UTF_8))) {
             String line = reader.readLine();
-            while( line.contains( ASSERTION_STRING )){
+            while (line != null && line.contains(ASSERTION_STRING)) {
                 line = reader.readLine();
             }
+            if (line == null) {
+                throw new UnknownFileFormatException("No records in " + simulationLogFile);
+            }
             return line;
         } catch (IOException e) {
-            e.printStackTrace();  // TODO: Customise this generated block
-            return null;
+            throw new UncheckedIOException("Cannot read " + simulationLogFile, e);
         }
     }
 
@@ -71,149 +140,781 @@ public class SimulationLogParser {
         if (simulationLogFile == null) {
             throw new SimulationLogFileNotDefinedException();
         }
-        this.responseTimeList = parseFile();
+        long interval = expectedInterval < 0 ? estimateArrivalInterval() : expectedInterval;
+        Report report = sample > 0 ? sampleRequests(interval) : parseRequests(() -> new Report(interval, false), Report::combine);
+        this.statistics = report.statistics;
+        this.correctedStatistics = report.corrected;
+        this.requestBreakdown = report.breakdown;
+        this.sampledStatistics = report.sampled;
+    }
+
+    /**
+     * Makes {@link #parseLogFile()} read only about {@code fraction} of the log, in byte ranges chosen at random with
+     * the given seed, and estimate the count and percentiles of the whole log from them (see {@link SampleResult}).
+     * Only uncompressed text logs can be sampled; others are still parsed completely. 0 reads the whole log.
+     */
+    public void setSample(double fraction, long seed) {
+        if (fraction < 0 || fraction > 1) {
+            throw new IllegalArgumentException("Sample fraction must be between 0 and 1: " + fraction);
+        }
+        this.sample = fraction;
+        this.sampleSeed = seed;
+    }
+
+    /**
+     * Splits the log into ranges, about {@value #SAMPLE_RANGES} of which make up the sample unless that makes them
+     * too small or too large, and parses the sampled ones.
+     */
+    private Report sampleRequests(long interval) {
+        try {
+            if (!fileFormat.isText() || Compression.detect(simulationLogFile) != Compression.NONE) {
+                System.err.println("Only uncompressed text logs can be sampled, parsing all of " + simulationLogFile);
+                return parseRequests(() -> new Report(interval, false), Report::combine);
+            }
+            long size = Files.size(Paths.get(simulationLogFile));
+            long rangeSize = Math.max(MIN_SAMPLE_RANGE, Math.min(MAX_SAMPLE_RANGE, (long) (size * sample / SAMPLE_RANGES)));
+            long totalRanges = (size + rangeSize - 1) / rangeSize;
+            int ranges = (int) Math.max(1, Math.min(totalRanges, Math.round(totalRanges * sample)));
+            SimulationInfo info = skip >= 0 || truncate >= 0 ? readInfo() : null;
+            long windowStart = windowStart(info);
+            long windowEnd = windowEnd(info);
+            Accumulator<Report> result = new LogScanner(simulationLogFile, fileFormat, parallelism).setMetrics(metrics)
+                    .sample(rangeSize, ranges, new Random(sampleSeed), () -> new Accumulator<>(new Report(interval, true), null),
+                            (accumulator, cursor) -> accumulator.accept(cursor, windowStart, windowEnd),
+                            (accumulator, other) -> accumulator.combine(other, Report::combine));
+            result.sink.sampled.setTotalRanges(totalRanges);
+            return result.sink;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read " + simulationLogFile, e);
+        }
+    }
+
+    /**
+     * Makes {@link #parseLogFile()} also compute percentiles corrected for coordinated omission (see
+     * {@link CorrectedStatistics}), assuming a request is expected every {@code expectedInterval} ms. A negative value
+     * uses {@link #estimateArrivalInterval()}, which costs an extra pass over the log; 0 disables the correction.
+     */
+    public void setExpectedInterval(long expectedInterval) {
+        this.expectedInterval = expectedInterval;
+    }
+
+    /**
+     * Mean time between two users starting, from the USER START rows: the expected inter-arrival interval of an open
+     * injection model.
+     *
+     * @return interval in ms, at least 1, or 0 if the log has fewer than two users
+     * @throws UncheckedIOException if the log cannot be read
+     */
+    public long estimateArrivalInterval() {
+        try {
+            // count, first start, last start
+            long[] users = scanner().scan(() -> new long[]{0, Long.MAX_VALUE, Long.MIN_VALUE}, (acc, cursor) -> {
+                if (cursor.fieldEquals(fileFormat.getTypeField(), fileFormat.getUSER())
+                        && cursor.fieldEquals(fileFormat.getUserEventField(), fileFormat.getSTART())) {
+                    long start = cursor.longField(fileFormat.getUserStartField());
+                    ++acc[0];
+                    acc[1] = Math.min(acc[1], start);
+                    acc[2] = Math.max(acc[2], start);
+                }
+            }, (acc, other) -> {
+                acc[0] += other[0];
+                acc[1] = Math.min(acc[1], other[1]);
+                acc[2] = Math.max(acc[2], other[2]);
+            });
+            if (users[0] < 2) {
+                return 0;
+            }
+            return Math.max(1, Math.round((double) (users[2] - users[1]) / (users[0] - 1)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read " + simulationLogFile, e);
+        }
+    }
+
+    /**
+     * Makes {@link #parseLogFile()} also collect statistics per request name, optionally split further by group
+     * and by status (OK/KO), in the same pass over the file.
+     */
+    public void setBreakdown(boolean byGroup, boolean byStatus) {
+        this.breakdown = true;
+        this.breakdownByGroup = byGroup;
+        this.breakdownByStatus = byStatus;
+    }
+
+    /**
+     * Makes {@link #parseLogFile()} and {@link #parseInfo()} read the binary columnar cache next to the log when it
+     * is up to date, and otherwise write one while parsing the text log.
+     *
+     * @see ColumnarLog
+     */
+    public void setColumnarCache(boolean columnarCache) {
+        this.columnarCache = columnarCache;
+    }
+
+    /**
+     * Makes windowed passes over an uncompressed text log ({@link #setWindow(long, long)} and filters with a time
+     * window) read only the parts of the log that the sparse index next to it maps to the window; the index is built
+     * by a first full pass when missing or stale. The columnar cache, when enabled, takes precedence.
+     *
+     * @see OffsetIndex
+     */
+    public void setOffsetIndex(boolean offsetIndex) {
+        this.offsetIndex = offsetIndex;
+    }
+
+    /**
+     * Restricts {@link #parseLogFile()} to requests that start at least {@code skip} ms after the RUN start time and
+     * complete more than {@code truncate} ms before the last request completes, like the filter command does. A
+     * negative value disables that side of the window.
+     */
+    public void setWindow(long skip, long truncate) {
+        this.skip = skip;
+        this.truncate = truncate;
+    }
+
+    /**
+     * Number of threads used by {@link #parseLogFile()} and {@link #parseInfo()}. With more than one thread the log
+     * is memory-mapped and parsed in newline-aligned chunks.
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Sizes the response time histogram: values above {@code highestTrackableValue} ms are recorded as that value,
+     * percentiles are exact to {@code significantDigits} decimal digits.
+     */
+    public void setHistogramPrecision(long highestTrackableValue, int significantDigits) {
+        this.highestTrackableValue = highestTrackableValue;
+        this.significantDigits = significantDigits;
+    }
+
+    /**
+     * Records throughput, time per stage and allocation of all following full passes over the log; the same metrics
+     * may be shared by several parsers. Off unless set.
+     */
+    public void setMetrics(ParserMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public ParserMetrics getMetrics() {
+        return metrics;
+    }
+
+    public ResponseTimeStatistics getStatistics() {
+        return statistics;
+    }
+
+    /** @return corrected statistics, or {@code null} unless enabled by {@link #setExpectedInterval(long)} */
+    public CorrectedStatistics getCorrectedStatistics() {
+        return correctedStatistics;
+    }
+
+    /** @return per-request statistics, or {@code null} unless enabled by {@link #setBreakdown(boolean, boolean)} */
+    public RequestBreakdown getBreakdown() {
+        return requestBreakdown;
+    }
+
+    /** @return per-range statistics of the sample, or {@code null} unless enabled by {@link #setSample(double, long)} */
+    public SampledStatistics getSampledStatistics() {
+        return sampledStatistics;
+    }
+
+    /**
+     * @return immutable snapshot of the statistics and breakdown of the last {@link #parseLogFile()}
+     */
+    public SimulationReport getReport(double... centiles) {
+        SimulationReport report = SimulationReport.of(statistics, requestBreakdown, centiles);
+        if (correctedStatistics != null) {
+            report = report.withCorrected(StatisticsResult.of(correctedStatistics.getHistogram(), centiles), correctedStatistics.getExpectedInterval());
+        }
+        if (sampledStatistics != null) {
+            report = report.withSample(SampleResult.of(sampledStatistics, statistics.getHistogram(), centiles));
+        }
+        return report;
+    }
+
+    /** Reader for the first lines only: not pipelined, so nothing is decompressed ahead that is never read. */
+    private LineReader openReader() throws IOException {
+        return new LineReader(fileFormat.open(simulationLogFile, false));
+    }
+
+    /** Scanner for a full pass over the log. */
+    private LogScanner scanner() {
+        expectFullPass();
+        return new LogScanner(simulationLogFile, fileFormat, parallelism).setMetrics(metrics);
+    }
+
+    /** Scanner for a pass over the given ranges of the log. */
+    private LogScanner scanner(List<long[]> ranges) {
+        if (metrics != null) {
+            metrics.expectBytes(length(ranges));
+        }
+        return new LogScanner(simulationLogFile, fileFormat, parallelism).setMetrics(metrics);
+    }
+
+    private static long length(List<long[]> ranges) {
+        long length = 0;
+        for (long[] range : ranges) {
+            length += range[1] - range[0];
+        }
+        return length;
+    }
+
+    /**
+     * @param includeOthers whether to also read the parts of the log with rows other than REQUEST and USER
+     * @return byte ranges of the log that may hold rows within {@code [from, to)}, or {@code null} if the whole log
+     * is to be read because the index is off, the window is unbounded or the log cannot be read at random offsets
+     */
+    private List<long[]> indexedRanges(long from, long to, boolean includeOthers) throws IOException {
+        if (!offsetIndex || from == Long.MIN_VALUE && to == Long.MAX_VALUE
+                || !fileFormat.isText() || Compression.detect(simulationLogFile) != Compression.NONE) {
+            return null;
+        }
+        return OffsetIndex.openOrBuild(simulationLogFile, fileFormat).ranges(from, to, includeOthers);
+    }
+
+    private void expectFullPass() {
+        if (metrics == null) {
+            return;
+        }
+        try {
+            if (fileFormat.isText() && Compression.detect(simulationLogFile) == Compression.NONE) {
+                metrics.expectBytes(Files.size(Paths.get(simulationLogFile)));
+            }
+        } catch (IOException e) {
+            // only the progress percentage is affected, the pass itself reports the error
+        }
     }
 
     public SimulationInfo parseInfo() {
-        try (BufferedReader reader = new BufferedReader(new FileReader(simulationLogFile))) {
-            String line;
-            SimulationInfo info = new SimulationInfo(simulationLogFile);
-            while ((line = reader.readLine()) != null) {
-                String[] columns = line.split(fileFormat.getSEPARATOR());
-                if (fileFormat.getREQUEST().equals(columns[fileFormat.getTypeField()])) {
-                    info.firstRequestStart = Math.min(Long.parseLong(columns[fileFormat.getRequestTimestampField()]), info.firstRequestStart);
-                    info.lastRequestComplete = Math.max(Long.parseLong(columns[fileFormat.getCompleteTimestampField()]), info.lastRequestComplete);
-                } else if (fileFormat.getRUN().equals(columns[fileFormat.getTypeField()])) {
-                    info.clazz = columns[fileFormat.getClassTypeField()];
-                    info.name = columns[fileFormat.getIdField()];
-                    info.startTime = Long.parseLong(columns[fileFormat.getHeaderStartTimeField()]);
+        try {
+            ColumnarLog columns = columnarCache ? ColumnarLog.open(simulationLogFile) : null;
+            if (columns != null) {
+                return columns.getInfo();
+            }
+            if (!fileFormat.isText()) {
+                return decodeInfo();
+            }
+            return scanner().scan(() -> new SimulationInfo(simulationLogFile), this::accumulateInfo, SimulationInfo::combine);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read " + simulationLogFile, e);
+        }
+    }
+
+    /**
+     * Fills the RUN header fields and {@link SimulationInfo#lastRequestComplete} without reading the whole file:
+     * the header is read from the start and the completion time from the REQUEST rows at the end of the file, which
+     * Gatling writes as requests complete. {@link SimulationInfo#firstRequestStart} is only set from those rows.
+     *
+     * @throws UncheckedIOException if the log cannot be read
+     */
+    public SimulationInfo readInfo() {
+        if (!fileFormat.isText()) {
+            try {
+                return decodeInfo();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read " + simulationLogFile, e);
+            }
+        }
+        SimulationInfo info = new SimulationInfo(simulationLogFile);
+        try (LineReader reader = openReader()) {
+            FieldCursor cursor = new FieldCursor(fileFormat);
+            while (info.clazz == null && reader.next()) {
+                accumulateInfo(info, cursor.reset(reader));
+            }
+            LogScanner scanner = new LogScanner(simulationLogFile, fileFormat, 1);
+            for (long tail = TAIL_SCAN_BYTES; info.lastRequestComplete == Long.MIN_VALUE; tail *= 2) {
+                if (!scanner.scanTail(tail, info, this::accumulateInfo)) {
+                    break;
                 }
             }
             return info;
         } catch (IOException e) {
-            e.printStackTrace();  // TODO: Customise this generated block
-            return null;
+            throw new UncheckedIOException("Cannot read " + simulationLogFile, e);
+        }
+    }
+
+    /** A binary log has no end to read from, but decoding it whole is cheap. */
+    private SimulationInfo decodeInfo() throws IOException {
+        SimulationInfo info = new SimulationInfo(simulationLogFile);
+        try (BinaryLogReader reader = new BinaryLogReader(simulationLogFile)) {
+            while (reader.next()) {
+                if (reader.getType() == BinaryLogReader.RecordType.REQUEST) {
+                    info.firstRequestStart = Math.min(reader.getStart(), info.firstRequestStart);
+                    info.lastRequestComplete = Math.max(reader.getEnd(), info.lastRequestComplete);
+                } else if (reader.getType() == BinaryLogReader.RecordType.RUN) {
+                    info.clazz = reader.getSimulationClass();
+                    info.name = "";
+                    info.startTime = reader.getRunStart();
+                }
+            }
+        }
+        return info;
+    }
+
+    private void accumulateInfo(SimulationInfo info, FieldCursor cursor) {
+        if (cursor.fieldEquals(fileFormat.getTypeField(), fileFormat.getREQUEST())) {
+            info.firstRequestStart = Math.min(cursor.longField(fileFormat.getRequestTimestampField()), info.firstRequestStart);
+            info.lastRequestComplete = Math.max(cursor.longField(fileFormat.getCompleteTimestampField()), info.lastRequestComplete);
+        } else if (cursor.fieldEquals(fileFormat.getTypeField(), fileFormat.getRUN())) {
+            info.clazz = cursor.field(fileFormat.getClassTypeField());
+            info.name = cursor.field(fileFormat.getIdField());
+            info.startTime = cursor.longField(fileFormat.getHeaderStartTimeField());
         }
     }
 
     public void printStats(List<StatsPrinter> printers) {
         //Print stats
         for (StatsPrinter printer : printers) {
-            printer.printStats(this.responseTimeList);
+            printer.printStats(this.statistics);
         }
     }
 
-    private List<Double> parseFile() {
+    public void printBreakdown(BreakdownPrinter printer) {
+        if (requestBreakdown != null) {
+            printer.printStats(requestBreakdown);
+        }
+    }
+
+    /**
+     * Streams the log once, sequentially, bucketing requests by completion time into intervals of
+     * {@code interval} ms that are handed to {@code listener} as soon as they are closed.
+     *
+     * @return the timeline, e.g. to check how many requests arrived too late to be bucketed
+     */
+    public Timeline parseTimeline(long interval, int window, Consumer<TimelineBucket> listener) {
+        return parseTimeline(interval, window, false, listener);
+    }
 
-        try (Stream<String> stream = Files.lines(Paths.get(simulationLogFile))) {
-            return stream
-                    .map(line -> Arrays.asList(line.split(fileFormat.getSEPARATOR())))
-                    .filter(list -> list.get(fileFormat.getTypeField()).equals(fileFormat.getREQUEST()))
-                    .map(item -> Double.parseDouble(item.get(fileFormat.getCompleteTimestampField())) - Double.parseDouble(item.get(fileFormat.getRequestTimestampField())))
-                    .collect(Collectors.toList());
+    /**
+     * Like {@link #parseTimeline(long, int, Consumer)}, also sweeping the USER START and END rows into the same
+     * intervals if {@code users} is set, so that every bucket reports the users active at its end and their peak.
+     *
+     * @return the timeline, e.g. to check how many requests arrived too late to be bucketed or the peak of users
+     * @throws UncheckedIOException if the log cannot be read
+     */
+    public Timeline parseTimeline(long interval, int window, boolean users, Consumer<TimelineBucket> listener) {
+        if (simulationLogFile == null) {
+            throw new SimulationLogFileNotDefinedException();
+        }
+        Timeline timeline = new Timeline(interval, window, highestTrackableValue, significantDigits, listener);
+        try {
+            new LogScanner(simulationLogFile, fileFormat, 1).scan(() -> timeline, (t, cursor) -> {
+                if (cursor.fieldEquals(fileFormat.getTypeField(), fileFormat.getREQUEST())) {
+                    long complete = cursor.longField(fileFormat.getCompleteTimestampField());
+                    t.accept(complete, complete - cursor.longField(fileFormat.getRequestTimestampField()),
+                            !cursor.fieldEquals(fileFormat.getStatusField(), fileFormat.getKO()));
+                } else if (users && cursor.fieldEquals(fileFormat.getTypeField(), fileFormat.getUSER())) {
+                    boolean start = cursor.fieldEquals(fileFormat.getUserEventField(), fileFormat.getSTART());
+                    t.acceptUser(cursor.longField(start ? fileFormat.getUserStartField() : fileFormat.getUserEndField()), start);
+                }
+            }, (t1, t2) -> {
+                throw new IllegalStateException("Timeline is computed sequentially");
+            });
         } catch (IOException e) {
-            e.printStackTrace();
+            throw new UncheckedIOException("Cannot read " + simulationLogFile, e);
         }
-        return null;
+        timeline.finish();
+        return timeline;
     }
 
+    /**
+     * Streams the REQUEST rows within the window set by {@link #setWindow(long, long)} into sinks created by
+     * {@code sinkFactory}, one per parsing thread, and combines them in file order. Reads the columnar cache instead
+     * of the log when enabled and up to date, and writes it otherwise. This is what {@link #parseLogFile()} uses.
+     *
+     * @return the combined sink
+     * @throws UncheckedIOException if the log cannot be read
+     */
+    public <S extends RequestSink> S parseRequests(Supplier<S> sinkFactory, BiConsumer<S, S> combiner) {
+        if (simulationLogFile == null) {
+            throw new SimulationLogFileNotDefinedException();
+        }
+        try {
+            ColumnarLog columns = columnarCache ? ColumnarLog.open(simulationLogFile) : null;
+            if (columns != null) {
+                return parseColumns(columns, sinkFactory.get());
+            }
+            Path source = Paths.get(simulationLogFile);
+            long sourceSize = Files.size(source);
+            long sourceModified = Files.getLastModifiedTime(source).toMillis();
+            SimulationInfo info = columnarCache || skip >= 0 || truncate >= 0 ? readInfo() : null;
+            long windowStart = windowStart(info);
+            long windowEnd = windowEnd(info);
+            ColumnarLogBuilder.Shared cache = columnarCache ? new ColumnarLogBuilder.Shared(info) : null;
+            // the cache needs every row, the window only those the index points to
+            List<long[]> ranges = cache == null ? indexedRanges(windowStart, windowEnd, false) : null;
+
+            Supplier<Accumulator<S>> supplier = () -> new Accumulator<>(sinkFactory.get(), cache);
+            BiConsumer<Accumulator<S>, FieldCursor> accumulate = (accumulator, cursor) -> accumulator.accept(cursor, windowStart, windowEnd);
+            BiConsumer<Accumulator<S>, Accumulator<S>> combine = (accumulator, other) -> accumulator.combine(other, combiner);
+            Accumulator<S> result = !fileFormat.isText() ? decodeRequests(supplier.get(), windowStart, windowEnd)
+                    : ranges != null ? scanner(ranges).scan(ranges, supplier, accumulate, combine)
+                    : scanner().scan(supplier, accumulate, combine);
+
+            if (result.cache != null) {
+                try {
+                    result.cache.finish(ColumnarLog.sidecar(simulationLogFile), sourceSize, sourceModified);
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("Cannot write columnar cache for " + simulationLogFile + ": " + e);
+                    result.cache.close();
+                }
+            }
+            return result.sink;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read " + simulationLogFile, e);
+        }
+    }
 
-    public void rewrite(SimulationInfo info, BufferedWriter writer, List<Filter> filters) {
-        try (BufferedReader reader = new BufferedReader(new FileReader(simulationLogFile))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] columns = line.split(fileFormat.getSEPARATOR());
-                for (Filter filter : filters) {
-                    columns = filter.apply(fileFormat, info, columns,  cs-> {
-                        try {
-                            addLine(writer, cs);
-                        } catch (IOException e) {
-                            throw new RuntimeException(e);
-                        }
-                    });
-                    if (columns == null) break;
+    /**
+     * Feeds the REQUEST records of a binary log straight to the accumulator, without going through text.
+     */
+    private <S extends RequestSink> Accumulator<S> decodeRequests(Accumulator<S> accumulator, long windowStart, long windowEnd) throws IOException {
+        try (BinaryLogReader reader = new BinaryLogReader(simulationLogFile);
+             StageTimer timer = metrics == null ? null : new StageTimer(metrics, Stage.PARSE)) {
+            while (reader.next()) {
+                if (reader.getType() == BinaryLogReader.RecordType.REQUEST) {
+                    if (accumulator.usesNames || accumulator.cache != null) {
+                        accumulator.accept(reader.getStart(), reader.getEnd(), reader.getGroup(), reader.getName(),
+                                reader.isOk() ? fileFormat.getOK() : fileFormat.getKO(), windowStart, windowEnd);
+                    } else {
+                        accumulator.accept(reader.getStart(), reader.getEnd(), null, null, null, windowStart, windowEnd);
+                    }
                 }
+                if (timer != null) {
+                    timer.line();
+                }
+            }
+            if (metrics != null) {
+                metrics.addRead(reader.position());
+            }
+        }
+        return accumulator;
+    }
+
+    /**
+     * REQUEST rows of the log as columns for a {@link QueryEngine}. With the columnar cache enabled and no window set,
+     * a valid cache is mapped as is; otherwise the rows within the window are parsed into memory, writing the cache
+     * on the way when enabled.
+     *
+     * @throws UncheckedIOException if the log cannot be read
+     */
+    public RequestColumns readColumns() {
+        if (simulationLogFile == null) {
+            throw new SimulationLogFileNotDefinedException();
+        }
+        try {
+            if (columnarCache && skip < 0 && truncate < 0) {
+                ColumnarLog columns = ColumnarLog.open(simulationLogFile);
                 if (columns != null) {
-                    addLine(writer, columns);
+                    return columns;
                 }
             }
         } catch (IOException e) {
-            e.printStackTrace();  // TODO: Customise this generated block
+            throw new UncheckedIOException("Cannot read " + simulationLogFile, e);
         }
+        SimulationInfo info = readInfo();
+        long runStart = info.startTime;
+        return parseRequests(() -> new RequestTable.Builder(runStart), RequestTable.Builder::combine).build();
     }
 
-    public void addLine(BufferedWriter writer, String[] columns) throws IOException {
-        writer.write(columns[0]);
-        for (int i = 1; i < columns.length; ++i) {
-            writer.write(fileFormat.getSEPARATOR());
-            writer.write(columns[i]);
+    /**
+     * Follows a log that is still being written, keeping the statistics (and breakdown, if enabled) up to date.
+     * Every {@code pollInterval} ms only the newly appended bytes are parsed; every {@code snapshotInterval} ms
+     * the current state is available through {@link #getStatistics()} and {@link #getBreakdown()} and
+     * {@code snapshot} is invoked. If the log shrinks it is taken to be a new run: the statistics start over from
+     * its first line. Returns after no data arrived for {@code idleTimeout} ms (if positive) or when the thread is
+     * interrupted.
+     */
+    public void watch(long pollInterval, long snapshotInterval, long idleTimeout, Runnable snapshot) throws IOException {
+        if (simulationLogFile == null) {
+            throw new SimulationLogFileNotDefinedException();
+        }
+        if (Compression.detect(simulationLogFile) != Compression.NONE) {
+            throw new IllegalArgumentException("Cannot follow compressed log " + simulationLogFile);
+        }
+        if (!fileFormat.isText()) {
+            throw new IllegalArgumentException("Cannot follow binary log " + simulationLogFile);
+        }
+        AtomicReference<Accumulator<Report>> accumulator = new AtomicReference<>(startWatch());
+        try (LogFollower follower = new LogFollower(simulationLogFile, fileFormat)
+                .setRewindListener(() -> accumulator.set(startWatch()))) {
+            long now = System.currentTimeMillis();
+            long lastData = now;
+            long nextSnapshot = now + snapshotInterval;
+            while (!Thread.currentThread().isInterrupted()) {
+                long read = follower.poll(cursor -> accumulator.get().accept(cursor, Long.MIN_VALUE, Long.MAX_VALUE));
+                now = System.currentTimeMillis();
+                if (read > 0) {
+                    lastData = now;
+                } else if (idleTimeout > 0 && now - lastData >= idleTimeout) {
+                    break;
+                }
+                if (now >= nextSnapshot) {
+                    snapshot.run();
+                    nextSnapshot = now + snapshotInterval;
+                }
+                if (read == 0) {
+                    try {
+                        Thread.sleep(pollInterval);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
         }
-        writer.write('\n');
+        snapshot.run();
     }
 
-    interface Filter {
-        String[] apply(FileFormat fileFormat, SimulationInfo info, String[] columns, Consumer<String[]> addLine);
+    /** @return an empty accumulator for {@link #watch}, whose statistics are published right away */
+    private Accumulator<Report> startWatch() {
+        Accumulator<Report> accumulator = new Accumulator<>(new Report(Math.max(0, expectedInterval), false), null);
+        this.statistics = accumulator.sink.statistics;
+        this.correctedStatistics = accumulator.sink.corrected;
+        this.requestBreakdown = accumulator.sink.breakdown;
+        return accumulator;
     }
 
-    /** Skip first X ms */
-    static class SkipFilter implements Filter {
-        private final long ms;
-
-        SkipFilter(long ms) {
-            this.ms = ms;
+    private <S extends RequestSink> S parseColumns(ColumnarLog columns, S sink) {
+        long windowStart = windowStart(columns.getInfo());
+        long windowEnd = windowEnd(columns.getInfo());
+        List<String> groups = columns.groups();
+        List<String> names = columns.names();
+        List<String> statuses = columns.statuses();
+        boolean usesNames = sink.usesNames();
+        for (int row = 0; row < columns.rows(); ++row) {
+            long start = columns.requestStart(row);
+            long end = start + columns.duration(row);
+            if (start < windowStart || end >= windowEnd) {
+                continue;
+            }
+            if (usesNames) {
+                sink.accept(start, end, groups.get(columns.groupId(row)), names.get(columns.nameId(row)), statuses.get(columns.statusId(row)));
+            } else {
+                sink.accept(start, end, null, null, null);
+            }
         }
+        return sink;
+    }
 
-        @Override
-        public String[] apply(FileFormat fileFormat, SimulationInfo info, String[] columns, Consumer<String[]> addLine) {
-            long newStart = info.startTime + ms;
-            if (fileFormat.getREQUEST().equals(columns[fileFormat.getTypeField()])) {
-                if (Long.parseLong(columns[fileFormat.getRequestTimestampField()]) < newStart) {
-                    return null;
-                }
-            } else if (fileFormat.getUSER().equals(columns[fileFormat.getTypeField()])) {
-                long start = Long.parseLong(columns[4]);
-                long end = Long.parseLong(columns[5]);
-                if (fileFormat.getSTART().equals(columns[3]) && start < newStart) {
-                    return null;
-                } else if (fileFormat.getEND().equals(columns[3]) && start < newStart) {
-                    if (end < newStart) {
-                        return null;
-                    } else {
-                        columns[4] = String.valueOf(newStart);
-                        String[] startColumns = Arrays.copyOf(columns, columns.length);
-                        startColumns[3] = fileFormat.getSTART();
-                        startColumns[4] = String.valueOf(newStart);
-                        startColumns[5] = "0";
-                        addLine.accept(startColumns);
-                    }
+    private long windowStart(SimulationInfo info) {
+        return skip >= 0 ? info.startTime + skip : Long.MIN_VALUE;
+    }
+
+    private long windowEnd(SimulationInfo info) {
+        return truncate >= 0 ? info.lastRequestComplete - truncate : Long.MAX_VALUE;
+    }
+
+    /**
+     * Copies the log to {@code output}, passing every line through the filters (see {@link FilterPipeline}). Lines
+     * the filters leave untouched are copied as raw bytes.
+     *
+     * @throws UncheckedIOException if the log cannot be read or the output written
+     */
+    public void rewrite(SimulationInfo info, OutputStream output, List<Filter> filters) {
+        long[] written = new long[1];
+        try {
+            rewrite(info, filters, line -> {
+                try {
+                    addLine(output, line);
+                    ++written[0];
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
                 }
-            } else if (fileFormat.getRUN().equals(columns[fileFormat.getTypeField()])) {
-                columns[3] = String.valueOf(newStart);
+            }, true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot rewrite " + simulationLogFile, e);
+        } finally {
+            if (metrics != null) {
+                metrics.addLinesWritten(written[0]);
+            }
+        }
+    }
+
+    /**
+     * Passes every line of the log through the filters and hands the resulting lines to {@code sink}; the cursor is
+     * only valid during the call.
+     */
+    void rewrite(SimulationInfo info, List<Filter> filters, Consumer<FieldCursor> sink) throws IOException {
+        rewrite(info, filters, sink, false);
+    }
+
+    /**
+     * @param sinkWrites whether the sink writes on this thread; that time is then left to the {@link Stage#WRITE}
+     * stage of a {@link org.jboss.performance.parser.metrics.MeteredOutputStream}
+     */
+    private void rewrite(SimulationInfo info, List<Filter> filters, Consumer<FieldCursor> sink, boolean sinkWrites) throws IOException {
+        FilterPipeline pipeline = new FilterPipeline(filters);
+        // RUN and other rows are kept by the filters, so the index must not skip them
+        List<long[]> ranges = indexedRanges(pipeline.windowStart(info), pipeline.windowEnd(info), true);
+        InputStream input = ranges != null ? new RangeInputStream(Paths.get(simulationLogFile), ranges) : fileFormat.open(simulationLogFile, true);
+        if (metrics == null) {
+            try (LineReader reader = new LineReader(input)) {
+                rewrite(reader, info, filters, sink, null);
+            }
+            return;
+        }
+        if (ranges != null) {
+            metrics.expectBytes(length(ranges));
+        } else {
+            expectFullPass();
+        }
+        MeteredInputStream metered = new MeteredInputStream(input, metrics);
+        LongSupplier[] excluded = sinkWrites ? new LongSupplier[]{metered::getNanos, StageTimer.total(metrics, Stage.WRITE)}
+                : new LongSupplier[]{metered::getNanos};
+        try (LineReader reader = new LineReader(metered);
+             StageTimer timer = new StageTimer(metrics, Stage.FILTER, excluded)) {
+            rewrite(reader, info, filters, sink, timer);
+        }
+    }
+
+    private void rewrite(LineReader reader, SimulationInfo info, List<Filter> filters, Consumer<FieldCursor> sink, StageTimer timer) throws IOException {
+        FieldCursor cursor = new FieldCursor(fileFormat);
+        LogRecord record = new LogRecord(fileFormat, info);
+        FilterPipeline pipeline = new FilterPipeline(filters);
+        Consumer<LogRecord> addLine = added -> sink.accept(added.getCursor());
+        while (reader.next()) {
+            if (timer != null) {
+                timer.line();
+            }
+            record.reset(cursor.reset(reader));
+            if (!pipeline.test(record)) {
+                continue;
+            }
+            LogRecord line = pipeline.apply(record, addLine);
+            if (line != null) {
+                sink.accept(line.getCursor());
             }
-            return columns;
         }
     }
 
-    /** Skip last X ms */
-    static class TruncateFilter implements Filter {
-        private final long ms;
+    public void addLine(OutputStream output, FieldCursor line) throws IOException {
+        output.write(line.buffer(), line.lineStart(), line.lineEnd() - line.lineStart());
+        output.write('\n');
+    }
+
+    /** Statistics collected by {@link #parseLogFile()}. */
+    private class Report implements RequestSink {
+        final ResponseTimeStatistics statistics = new ResponseTimeStatistics(highestTrackableValue, significantDigits);
+        final RequestBreakdown breakdown = SimulationLogParser.this.breakdown ? new RequestBreakdown(breakdownByGroup, breakdownByStatus, highestTrackableValue, significantDigits) : null;
+        final CorrectedStatistics corrected;
+        final SampledStatistics sampled;
 
-        TruncateFilter(long ms) {
-            this.ms = ms;
+        Report(long expectedInterval, boolean sampled) {
+            this.corrected = expectedInterval > 0 ? new CorrectedStatistics(expectedInterval, highestTrackableValue, significantDigits) : null;
+            this.sampled = sampled ? new SampledStatistics(highestTrackableValue) : null;
+        }
+
+        @Override
+        public void accept(long start, long end, String group, String name, String status) {
+            statistics.accept(end - start);
+            if (corrected != null) {
+                corrected.accept(end - start);
+            }
+            if (breakdown != null) {
+                breakdown.accept(group, name, status, end - start);
+            }
+            if (sampled != null) {
+                sampled.accept(end - start);
+            }
         }
 
         @Override
-        public String[] apply(FileFormat fileFormat, SimulationInfo info, String[] columns, Consumer<String[]> addLine) {
-            if (fileFormat.getREQUEST().equals(columns[fileFormat.getTypeField()])) {
-                if (Long.parseLong(columns[fileFormat.getCompleteTimestampField()]) >= info.lastRequestComplete - ms) {
-                    return null;
+        public boolean usesNames() {
+            return breakdown != null;
+        }
+
+        void combine(Report other) {
+            statistics.combine(other.statistics);
+            if (corrected != null) {
+                corrected.combine(other.corrected);
+            }
+            if (breakdown != null) {
+                breakdown.combine(other.breakdown);
+            }
+            if (sampled != null) {
+                sampled.combine(other.sampled);
+            }
+        }
+    }
+
+    /** Per-thread state of {@link #parseRequests(Supplier, BiConsumer)}. */
+    private class Accumulator<S extends RequestSink> {
+        final S sink;
+        final boolean usesNames;
+        final FieldInterner interner = new FieldInterner();
+        ColumnarLogBuilder cache;
+
+        Accumulator(S sink, ColumnarLogBuilder.Shared cache) {
+            this.sink = sink;
+            this.usesNames = sink.usesNames();
+            this.cache = cache == null ? null : new ColumnarLogBuilder(cache);
+        }
+
+        void accept(FieldCursor cursor, long windowStart, long windowEnd) {
+            if (cursor.fieldEquals(fileFormat.getTypeField(), fileFormat.getREQUEST())) {
+                long start = cursor.longField(fileFormat.getRequestTimestampField());
+                long complete = cursor.longField(fileFormat.getCompleteTimestampField());
+                String group = null;
+                String name = null;
+                String status = null;
+                if (usesNames || cache != null) {
+                    group = interner.intern(cursor, fileFormat.getGroupField());
+                    name = interner.intern(cursor, fileFormat.getRequestNameField());
+                    status = interner.intern(cursor, fileFormat.getStatusField());
+                }
+                accept(start, complete, group, name, status, windowStart, windowEnd);
+            }
+        }
+
+        void accept(long start, long complete, String group, String name, String status, long windowStart, long windowEnd) {
+            if (cache != null) {
+                try {
+                    cache.accept(start, complete, group, name, status);
+                } catch (IllegalStateException | UncheckedIOException e) {
+                    abandonCache(e);
                 }
-            } else if (fileFormat.getUSER().equals(columns[fileFormat.getTypeField()])) {
-                if (Long.parseLong(columns[4]) >= info.lastRequestComplete - ms || Long.parseLong(columns[5]) >= info.lastRequestComplete - ms) {
-                    return null;
+            }
+            if (start < windowStart || complete >= windowEnd) {
+                return;
+            }
+            sink.accept(start, complete, group, name, status);
+        }
+
+        void combine(Accumulator<S> other, BiConsumer<S, S> combiner) {
+            combiner.accept(sink, other.sink);
+            if (cache != null && other.cache != null) {
+                try {
+                    cache.combine(other.cache);
+                    return;
+                } catch (UncheckedIOException e) {
+                    abandonCache(e);
+                }
+            }
+            dropCache();
+            other.dropCache();
+        }
+
+        /** The cache is only an optimisation: a row it cannot store drops it and the pass goes on without it. */
+        private void abandonCache(RuntimeException e) {
+            if (cache.abandon()) {
+                System.err.println("Cannot write columnar cache for " + simulationLogFile + ": " + e);
+            }
+            dropCache();
+        }
+
+        private void dropCache() {
+            if (cache != null) {
+                try {
+                    cache.close();
+                } catch (IOException e) {
+                    // only leaves temporary segments behind
                 }
+                cache = null;
             }
-            return columns;
         }
     }
 }
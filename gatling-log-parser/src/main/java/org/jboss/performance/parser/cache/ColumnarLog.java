@@ -0,0 +1,276 @@
+package org.jboss.performance.parser.cache;
+
+import org.jboss.performance.parser.SimulationInfo;
+import org.jboss.performance.parser.query.RequestColumns;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Memory-mapped columnar copy of the REQUEST rows of a simulation log, stored next to it as
+ * {@code <log>.columns}.
+ * <p>
+ * Each column is a primitive array: request start as an int offset from the RUN start time, duration (complete
+ * minus request timestamp) as an int, ids into the request name and group dictionaries as ints and the status id as
+ * a byte. Rows keep the order of the text log. The header records the size and modification time of the text log;
+ * {@link #open(String)} ignores a cache that does not match them.
+ */
+public class ColumnarLog implements RequestColumns {
+
+    public static final String SUFFIX = ".columns";
+
+    static final int COLUMNS = 5;
+    static final int START_OFFSET = 0;
+    static final int DURATION = 1;
+    static final int NAME = 2;
+    static final int GROUP = 3;
+    static final int STATUS = 4;
+
+    private static final int MAGIC = 0x474c5043; // GLPC
+    private static final int VERSION = 1;
+    private static final int PREFIX_LENGTH = 3 * Integer.BYTES;
+
+    private final SimulationInfo info;
+    private final int rows;
+    private final List<String> names;
+    private final List<String> groups;
+    private final List<String> statuses;
+    private final IntBuffer startOffsets;
+    private final IntBuffer durations;
+    private final IntBuffer nameIds;
+    private final IntBuffer groupIds;
+    private final ByteBuffer statusIds;
+
+    private ColumnarLog(SimulationInfo info, int rows, List<String> names, List<String> groups, List<String> statuses,
+                        FileChannel channel, long[] columnOffsets) throws IOException {
+        this.info = info;
+        this.rows = rows;
+        this.names = names;
+        this.groups = groups;
+        this.statuses = statuses;
+        this.startOffsets = mapInts(channel, columnOffsets[START_OFFSET], rows);
+        this.durations = mapInts(channel, columnOffsets[DURATION], rows);
+        this.nameIds = mapInts(channel, columnOffsets[NAME], rows);
+        this.groupIds = mapInts(channel, columnOffsets[GROUP], rows);
+        this.statusIds = channel.map(FileChannel.MapMode.READ_ONLY, columnOffsets[STATUS], rows);
+    }
+
+    private static IntBuffer mapInts(FileChannel channel, long offset, int rows) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, offset, (long) rows * Integer.BYTES).asIntBuffer();
+    }
+
+    public static Path sidecar(String file) {
+        return Paths.get(file + SUFFIX);
+    }
+
+    /**
+     * Maps the cache of the given log.
+     *
+     * @return {@code null} when there is no cache, or it was written by another version or for a different
+     * content of the log
+     */
+    public static ColumnarLog open(String file) throws IOException {
+        Path sidecar = sidecar(file);
+        Path source = Paths.get(file);
+        if (!Files.isRegularFile(sidecar)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(sidecar, StandardOpenOption.READ)) {
+            ByteBuffer prefix = ByteBuffer.allocate(PREFIX_LENGTH);
+            if (channel.read(prefix, 0) != PREFIX_LENGTH || prefix.getInt(0) != MAGIC || prefix.getInt(4) != VERSION) {
+                return null;
+            }
+            ByteBuffer header = ByteBuffer.allocate(prefix.getInt(8));
+            channel.read(header, PREFIX_LENGTH);
+            header.flip();
+            long sourceSize = header.getLong();
+            long sourceModified = header.getLong();
+            if (sourceSize != Files.size(source) || sourceModified != Files.getLastModifiedTime(source).toMillis()) {
+                return null;
+            }
+            SimulationInfo info = new SimulationInfo(file);
+            info.clazz = getString(header);
+            info.name = getString(header);
+            info.startTime = header.getLong();
+            info.firstRequestStart = header.getLong();
+            info.lastRequestComplete = header.getLong();
+            int rows = header.getInt();
+            List<String> names = getStrings(header);
+            List<String> groups = getStrings(header);
+            List<String> statuses = getStrings(header);
+            long[] columnOffsets = new long[COLUMNS];
+            for (int i = 0; i < COLUMNS; ++i) {
+                columnOffsets[i] = header.getLong();
+            }
+            return new ColumnarLog(info, rows, names, groups, statuses, channel, columnOffsets);
+        }
+    }
+
+    static void writeHeader(FileChannel channel, long sourceSize, long sourceModified, SimulationInfo info, int rows,
+                            List<String> names, List<String> groups, List<String> statuses, long[] columnOffsets) throws IOException {
+        List<byte[]> strings = new ArrayList<>();
+        int length = 2 * Long.BYTES + 3 * Long.BYTES + Integer.BYTES + COLUMNS * Long.BYTES;
+        for (String value : new String[]{info.clazz, info.name}) {
+            strings.add(value == null ? null : value.getBytes(StandardCharsets.UTF_8));
+        }
+        for (List<String> dictionary : Arrays.asList(names, groups, statuses)) {
+            length += Integer.BYTES;
+            for (String value : dictionary) {
+                strings.add(value == null ? null : value.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        for (byte[] bytes : strings) {
+            length += Integer.BYTES + (bytes == null ? 0 : bytes.length);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(PREFIX_LENGTH + length);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(length);
+        buffer.putLong(sourceSize).putLong(sourceModified);
+        putString(buffer, strings.get(0));
+        putString(buffer, strings.get(1));
+        buffer.putLong(info.startTime).putLong(info.firstRequestStart).putLong(info.lastRequestComplete);
+        buffer.putInt(rows);
+        int index = 2;
+        for (List<String> dictionary : Arrays.asList(names, groups, statuses)) {
+            buffer.putInt(dictionary.size());
+            for (int i = 0; i < dictionary.size(); ++i) {
+                putString(buffer, strings.get(index++));
+            }
+        }
+        for (long offset : columnOffsets) {
+            buffer.putLong(offset);
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    static long align(long position) {
+        return (position + Long.BYTES - 1) & ~(Long.BYTES - 1);
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] bytes) {
+        if (bytes == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(bytes.length).put(bytes);
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    private static List<String> getStrings(ByteBuffer buffer) {
+        int count = buffer.getInt();
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i) {
+            values.add(getString(buffer));
+        }
+        return Collections.unmodifiableList(values);
+    }
+
+    /** RUN header and first/last request timestamps of the log. */
+    public SimulationInfo getInfo() {
+        return info;
+    }
+
+    @Override
+    public long getRunStart() {
+        return info.startTime;
+    }
+
+    @Override
+    public int rows() {
+        return rows;
+    }
+
+    public long requestStart(int row) {
+        return info.startTime + startOffsets.get(row);
+    }
+
+    public long requestEnd(int row) {
+        return requestStart(row) + durations.get(row);
+    }
+
+    public int duration(int row) {
+        return durations.get(row);
+    }
+
+    public int nameId(int row) {
+        return nameIds.get(row);
+    }
+
+    public int groupId(int row) {
+        return groupIds.get(row);
+    }
+
+    public int statusId(int row) {
+        return statusIds.get(row);
+    }
+
+    @Override
+    public List<String> names() {
+        return names;
+    }
+
+    @Override
+    public List<String> groups() {
+        return groups;
+    }
+
+    @Override
+    public List<String> statuses() {
+        return statuses;
+    }
+
+    @Override
+    public void getStartOffsets(int row, int[] destination, int length) {
+        get(startOffsets, row, destination, length);
+    }
+
+    @Override
+    public void getDurations(int row, int[] destination, int length) {
+        get(durations, row, destination, length);
+    }
+
+    @Override
+    public void getNameIds(int row, int[] destination, int length) {
+        get(nameIds, row, destination, length);
+    }
+
+    @Override
+    public void getGroupIds(int row, int[] destination, int length) {
+        get(groupIds, row, destination, length);
+    }
+
+    @Override
+    public void getStatusIds(int row, byte[] destination, int length) {
+        ByteBuffer source = statusIds.duplicate();
+        source.position(row);
+        source.get(destination, 0, length);
+    }
+
+    private static void get(IntBuffer column, int row, int[] destination, int length) {
+        IntBuffer source = column.duplicate();
+        source.position(row);
+        source.get(destination, 0, length);
+    }
+}
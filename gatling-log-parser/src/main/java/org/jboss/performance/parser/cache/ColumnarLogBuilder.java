@@ -0,0 +1,221 @@
+package org.jboss.performance.parser.cache;
+
+import org.jboss.performance.parser.SimulationInfo;
+import org.jboss.performance.parser.consumer.RequestSink;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Collects REQUEST rows into the columnar cache format while the text log is parsed.
+ * <p>
+ * Builders are used as per-thread accumulators: each one spills its rows to temporary column files as they arrive,
+ * so memory does not grow with the log. {@link #combine(ColumnarLogBuilder)} only concatenates the lists of spilled
+ * segments, which must happen in file order, and {@link #finish(Path, long, long)} assembles the segments into the
+ * cache file. Request names, groups and statuses are dictionary-encoded through dictionaries shared by all builders
+ * created from the same {@link Shared} instance.
+ */
+public class ColumnarLogBuilder implements Closeable, RequestSink {
+
+    private final Shared shared;
+    private final Dictionary.Local names;
+    private final Dictionary.Local groups;
+    private final Dictionary.Local statuses;
+    private final List<Segment> segments = new ArrayList<>();
+    private Segment current;
+    private long firstRequestStart = Long.MAX_VALUE;
+    private long lastRequestComplete = Long.MIN_VALUE;
+
+    public ColumnarLogBuilder(Shared shared) {
+        this.shared = shared;
+        this.names = shared.names.new Local();
+        this.groups = shared.groups.new Local();
+        this.statuses = shared.statuses.new Local();
+    }
+
+    @Override
+    public void accept(long requestStart, long requestEnd, String group, String name, String status) {
+        long offset = requestStart - shared.info.startTime;
+        long duration = requestEnd - requestStart;
+        if (offset != (int) offset || duration != (int) duration) {
+            throw new IllegalStateException("Request at " + requestStart + " does not fit the cache format");
+        }
+        int statusId = statuses.id(status);
+        if (statusId > Byte.MAX_VALUE) {
+            throw new IllegalStateException("Too many distinct statuses");
+        }
+        try {
+            if (current == null) {
+                current = new Segment();
+                segments.add(current);
+            }
+            current.startOffsets.writeInt((int) offset);
+            current.durations.writeInt((int) duration);
+            current.names.writeInt(names.id(name));
+            current.groups.writeInt(groups.id(group));
+            current.statuses.writeByte(statusId);
+            ++current.rows;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        firstRequestStart = Math.min(firstRequestStart, requestStart);
+        lastRequestComplete = Math.max(lastRequestComplete, requestEnd);
+    }
+
+    /**
+     * Marks the cache of the shared state as not being written, e.g. because a row did not fit it.
+     *
+     * @return {@code true} for the first builder to give up, which is the one to report why
+     */
+    public boolean abandon() {
+        return shared.abandoned.compareAndSet(false, true);
+    }
+
+    public void combine(ColumnarLogBuilder other) {
+        try {
+            closeCurrent();
+            other.closeCurrent();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        segments.addAll(other.segments);
+        other.segments.clear();
+        firstRequestStart = Math.min(firstRequestStart, other.firstRequestStart);
+        lastRequestComplete = Math.max(lastRequestComplete, other.lastRequestComplete);
+    }
+
+    /**
+     * Writes the cache file, replacing any previous one atomically, and deletes the temporary segments.
+     *
+     * @param sourceSize     size of the text log the rows were read from
+     * @param sourceModified last modification time of the text log, in ms
+     */
+    public void finish(Path target, long sourceSize, long sourceModified) throws IOException {
+        closeCurrent();
+        long rows = 0;
+        for (Segment segment : segments) {
+            rows += segment.rows;
+        }
+        if (rows * Integer.BYTES > Integer.MAX_VALUE) {
+            throw new IOException("Too many requests for the cache format: " + rows);
+        }
+        SimulationInfo info = new SimulationInfo(shared.info.getFile());
+        info.clazz = shared.info.clazz;
+        info.name = shared.info.name;
+        info.startTime = shared.info.startTime;
+        info.firstRequestStart = firstRequestStart;
+        info.lastRequestComplete = lastRequestComplete;
+
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            long[] columnOffsets = new long[ColumnarLog.COLUMNS];
+            try (FileChannel output = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ColumnarLog.writeHeader(output, sourceSize, sourceModified, info, (int) rows,
+                        shared.names.values(), shared.groups.values(), shared.statuses.values(), new long[ColumnarLog.COLUMNS]);
+                for (int column = 0; column < ColumnarLog.COLUMNS; ++column) {
+                    columnOffsets[column] = ColumnarLog.align(output.position());
+                    output.position(columnOffsets[column]);
+                    for (Segment segment : segments) {
+                        try (FileChannel input = FileChannel.open(segment.files[column], StandardOpenOption.READ)) {
+                            long size = input.size();
+                            for (long transferred = 0; transferred < size; ) {
+                                transferred += input.transferTo(transferred, size - transferred, output);
+                            }
+                        }
+                    }
+                }
+                output.position(0);
+                ColumnarLog.writeHeader(output, sourceSize, sourceModified, info, (int) rows,
+                        shared.names.values(), shared.groups.values(), shared.statuses.values(), columnOffsets);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+            close();
+        }
+    }
+
+    private void closeCurrent() throws IOException {
+        if (current != null) {
+            current.close();
+            current = null;
+        }
+    }
+
+    /** Deletes the temporary segments without writing a cache file. */
+    @Override
+    public void close() throws IOException {
+        closeCurrent();
+        for (Segment segment : segments) {
+            segment.delete();
+        }
+        segments.clear();
+    }
+
+    /** State shared by the builders of one cache file. */
+    public static class Shared {
+        private final SimulationInfo info;
+        private final Dictionary names = new Dictionary();
+        private final Dictionary groups = new Dictionary();
+        private final Dictionary statuses = new Dictionary();
+        private final AtomicBoolean abandoned = new AtomicBoolean();
+
+        /**
+         * @param info RUN header of the log; request timestamps are stored relative to its start time
+         */
+        public Shared(SimulationInfo info) {
+            this.info = info;
+        }
+    }
+
+    private static class Segment implements Closeable {
+        final Path[] files = new Path[ColumnarLog.COLUMNS];
+        final DataOutputStream startOffsets;
+        final DataOutputStream durations;
+        final DataOutputStream names;
+        final DataOutputStream groups;
+        final DataOutputStream statuses;
+        long rows;
+
+        Segment() throws IOException {
+            for (int i = 0; i < files.length; ++i) {
+                files[i] = Files.createTempFile("simulation-columns", ".tmp");
+            }
+            startOffsets = open(files[ColumnarLog.START_OFFSET]);
+            durations = open(files[ColumnarLog.DURATION]);
+            names = open(files[ColumnarLog.NAME]);
+            groups = open(files[ColumnarLog.GROUP]);
+            statuses = open(files[ColumnarLog.STATUS]);
+        }
+
+        private static DataOutputStream open(Path file) throws IOException {
+            return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024));
+        }
+
+        @Override
+        public void close() throws IOException {
+            startOffsets.close();
+            durations.close();
+            names.close();
+            groups.close();
+            statuses.close();
+        }
+
+        void delete() throws IOException {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
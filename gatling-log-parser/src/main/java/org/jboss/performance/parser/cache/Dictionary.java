@@ -0,0 +1,45 @@
+package org.jboss.performance.parser.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assigns dense ids to distinct strings of a column. Shared by all threads building one cache; every builder keeps
+ * its own unsynchronized view of the ids it has already seen, so the lock is only taken for new values.
+ */
+class Dictionary {
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+
+    synchronized int id(String value) {
+        Integer id = ids.get(value);
+        if (id == null) {
+            id = values.size();
+            ids.put(value, id);
+            values.add(value);
+        }
+        return id;
+    }
+
+    synchronized List<String> values() {
+        return Collections.unmodifiableList(new ArrayList<>(values));
+    }
+
+    /** Per-thread cache in front of the shared dictionary. */
+    class Local {
+        private final Map<String, Integer> cache = new HashMap<>();
+
+        int id(String value) {
+            Integer id = cache.get(value);
+            if (id == null) {
+                id = Dictionary.this.id(value);
+                cache.put(value, id);
+            }
+            return id;
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package org.jboss.performance.parser.cache;
+
+import org.jboss.performance.parser.format.FileFormat;
+import org.jboss.performance.parser.reader.FieldCursor;
+import org.jboss.performance.parser.reader.LineReader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sparse index from timestamps to byte offsets of an uncompressed text log, stored next to it as
+ * {@code <log>.index}.
+ * <p>
+ * The log is cut into newline-aligned blocks of about {@link #DEFAULT_BLOCK_SIZE} bytes. For each block the index
+ * keeps its offset, the range of the timestamps of its REQUEST and USER rows (request start and completion, user
+ * start and end; zero is the missing end of a user and is left out) and whether it holds any other row. A time
+ * window then maps to the blocks that may hold rows within it, so a windowed pass reads only those. Rows are not
+ * sorted by time in the log, which only makes the blocks overlap; the index stays exact about what each block holds.
+ * Like {@link ColumnarLog} the header records the size and modification time of the log, and {@link #open(String)}
+ * ignores an index that does not match them.
+ */
+public class OffsetIndex {
+
+    public static final String SUFFIX = ".index";
+    public static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+
+    private static final int MAGIC = 0x474c5049; // GLPI
+    private static final int VERSION = 1;
+    private static final int PREFIX_LENGTH = 3 * Integer.BYTES;
+    private static final int BLOCK_LENGTH = 3 * Long.BYTES + 1;
+
+    private final long size;
+    private final long[] offsets;
+    private final long[] minTimes;
+    private final long[] maxTimes;
+    private final boolean[] others;
+
+    OffsetIndex(long size, long[] offsets, long[] minTimes, long[] maxTimes, boolean[] others) {
+        this.size = size;
+        this.offsets = offsets;
+        this.minTimes = minTimes;
+        this.maxTimes = maxTimes;
+        this.others = others;
+    }
+
+    public static Path sidecar(String file) {
+        return Paths.get(file + SUFFIX);
+    }
+
+    /**
+     * Reads the index of the given log.
+     *
+     * @return {@code null} when there is no index, or it was written by another version or for a different content
+     * of the log
+     */
+    public static OffsetIndex open(String file) throws IOException {
+        Path sidecar = sidecar(file);
+        Path source = Paths.get(file);
+        if (!Files.isRegularFile(sidecar)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(sidecar, StandardOpenOption.READ)) {
+            ByteBuffer prefix = ByteBuffer.allocate(PREFIX_LENGTH);
+            if (channel.read(prefix, 0) != PREFIX_LENGTH || prefix.getInt(0) != MAGIC || prefix.getInt(4) != VERSION) {
+                return null;
+            }
+            ByteBuffer content = ByteBuffer.allocate(prefix.getInt(8));
+            while (content.hasRemaining() && channel.read(content, PREFIX_LENGTH + content.position()) >= 0) {
+                // positional reads until the whole index is in
+            }
+            if (content.hasRemaining()) {
+                return null;
+            }
+            content.flip();
+            long sourceSize = content.getLong();
+            long sourceModified = content.getLong();
+            if (sourceSize != Files.size(source) || sourceModified != Files.getLastModifiedTime(source).toMillis()) {
+                return null;
+            }
+            int blocks = content.getInt();
+            long[] offsets = new long[blocks];
+            long[] minTimes = new long[blocks];
+            long[] maxTimes = new long[blocks];
+            boolean[] others = new boolean[blocks];
+            for (int i = 0; i < blocks; ++i) {
+                offsets[i] = content.getLong();
+                minTimes[i] = content.getLong();
+                maxTimes[i] = content.getLong();
+                others[i] = content.get() != 0;
+            }
+            return new OffsetIndex(sourceSize, offsets, minTimes, maxTimes, others);
+        }
+    }
+
+    /**
+     * @return the up to date index of the log, built and written next to it when missing or stale; a failure to
+     * write it is reported but the index is still returned
+     */
+    public static OffsetIndex openOrBuild(String file, FileFormat fileFormat) throws IOException {
+        OffsetIndex index = open(file);
+        if (index != null) {
+            return index;
+        }
+        Path source = Paths.get(file);
+        long sourceModified = Files.getLastModifiedTime(source).toMillis();
+        index = build(source, fileFormat, DEFAULT_BLOCK_SIZE);
+        try {
+            index.write(sidecar(file), sourceModified);
+        } catch (IOException e) {
+            System.err.println("Cannot write offset index for " + file + ": " + e);
+        }
+        return index;
+    }
+
+    /**
+     * Indexes an uncompressed text log in one sequential pass. Lines appended meanwhile are left out.
+     */
+    public static OffsetIndex build(Path file, FileFormat fileFormat, int blockSize) throws IOException {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Block size must be positive: " + blockSize);
+        }
+        long size = Files.size(file);
+        Builder builder = new Builder();
+        FieldCursor cursor = new FieldCursor(fileFormat);
+        try (LineReader reader = new LineReader(Files.newInputStream(file))) {
+            while (reader.next()) {
+                long offset = reader.lineOffset();
+                if (offset >= size) {
+                    break;
+                }
+                if (offset >= builder.blockStart + blockSize) {
+                    builder.startBlock(offset);
+                }
+                builder.accept(cursor.reset(reader), fileFormat);
+            }
+        }
+        return builder.build(size);
+    }
+
+    void write(Path file, long sourceModified) throws IOException {
+        int length = 2 * Long.BYTES + Integer.BYTES + offsets.length * BLOCK_LENGTH;
+        ByteBuffer buffer = ByteBuffer.allocate(PREFIX_LENGTH + length);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(length);
+        buffer.putLong(size).putLong(sourceModified);
+        buffer.putInt(offsets.length);
+        for (int i = 0; i < offsets.length; ++i) {
+            buffer.putLong(offsets[i]).putLong(minTimes[i]).putLong(maxTimes[i]).put((byte) (others[i] ? 1 : 0));
+        }
+        buffer.flip();
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Byte ranges of the blocks that may hold REQUEST or USER rows with a timestamp in {@code [from, to)}, and with
+     * {@code includeOthers} also those holding any other row, such as RUN; adjacent blocks are merged.
+     *
+     * @return ascending, disjoint {@code [start, end)} ranges
+     */
+    public List<long[]> ranges(long from, long to, boolean includeOthers) {
+        List<long[]> ranges = new ArrayList<>();
+        for (int i = 0; i < offsets.length; ++i) {
+            boolean keep = includeOthers && others[i] || maxTimes[i] >= from && minTimes[i] < to;
+            if (!keep) {
+                continue;
+            }
+            long end = i + 1 < offsets.length ? offsets[i + 1] : size;
+            long[] last = ranges.isEmpty() ? null : ranges.get(ranges.size() - 1);
+            if (last != null && last[1] == offsets[i]) {
+                last[1] = end;
+            } else {
+                ranges.add(new long[]{offsets[i], end});
+            }
+        }
+        return ranges;
+    }
+
+    /** Size of the log when it was indexed. */
+    public long getSize() {
+        return size;
+    }
+
+    public int getBlocks() {
+        return offsets.length;
+    }
+
+    private static class Builder {
+        private final List<long[]> blocks = new ArrayList<>();
+        private long blockStart;
+        private long min = Long.MAX_VALUE;
+        private long max = Long.MIN_VALUE;
+        private boolean other;
+
+        void accept(FieldCursor cursor, FileFormat fileFormat) {
+            int type = fileFormat.getTypeField();
+            try {
+                if (cursor.fieldEquals(type, fileFormat.getREQUEST())) {
+                    time(cursor.longField(fileFormat.getRequestTimestampField()));
+                    time(cursor.longField(fileFormat.getCompleteTimestampField()));
+                } else if (cursor.fieldEquals(type, fileFormat.getUSER())) {
+                    time(cursor.longField(fileFormat.getUserStartField()));
+                    if (cursor.hasField(fileFormat.getUserEndField())) {
+                        time(cursor.longField(fileFormat.getUserEndField()));
+                    }
+                } else if (cursor.fieldCount() > 0) {
+                    other = true;
+                }
+            } catch (NumberFormatException e) {
+                // a row the index cannot place keeps its block in every window
+                min = Long.MIN_VALUE;
+                max = Long.MAX_VALUE;
+            }
+        }
+
+        private void time(long timestamp) {
+            if (timestamp != 0) {
+                min = Math.min(min, timestamp);
+                max = Math.max(max, timestamp);
+            }
+        }
+
+        void startBlock(long offset) {
+            blocks.add(new long[]{blockStart, min, max, other ? 1 : 0});
+            blockStart = offset;
+            min = Long.MAX_VALUE;
+            max = Long.MIN_VALUE;
+            other = false;
+        }
+
+        OffsetIndex build(long size) {
+            if (size > blockStart) {
+                startBlock(size);
+            }
+            int count = blocks.size();
+            long[] offsets = new long[count];
+            long[] minTimes = new long[count];
+            long[] maxTimes = new long[count];
+            boolean[] others = new boolean[count];
+            for (int i = 0; i < count; ++i) {
+                long[] block = blocks.get(i);
+                offsets[i] = block[0];
+                minTimes[i] = block[1];
+                maxTimes[i] = block[2];
+                others[i] = block[3] != 0;
+            }
+            return new OffsetIndex(size, offsets, minTimes, maxTimes, others);
+        }
+    }
+}
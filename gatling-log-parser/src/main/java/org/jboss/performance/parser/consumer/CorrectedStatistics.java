@@ -0,0 +1,54 @@
+package org.jboss.performance.parser.consumer;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * Response time histogram corrected for coordinated omission.
+ * <p>
+ * Models a client that sends a request every {@code expectedInterval} ms and waits for each response: a response
+ * taking longer than the interval has held back the requests that should have been sent meanwhile, which would have
+ * waited for it too. For every recorded value the histogram therefore also gets the values {@code value -
+ * expectedInterval}, {@code value - 2 * expectedInterval}, ... down to the interval, as
+ * {@link Histogram#recordValueWithExpectedInterval(long, long)} does. Corrected counts include these synthetic
+ * samples, so only percentiles are comparable with the raw statistics.
+ */
+public class CorrectedStatistics implements RequestSink {
+
+    private final Histogram histogram;
+    private final long expectedInterval;
+
+    public CorrectedStatistics(long expectedInterval, long highestTrackableValue, int numberOfSignificantValueDigits) {
+        if (expectedInterval <= 0) {
+            throw new IllegalArgumentException("Expected interval must be positive: " + expectedInterval);
+        }
+        this.expectedInterval = expectedInterval;
+        this.histogram = new Histogram(highestTrackableValue, numberOfSignificantValueDigits);
+    }
+
+    public void accept(long responseTime) {
+        histogram.recordValueWithExpectedInterval(Math.max(0, Math.min(responseTime, histogram.getHighestTrackableValue())), expectedInterval);
+    }
+
+    @Override
+    public void accept(long start, long end, String group, String name, String status) {
+        accept(end - start);
+    }
+
+    @Override
+    public boolean usesNames() {
+        return false;
+    }
+
+    /** Histograms corrected with different intervals can be combined; each keeps the correction of its own run. */
+    public void combine(CorrectedStatistics other) {
+        histogram.add(other.histogram);
+    }
+
+    public long getExpectedInterval() {
+        return expectedInterval;
+    }
+
+    public Histogram getHistogram() {
+        return histogram;
+    }
+}
@@ -0,0 +1,67 @@
+package org.jboss.performance.parser.consumer;
+
+import org.HdrHistogram.AbstractHistogram;
+import org.HdrHistogram.HistogramIterationValue;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Computes several percentiles at once, either from one sorted copy of the values or from one walk over a histogram.
+ * <p>
+ * A percentile {@code p} of {@code n} values is the value of rank {@code ceil(n * p / 100)} (at least 1), so the 0th
+ * percentile is the minimum and the 100th is the maximum. Percentiles of no values are {@code NaN}.
+ */
+public final class PercentileCalculator {
+
+    private PercentileCalculator() {
+    }
+
+    public static double[] fromValues(Collection<Double> values, double... centiles) {
+        double[] sorted = new double[values.size()];
+        int i = 0;
+        for (Double value : values) {
+            sorted[i++] = value;
+        }
+        Arrays.parallelSort(sorted);
+        return fromSorted(sorted, centiles);
+    }
+
+    public static double[] fromSorted(double[] sorted, double... centiles) {
+        double[] result = new double[centiles.length];
+        for (int i = 0; i < centiles.length; ++i) {
+            result[i] = sorted.length == 0 ? Double.NaN : sorted[(int) (rank(sorted.length, centiles[i]) - 1)];
+        }
+        return result;
+    }
+
+    public static double[] fromHistogram(AbstractHistogram histogram, double... centiles) {
+        double[] result = new double[centiles.length];
+        long totalCount = histogram.getTotalCount();
+        if (totalCount == 0) {
+            Arrays.fill(result, Double.NaN);
+            return result;
+        }
+        Integer[] order = new Integer[centiles.length];
+        for (int i = 0; i < order.length; ++i) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(centiles[a], centiles[b]));
+
+        int next = 0;
+        for (HistogramIterationValue value : histogram.recordedValues()) {
+            while (next < order.length && rank(totalCount, centiles[order[next]]) <= value.getTotalCountToThisValue()) {
+                result[order[next++]] = histogram.highestEquivalentValue(value.getValueIteratedTo());
+            }
+            if (next == order.length) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    static long rank(long count, double centile) {
+        double bounded = Math.max(0, Math.min(100, centile));
+        return Math.max(1, Math.min(count, (long) Math.ceil(count * bounded / 100)));
+    }
+}
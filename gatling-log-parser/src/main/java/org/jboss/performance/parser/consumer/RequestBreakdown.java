@@ -0,0 +1,69 @@
+package org.jboss.performance.parser.consumer;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Response time statistics per request name, optionally further split by group and status.
+ * <p>
+ * Every key gets its own {@link ResponseTimeStatistics}, so memory is proportional to the number of distinct keys,
+ * not to the number of requests. Breakdowns from different threads or files are merged with
+ * {@link #combine(RequestBreakdown)}.
+ */
+public class RequestBreakdown implements RequestSink {
+
+    private final boolean byGroup;
+    private final boolean byStatus;
+    private final long highestTrackableValue;
+    private final int significantDigits;
+    private final Map<RequestKey, ResponseTimeStatistics> statistics = new HashMap<>();
+    private final RequestKey probe = new RequestKey(null, null, null);
+
+    public RequestBreakdown(boolean byGroup, boolean byStatus, long highestTrackableValue, int significantDigits) {
+        this.byGroup = byGroup;
+        this.byStatus = byStatus;
+        this.highestTrackableValue = highestTrackableValue;
+        this.significantDigits = significantDigits;
+    }
+
+    public void accept(String group, String name, String status, long responseTime) {
+        probe.set(byGroup ? group : null, name, byStatus ? status : null);
+        ResponseTimeStatistics keyStatistics = statistics.get(probe);
+        if (keyStatistics == null) {
+            keyStatistics = new ResponseTimeStatistics(highestTrackableValue, significantDigits);
+            statistics.put(probe.copy(), keyStatistics);
+        }
+        keyStatistics.accept(responseTime);
+    }
+
+    @Override
+    public void accept(long start, long end, String group, String name, String status) {
+        accept(group, name, status, end - start);
+    }
+
+    public void combine(RequestBreakdown other) {
+        for (Map.Entry<RequestKey, ResponseTimeStatistics> entry : other.statistics.entrySet()) {
+            ResponseTimeStatistics keyStatistics = statistics.get(entry.getKey());
+            if (keyStatistics == null) {
+                keyStatistics = new ResponseTimeStatistics(highestTrackableValue, significantDigits);
+                statistics.put(entry.getKey(), keyStatistics);
+            }
+            keyStatistics.combine(entry.getValue());
+        }
+    }
+
+    public boolean isByGroup() {
+        return byGroup;
+    }
+
+    public boolean isByStatus() {
+        return byStatus;
+    }
+
+    /** Statistics ordered by group, name and status. */
+    public SortedMap<RequestKey, ResponseTimeStatistics> getStatistics() {
+        return new TreeMap<>(statistics);
+    }
+}
@@ -0,0 +1,85 @@
+package org.jboss.performance.parser.consumer;
+
+import java.util.Comparator;
+import java.util.Objects;
+
+/**
+ * Identifies a row of a per-request breakdown. Dimensions that are not broken down by are {@code null}.
+ */
+public class RequestKey implements Comparable<RequestKey> {
+
+    private static final Comparator<String> NULLS_FIRST = Comparator.nullsFirst(Comparator.<String>naturalOrder());
+    private static final Comparator<RequestKey> ORDER = Comparator.comparing(RequestKey::getGroup, NULLS_FIRST)
+            .thenComparing(RequestKey::getName, NULLS_FIRST)
+            .thenComparing(RequestKey::getStatus, NULLS_FIRST);
+
+    private String group;
+    private String name;
+    private String status;
+    private int hash;
+
+    public RequestKey(String group, String name, String status) {
+        set(group, name, status);
+    }
+
+    /** Reuses the instance as a lookup probe; keys stored in maps must not be modified. */
+    RequestKey set(String group, String name, String status) {
+        this.group = group;
+        this.name = name;
+        this.status = status;
+        this.hash = (31 * Objects.hashCode(group) + Objects.hashCode(name)) * 31 + Objects.hashCode(status);
+        return this;
+    }
+
+    RequestKey copy() {
+        return new RequestKey(group, name, status);
+    }
+
+    public String getGroup() {
+        return group;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RequestKey)) {
+            return false;
+        }
+        RequestKey other = (RequestKey) o;
+        return hash == other.hash && Objects.equals(name, other.name) && Objects.equals(group, other.group)
+                && Objects.equals(status, other.status);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public int compareTo(RequestKey other) {
+        return ORDER.compare(this, other);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        if (group != null) {
+            sb.append(group).append('/');
+        }
+        sb.append(name);
+        if (status != null) {
+            sb.append(" [").append(status).append(']');
+        }
+        return sb.toString();
+    }
+}
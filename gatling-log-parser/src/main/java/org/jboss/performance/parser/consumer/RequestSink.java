@@ -0,0 +1,24 @@
+package org.jboss.performance.parser.consumer;
+
+/**
+ * Receives the REQUEST rows of a log one by one while it is read; nothing is kept unless the sink keeps it.
+ * <p>
+ * With parallel parsing every thread fills its own sink and the sinks are combined in file order afterwards.
+ * Group, name and status are interned per reading thread, so equal values are usually the same instance.
+ */
+public interface RequestSink {
+
+    /**
+     * @param start  request start, epoch ms
+     * @param end    request completion, epoch ms
+     * @param group  group path, empty outside of groups; {@code null} unless {@link #usesNames()}
+     * @param name   request name; {@code null} unless {@link #usesNames()}
+     * @param status OK or KO; {@code null} unless {@link #usesNames()}
+     */
+    void accept(long start, long end, String group, String name, String status);
+
+    /** @return {@code false} if the sink only looks at the timestamps, which saves decoding the text columns */
+    default boolean usesNames() {
+        return true;
+    }
+}
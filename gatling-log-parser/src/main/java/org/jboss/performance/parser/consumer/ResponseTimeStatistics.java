@@ -0,0 +1,64 @@
+package org.jboss.performance.parser.consumer;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.DoubleSummaryStatistics;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Constant-memory response time accumulator: exact count/min/max/mean plus a log-linear histogram for percentiles.
+ * <p>
+ * The histogram is sized up front from the highest trackable value and the number of significant digits, so memory
+ * does not depend on the number of recorded requests. Values outside {@code [0, highestTrackableValue]} are clamped
+ * in the histogram; the summary statistics always see the exact value.
+ */
+public class ResponseTimeStatistics implements RequestSink {
+
+    public static final long DEFAULT_HIGHEST_TRACKABLE_VALUE = TimeUnit.HOURS.toMillis(1);
+    public static final int DEFAULT_SIGNIFICANT_DIGITS = 3;
+
+    private ExtendedDoubleSummaryStatistics summary = new ExtendedDoubleSummaryStatistics();
+    private final Histogram histogram;
+
+    public ResponseTimeStatistics() {
+        this(DEFAULT_HIGHEST_TRACKABLE_VALUE, DEFAULT_SIGNIFICANT_DIGITS);
+    }
+
+    public ResponseTimeStatistics(long highestTrackableValue, int numberOfSignificantValueDigits) {
+        this.histogram = new Histogram(highestTrackableValue, numberOfSignificantValueDigits);
+    }
+
+    public void accept(long responseTime) {
+        summary.accept(responseTime);
+        histogram.recordValue(Math.max(0, Math.min(responseTime, histogram.getHighestTrackableValue())));
+    }
+
+    @Override
+    public void accept(long start, long end, String group, String name, String status) {
+        accept(end - start);
+    }
+
+    @Override
+    public boolean usesNames() {
+        return false;
+    }
+
+    public void combine(ResponseTimeStatistics other) {
+        summary.combine(other.summary);
+        histogram.add(other.histogram);
+    }
+
+    /** Clears all recorded values, keeping the histogram allocation. */
+    public void reset() {
+        summary = new ExtendedDoubleSummaryStatistics();
+        histogram.reset();
+    }
+
+    public DoubleSummaryStatistics getSummary() {
+        return summary;
+    }
+
+    public Histogram getHistogram() {
+        return histogram;
+    }
+}
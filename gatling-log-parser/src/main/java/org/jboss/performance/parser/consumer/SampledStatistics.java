@@ -0,0 +1,142 @@
+package org.jboss.performance.parser.consumer;
+
+import org.HdrHistogram.AbstractHistogram;
+import org.HdrHistogram.IntCountsHistogram;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Response times of a sample of byte ranges of a log, kept per range to estimate how far the statistics of the sample
+ * may be from those of the whole log.
+ * <p>
+ * The ranges are clusters of requests drawn without replacement out of {@link #getTotalRanges()}, so the count is
+ * estimated by scaling the mean count per range, and the distribution by the ratio of the requests up to a value to
+ * all requests of the sampled ranges. Standard errors follow from the spread between ranges, with the finite
+ * population correction. Each range only keeps a coarse histogram, 2 significant digits, which is enough for the
+ * counts around a percentile.
+ */
+public class SampledStatistics implements RequestSink {
+
+    private static final int RANGE_SIGNIFICANT_DIGITS = 2;
+
+    private final List<AbstractHistogram> ranges = new ArrayList<>();
+    private long totalRanges;
+
+    /** Statistics of a single range; ranges are put together by {@link #combine(SampledStatistics)}. */
+    public SampledStatistics(long highestTrackableValue) {
+        ranges.add(new IntCountsHistogram(highestTrackableValue, RANGE_SIGNIFICANT_DIGITS));
+    }
+
+    public void accept(long responseTime) {
+        AbstractHistogram range = ranges.get(ranges.size() - 1);
+        range.recordValue(Math.max(0, Math.min(responseTime, range.getHighestTrackableValue())));
+    }
+
+    @Override
+    public void accept(long start, long end, String group, String name, String status) {
+        accept(end - start);
+    }
+
+    @Override
+    public boolean usesNames() {
+        return false;
+    }
+
+    /** Appends the ranges of {@code other}. */
+    public void combine(SampledStatistics other) {
+        ranges.addAll(other.ranges);
+    }
+
+    /** Sets the number of ranges the log was split into, of which {@link #getSampledRanges()} were read. */
+    public void setTotalRanges(long totalRanges) {
+        this.totalRanges = totalRanges;
+    }
+
+    public long getTotalRanges() {
+        return totalRanges;
+    }
+
+    public int getSampledRanges() {
+        return ranges.size();
+    }
+
+    /** Share of the ranges that were read. */
+    public double getFraction() {
+        return totalRanges == 0 ? 1 : (double) ranges.size() / totalRanges;
+    }
+
+    /** Estimated number of requests in the whole log. */
+    public double getEstimatedCount() {
+        return totalRanges * mean(counts());
+    }
+
+    public double getCountStandardError() {
+        double[] counts = counts();
+        return totalRanges * standardError(counts, mean(counts));
+    }
+
+    /**
+     * Standard error of the share of requests up to {@code value}, estimated from the sample as a ratio of the sums
+     * of two per-range counts.
+     */
+    public double getShareStandardError(double value) {
+        double[] counts = counts();
+        double[] below = new double[counts.length];
+        double requests = 0;
+        double requestsBelow = 0;
+        for (int i = 0; i < counts.length; ++i) {
+            below[i] = ranges.get(i).getCountBetweenValues(0, (long) value);
+            requests += counts[i];
+            requestsBelow += below[i];
+        }
+        if (requests == 0) {
+            return Double.NaN;
+        }
+        double share = requestsBelow / requests;
+        double[] residuals = new double[counts.length];
+        for (int i = 0; i < counts.length; ++i) {
+            residuals[i] = below[i] - share * counts[i];
+        }
+        double meanCount = requests / counts.length;
+        return standardError(residuals, 0) / meanCount;
+    }
+
+    private double[] counts() {
+        double[] counts = new double[ranges.size()];
+        for (int i = 0; i < counts.length; ++i) {
+            counts[i] = ranges.get(i).getTotalCount();
+        }
+        return counts;
+    }
+
+    /**
+     * Standard error of the mean of {@code values}, with the finite population correction: reading every range
+     * leaves no error, reading a single one of several gives no estimate.
+     */
+    private double standardError(double[] values, double mean) {
+        double correction = totalRanges == 0 ? 0 : Math.max(0, 1 - (double) values.length / totalRanges);
+        if (correction == 0) {
+            return 0;
+        } else if (values.length < 2) {
+            return Double.NaN;
+        }
+        return Math.sqrt(correction * variance(values, mean) / values.length);
+    }
+
+    private static double mean(double[] values) {
+        double sum = 0;
+        for (double value : values) {
+            sum += value;
+        }
+        return values.length == 0 ? 0 : sum / values.length;
+    }
+
+    private static double variance(double[] values, double mean) {
+        double sum = 0;
+        for (double value : values) {
+            sum += (value - mean) * (value - mean);
+        }
+        return sum / (values.length - 1);
+    }
+}
@@ -0,0 +1,180 @@
+package org.jboss.performance.parser.consumer;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Streams requests into fixed-length intervals by completion timestamp and emits each interval once it is closed.
+ * <p>
+ * Gatling writes rows roughly, but not strictly, in completion order, so a ring of {@code window} buckets stays
+ * open: a bucket is emitted when a request arrives that is {@code window} intervals newer. Memory is therefore
+ * bounded by the window regardless of the log length. Requests older than the oldest open bucket are only counted
+ * as {@link #getLate() late}. Intervals without any request are emitted as empty buckets, so the series has no gaps.
+ * <p>
+ * USER START and END rows passed to {@link #acceptUser(long, boolean)} are swept in timestamp order into the same
+ * buckets, which then also report the active users. Events are queued until their bucket is emitted, so only the
+ * events of the open window are held; the sweep itself keeps nothing but the count of users in flight. Late events
+ * still change that count, but are not attributed to the intervals already emitted.
+ */
+public class Timeline {
+
+    public static final long DEFAULT_INTERVAL = 1000;
+    public static final int DEFAULT_WINDOW = 60;
+
+    private final long interval;
+    private final TimelineBucket[] ring;
+    private final Consumer<TimelineBucket> listener;
+    private boolean started;
+    private long oldest;
+    private long newest;
+    private long late;
+    // user events as timestamp * 2 + 1 for START, * 2 for END, so that at equal timestamps users end before others start
+    private long[] userEvents = new long[64];
+    private int userEventCount;
+    private long activeUsers;
+    private long peakUsers;
+    private long peakUsersTime;
+    private long lateUsers;
+
+    public Timeline(long interval, int window, long highestTrackableValue, int significantDigits, Consumer<TimelineBucket> listener) {
+        if (interval <= 0 || window <= 0) {
+            throw new IllegalArgumentException("Interval and window must be positive");
+        }
+        this.interval = interval;
+        this.listener = listener;
+        this.ring = new TimelineBucket[window];
+        for (int i = 0; i < window; ++i) {
+            ring[i] = new TimelineBucket(interval, highestTrackableValue, significantDigits);
+        }
+    }
+
+    public void accept(long completeTimestamp, long responseTime, boolean ok) {
+        long index = Math.floorDiv(completeTimestamp, interval);
+        if (open(index)) {
+            bucket(index).accept(responseTime, ok);
+        } else {
+            ++late;
+        }
+    }
+
+    /**
+     * @param timestamp start of the user for a START row, its end for an END row
+     * @param start     whether the user started or ended
+     */
+    public void acceptUser(long timestamp, boolean start) {
+        if (open(Math.floorDiv(timestamp, interval))) {
+            push(timestamp * 2 + (start ? 1 : 0));
+        } else {
+            ++lateUsers;
+            activeUsers += start ? 1 : -1;
+        }
+    }
+
+    /** Emits all buckets that are still open; call once the input is exhausted. */
+    public void finish() {
+        if (started) {
+            while (oldest <= newest) {
+                emitOldest();
+            }
+        }
+    }
+
+    public long getLate() {
+        return late;
+    }
+
+    /** Number of user events older than the oldest open bucket. */
+    public long getLateUsers() {
+        return lateUsers;
+    }
+
+    /** Users started but not ended so far. */
+    public long getActiveUsers() {
+        return activeUsers;
+    }
+
+    /** Highest number of users active at the same time in the emitted intervals. */
+    public long getPeakUsers() {
+        return peakUsers;
+    }
+
+    /** Timestamp at which the {@link #getPeakUsers() peak} was first reached, epoch milliseconds. */
+    public long getPeakUsersTime() {
+        return peakUsersTime;
+    }
+
+    /** Makes the bucket of {@code index} available, or returns {@code false} if it has already been emitted. */
+    private boolean open(long index) {
+        if (!started) {
+            started = true;
+            oldest = newest = index;
+            bucket(index).reset(index * interval);
+        } else if (index < oldest) {
+            return false;
+        }
+        while (index - oldest >= ring.length) {
+            emitOldest();
+        }
+        while (newest < index) {
+            ++newest;
+            bucket(newest).reset(newest * interval);
+        }
+        return true;
+    }
+
+    private void emitOldest() {
+        if (oldest > newest) {
+            // the next request is more than a window ahead, emit the empty intervals in between
+            bucket(oldest).reset(oldest * interval);
+            newest = oldest;
+        }
+        TimelineBucket bucket = bucket(oldest);
+        bucket.startUsers(activeUsers);
+        long end = (oldest + 1) * interval * 2;
+        while (userEventCount > 0 && userEvents[0] < end) {
+            long event = pop();
+            activeUsers += (event & 1) == 1 ? 1 : -1;
+            bucket.acceptUsers(activeUsers);
+            if (activeUsers > peakUsers) {
+                peakUsers = activeUsers;
+                peakUsersTime = event >> 1;
+            }
+        }
+        listener.accept(bucket);
+        ++oldest;
+    }
+
+    private TimelineBucket bucket(long index) {
+        return ring[(int) Math.floorMod(index, (long) ring.length)];
+    }
+
+    private void push(long event) {
+        if (userEventCount == userEvents.length) {
+            userEvents = Arrays.copyOf(userEvents, userEventCount * 2);
+        }
+        int i = userEventCount++;
+        while (i > 0 && userEvents[(i - 1) / 2] > event) {
+            userEvents[i] = userEvents[(i - 1) / 2];
+            i = (i - 1) / 2;
+        }
+        userEvents[i] = event;
+    }
+
+    private long pop() {
+        long head = userEvents[0];
+        long last = userEvents[--userEventCount];
+        int i = 0;
+        for (int child = 1; child < userEventCount; child = 2 * i + 1) {
+            if (child + 1 < userEventCount && userEvents[child + 1] < userEvents[child]) {
+                ++child;
+            }
+            if (userEvents[child] >= last) {
+                break;
+            }
+            userEvents[i] = userEvents[child];
+            i = child;
+        }
+        userEvents[i] = last;
+        return head;
+    }
+}
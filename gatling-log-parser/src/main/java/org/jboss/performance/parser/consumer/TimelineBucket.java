@@ -0,0 +1,87 @@
+package org.jboss.performance.parser.consumer;
+
+/**
+ * Requests completed, and users active, within one interval of a {@link Timeline}.
+ * <p>
+ * Buckets are recycled: an instance passed to a listener is only valid during that call.
+ */
+public class TimelineBucket {
+
+    private final long interval;
+    private final ResponseTimeStatistics statistics;
+    private long start;
+    private long errors;
+    private long activeUsers;
+    private long peakUsers;
+
+    TimelineBucket(long interval, long highestTrackableValue, int significantDigits) {
+        this.interval = interval;
+        this.statistics = new ResponseTimeStatistics(highestTrackableValue, significantDigits);
+    }
+
+    void accept(long responseTime, boolean ok) {
+        statistics.accept(responseTime);
+        if (!ok) {
+            ++errors;
+        }
+    }
+
+    void startUsers(long activeUsers) {
+        this.activeUsers = activeUsers;
+        this.peakUsers = activeUsers;
+    }
+
+    void acceptUsers(long activeUsers) {
+        this.activeUsers = activeUsers;
+        if (activeUsers > peakUsers) {
+            peakUsers = activeUsers;
+        }
+    }
+
+    void reset(long start) {
+        this.start = start;
+        this.errors = 0;
+        statistics.reset();
+    }
+
+    /** Start of the interval, epoch milliseconds; intervals are aligned to multiples of their length. */
+    public long getStart() {
+        return start;
+    }
+
+    public long getInterval() {
+        return interval;
+    }
+
+    public long getCount() {
+        return statistics.getSummary().getCount();
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public double getRequestsPerSecond() {
+        return getCount() * 1000.0 / interval;
+    }
+
+    /** Share of KO requests, 0 for an empty bucket. */
+    public double getErrorRate() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) errors / count;
+    }
+
+    /** Users active at the end of the interval; 0 unless the timeline is given USER rows. */
+    public long getActiveUsers() {
+        return activeUsers;
+    }
+
+    /** Highest number of users active at the same time within the interval. */
+    public long getPeakUsers() {
+        return peakUsers;
+    }
+
+    public ResponseTimeStatistics getStatistics() {
+        return statistics;
+    }
+}
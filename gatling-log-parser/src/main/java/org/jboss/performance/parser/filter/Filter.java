@@ -0,0 +1,51 @@
+package org.jboss.performance.parser.filter;
+
+import org.jboss.performance.parser.SimulationInfo;
+
+import java.util.function.Consumer;
+
+/**
+ * One stage of the filter command.
+ * <p>
+ * A filter has two parts. {@link #test(LogRecord)} is a predicate that is pushed down: the predicates of all filters
+ * run first, and a line any of them rejects is dropped before any filter rewrites it. {@link #apply(LogRecord,
+ * Consumer)} then runs, in order, on the lines that passed all predicates. Filters are shared between threads when
+ * several logs are merged, so they must be stateless.
+ *
+ * @see FilterPipeline
+ */
+public interface Filter {
+
+    /**
+     * @return {@code false} to drop the line; should look only at the columns it needs, usually the type and the
+     * timestamps
+     */
+    default boolean test(LogRecord record) {
+        return true;
+    }
+
+    /**
+     * @return {@code record} to keep it unchanged, a replacement from {@link LogRecord#replace(int, String)}, or
+     * {@code null} to drop it; records passed to {@code addLine} are written before the returned one and skip the
+     * remaining filters
+     */
+    default LogRecord apply(LogRecord record, Consumer<LogRecord> addLine) {
+        return record;
+    }
+
+    /**
+     * @return epoch ms such that {@link #test(LogRecord)} rejects every REQUEST and USER line whose non-zero
+     * timestamps are all before it, so that an index can skip the parts of the log that hold nothing else
+     */
+    default long windowStart(SimulationInfo info) {
+        return Long.MIN_VALUE;
+    }
+
+    /**
+     * @return epoch ms such that {@link #test(LogRecord)} rejects every REQUEST and USER line whose non-zero
+     * timestamps are all at or after it
+     */
+    default long windowEnd(SimulationInfo info) {
+        return Long.MAX_VALUE;
+    }
+}
@@ -0,0 +1,63 @@
+package org.jboss.performance.parser.filter;
+
+import org.jboss.performance.parser.SimulationInfo;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Runs several filters as one: all predicates first, then the rewrites in order.
+ */
+public class FilterPipeline implements Filter {
+
+    private final Filter[] filters;
+
+    public FilterPipeline(List<? extends Filter> filters) {
+        this.filters = filters.toArray(new Filter[0]);
+    }
+
+    public boolean isEmpty() {
+        return filters.length == 0;
+    }
+
+    @Override
+    public boolean test(LogRecord record) {
+        for (Filter filter : filters) {
+            if (!filter.test(record)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public LogRecord apply(LogRecord record, Consumer<LogRecord> addLine) {
+        for (Filter filter : filters) {
+            record = filter.apply(record, addLine);
+            if (record == null) {
+                return null;
+            }
+        }
+        return record;
+    }
+
+    /** The latest start of all filters. */
+    @Override
+    public long windowStart(SimulationInfo info) {
+        long start = Long.MIN_VALUE;
+        for (Filter filter : filters) {
+            start = Math.max(start, filter.windowStart(info));
+        }
+        return start;
+    }
+
+    /** The earliest end of all filters. */
+    @Override
+    public long windowEnd(SimulationInfo info) {
+        long end = Long.MAX_VALUE;
+        for (Filter filter : filters) {
+            end = Math.min(end, filter.windowEnd(info));
+        }
+        return end;
+    }
+}
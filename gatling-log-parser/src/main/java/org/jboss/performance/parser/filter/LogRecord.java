@@ -0,0 +1,163 @@
+package org.jboss.performance.parser.filter;
+
+import org.jboss.performance.parser.SimulationInfo;
+import org.jboss.performance.parser.format.FileFormat;
+import org.jboss.performance.parser.reader.FieldCursor;
+
+/**
+ * Typed view of one log line for {@link Filter}s.
+ * <p>
+ * Columns are only located and parsed when asked for, and each at most once per line, so a filter chain looking at
+ * the type and the timestamps of a line touches nothing else. The view is reset for every line; filters must not
+ * keep references to it.
+ */
+public class LogRecord {
+
+    public enum Type {
+        RUN, USER, REQUEST, OTHER
+    }
+
+    private final FileFormat fileFormat;
+    private final SimulationInfo info;
+    private FieldCursor cursor;
+    private Type type;
+    private long start;
+    private long end;
+    private boolean startParsed;
+    private boolean endParsed;
+
+    public LogRecord(FileFormat fileFormat, SimulationInfo info) {
+        this.fileFormat = fileFormat;
+        this.info = info;
+    }
+
+    public LogRecord reset(FieldCursor cursor) {
+        this.cursor = cursor;
+        this.type = null;
+        this.startParsed = false;
+        this.endParsed = false;
+        return this;
+    }
+
+    public FieldCursor getCursor() {
+        return cursor;
+    }
+
+    public FileFormat getFileFormat() {
+        return fileFormat;
+    }
+
+    public SimulationInfo getInfo() {
+        return info;
+    }
+
+    public Type getType() {
+        if (type == null) {
+            int field = fileFormat.getTypeField();
+            if (cursor.fieldEquals(field, fileFormat.getREQUEST())) {
+                type = Type.REQUEST;
+            } else if (cursor.fieldEquals(field, fileFormat.getUSER())) {
+                type = Type.USER;
+            } else if (cursor.fieldEquals(field, fileFormat.getRUN())) {
+                type = Type.RUN;
+            } else {
+                type = Type.OTHER;
+            }
+        }
+        return type;
+    }
+
+    /** @return {@code true} for the USER line logged when a user starts */
+    public boolean isUserStart() {
+        return getType() == Type.USER && cursor.fieldEquals(fileFormat.getUserEventField(), fileFormat.getSTART());
+    }
+
+    /** @return {@code true} for the USER line logged when a user ends */
+    public boolean isUserEnd() {
+        return getType() == Type.USER && cursor.fieldEquals(fileFormat.getUserEventField(), fileFormat.getEND());
+    }
+
+    /**
+     * Request start for REQUEST lines, user start for USER lines, simulation start for the RUN line.
+     *
+     * @throws IllegalStateException for other lines
+     */
+    public long getStart() {
+        if (!startParsed) {
+            switch (getType()) {
+                case REQUEST:
+                    start = cursor.longField(fileFormat.getRequestTimestampField());
+                    break;
+                case USER:
+                    start = cursor.longField(fileFormat.getUserStartField());
+                    break;
+                case RUN:
+                    start = cursor.longField(fileFormat.getHeaderStartTimeField());
+                    break;
+                default:
+                    throw new IllegalStateException("Line has no start time");
+            }
+            startParsed = true;
+        }
+        return start;
+    }
+
+    /**
+     * Request completion for REQUEST lines, user end for USER lines (0 or the start time on USER START lines,
+     * depending on the format).
+     *
+     * @throws IllegalStateException for other lines
+     */
+    public long getEnd() {
+        if (!endParsed) {
+            switch (getType()) {
+                case REQUEST:
+                    end = cursor.longField(fileFormat.getCompleteTimestampField());
+                    break;
+                case USER:
+                    end = cursor.longField(fileFormat.getUserEndField());
+                    break;
+                default:
+                    throw new IllegalStateException("Line has no end time");
+            }
+            endParsed = true;
+        }
+        return end;
+    }
+
+    /** Compares the request name of a REQUEST line without decoding it. */
+    public boolean nameEquals(String name) {
+        return cursor.fieldEquals(fileFormat.getRequestNameField(), name);
+    }
+
+    /** Compares the status (OK/KO) of a REQUEST line without decoding it. */
+    public boolean statusEquals(String status) {
+        return cursor.fieldEquals(fileFormat.getStatusField(), status);
+    }
+
+    /** Compares the scenario of a USER or REQUEST line without decoding it. */
+    public boolean scenarioEquals(String scenario) {
+        return cursor.fieldEquals(fileFormat.getScenarioField(), scenario);
+    }
+
+    public String getName() {
+        return cursor.field(fileFormat.getRequestNameField());
+    }
+
+    public String getStatus() {
+        return cursor.field(fileFormat.getStatusField());
+    }
+
+    public String getScenario() {
+        return cursor.field(fileFormat.getScenarioField());
+    }
+
+    /**
+     * Returns a record over a copy of this line with one column replaced; this record is left unchanged.
+     *
+     * @see FieldCursor#replace(int, String)
+     */
+    public LogRecord replace(int index, String value) {
+        return new LogRecord(fileFormat, info).reset(cursor.replace(index, value));
+    }
+}
@@ -0,0 +1,25 @@
+package org.jboss.performance.parser.filter;
+
+/**
+ * Keeps only requests with one of the given names; other lines pass.
+ */
+public class RequestNameFilter implements Filter {
+    private final String[] names;
+
+    public RequestNameFilter(String... names) {
+        this.names = names.clone();
+    }
+
+    @Override
+    public boolean test(LogRecord record) {
+        if (record.getType() != LogRecord.Type.REQUEST) {
+            return true;
+        }
+        for (String name : names) {
+            if (record.nameEquals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
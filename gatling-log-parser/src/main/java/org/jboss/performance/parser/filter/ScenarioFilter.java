@@ -0,0 +1,26 @@
+package org.jboss.performance.parser.filter;
+
+/**
+ * Keeps only the users, and their requests, of the given scenarios; other lines pass.
+ */
+public class ScenarioFilter implements Filter {
+    private final String[] scenarios;
+
+    public ScenarioFilter(String... scenarios) {
+        this.scenarios = scenarios.clone();
+    }
+
+    @Override
+    public boolean test(LogRecord record) {
+        LogRecord.Type type = record.getType();
+        if (type != LogRecord.Type.USER && type != LogRecord.Type.REQUEST) {
+            return true;
+        }
+        for (String scenario : scenarios) {
+            if (record.scenarioEquals(scenario)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,55 @@
+package org.jboss.performance.parser.filter;
+
+import org.jboss.performance.parser.SimulationInfo;
+
+import java.util.function.Consumer;
+
+/**
+ * Skip first X ms: drops requests started and users ended before that, moves the RUN start time and the start of
+ * users running at that moment to it.
+ */
+public class SkipFilter implements Filter {
+    private final long ms;
+
+    public SkipFilter(long ms) {
+        this.ms = ms;
+    }
+
+    @Override
+    public boolean test(LogRecord record) {
+        long newStart = record.getInfo().startTime + ms;
+        switch (record.getType()) {
+            case REQUEST:
+                return record.getStart() >= newStart;
+            case USER:
+                if (record.isUserStart()) {
+                    return record.getStart() >= newStart;
+                } else if (record.isUserEnd()) {
+                    return record.getStart() >= newStart || record.getEnd() >= newStart;
+                }
+                return true;
+            default:
+                return true;
+        }
+    }
+
+    @Override
+    public LogRecord apply(LogRecord record, Consumer<LogRecord> addLine) {
+        long newStart = record.getInfo().startTime + ms;
+        if (record.getType() == LogRecord.Type.USER && record.isUserEnd() && record.getStart() < newStart) {
+            int startField = record.getFileFormat().getUserStartField();
+            String newStartColumn = String.valueOf(newStart);
+            addLine.accept(record.replace(record.getFileFormat().getUserEventField(), record.getFileFormat().getSTART())
+                    .replace(startField, newStartColumn).replace(record.getFileFormat().getUserEndField(), "0"));
+            return record.replace(startField, newStartColumn);
+        } else if (record.getType() == LogRecord.Type.RUN) {
+            return record.replace(record.getFileFormat().getHeaderStartTimeField(), String.valueOf(newStart));
+        }
+        return record;
+    }
+
+    @Override
+    public long windowStart(SimulationInfo info) {
+        return info.startTime + ms;
+    }
+}
@@ -0,0 +1,17 @@
+package org.jboss.performance.parser.filter;
+
+/**
+ * Keeps only requests with the given status, OK or KO; other lines pass.
+ */
+public class StatusFilter implements Filter {
+    private final String status;
+
+    public StatusFilter(String status) {
+        this.status = status;
+    }
+
+    @Override
+    public boolean test(LogRecord record) {
+        return record.getType() != LogRecord.Type.REQUEST || record.statusEquals(status);
+    }
+}
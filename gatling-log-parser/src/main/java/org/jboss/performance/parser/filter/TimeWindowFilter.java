@@ -0,0 +1,43 @@
+package org.jboss.performance.parser.filter;
+
+import org.jboss.performance.parser.SimulationInfo;
+
+/**
+ * Keeps requests that started at or after {@code from} and completed before {@code to} (epoch ms), and users that
+ * started within that window. The END line of a user is kept only together with its START line, so no user ends
+ * without having started; users still running at {@code to} are left without an END line.
+ */
+public class TimeWindowFilter implements Filter {
+    private final long from;
+    private final long to;
+
+    public TimeWindowFilter(long from, long to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    public boolean test(LogRecord record) {
+        switch (record.getType()) {
+            case REQUEST:
+                return record.getStart() >= from && record.getEnd() < to;
+            case USER:
+                if (record.isUserEnd()) {
+                    return record.getStart() >= from && record.getStart() < to && record.getEnd() < to;
+                }
+                return record.getStart() >= from && record.getStart() < to;
+            default:
+                return true;
+        }
+    }
+
+    @Override
+    public long windowStart(SimulationInfo info) {
+        return from;
+    }
+
+    @Override
+    public long windowEnd(SimulationInfo info) {
+        return to;
+    }
+}
@@ -0,0 +1,33 @@
+package org.jboss.performance.parser.filter;
+
+import org.jboss.performance.parser.SimulationInfo;
+
+/**
+ * Skip last X ms: drops requests completed and users started or ended within that time before the last request
+ * completes.
+ */
+public class TruncateFilter implements Filter {
+    private final long ms;
+
+    public TruncateFilter(long ms) {
+        this.ms = ms;
+    }
+
+    @Override
+    public boolean test(LogRecord record) {
+        long newEnd = record.getInfo().lastRequestComplete - ms;
+        switch (record.getType()) {
+            case REQUEST:
+                return record.getEnd() < newEnd;
+            case USER:
+                return record.getStart() < newEnd && record.getEnd() < newEnd;
+            default:
+                return true;
+        }
+    }
+
+    @Override
+    public long windowEnd(SimulationInfo info) {
+        return info.lastRequestComplete - ms;
+    }
+}
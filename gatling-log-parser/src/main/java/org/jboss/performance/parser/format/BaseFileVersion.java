@@ -11,6 +11,12 @@ public abstract class BaseFileVersion implements FileFormat {
     protected final String USER = "USER";
     protected final String START = "START";
     protected final String END = "END";
+    protected final String OK = "OK";
+    protected final String KO = "KO";
+
+    private static final int USER_EVENT_FIELD = 3;
+    private static final int USER_START_FIELD = 4;
+    private static final int USER_END_FIELD = 5;
 
     @Override
     public String getSEPARATOR() {
@@ -37,6 +43,26 @@ public abstract class BaseFileVersion implements FileFormat {
         return END;
     }
 
+    public String getOK() {
+        return OK;
+    }
+
+    public String getKO() {
+        return KO;
+    }
+
+    public int getUserEventField() {
+        return USER_EVENT_FIELD;
+    }
+
+    public int getUserStartField() {
+        return USER_START_FIELD;
+    }
+
+    public int getUserEndField() {
+        return USER_END_FIELD;
+    }
+
     public boolean validateFormat(String header) {
         try{
             String[] splitHeader = header.split(getSEPARATOR());
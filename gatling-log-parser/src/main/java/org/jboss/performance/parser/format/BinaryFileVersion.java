@@ -0,0 +1,29 @@
+package org.jboss.performance.parser.format;
+
+import org.jboss.performance.parser.reader.BinaryLogInputStream;
+import org.jboss.performance.parser.reader.BinaryLogReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Binary simulation.log of Gatling 3.13 and later, decoded by {@link BinaryLogReader}. Where lines are needed they
+ * are presented by {@link BinaryLogInputStream} in the column layout of {@link FileVersionB}.
+ */
+public class BinaryFileVersion extends FileVersionB {
+
+    @Override
+    public boolean validateFormat(String header) {
+        return false;
+    }
+
+    @Override
+    public InputStream open(String file, boolean pipelined) throws IOException {
+        return new BinaryLogInputStream(new BinaryLogReader(file));
+    }
+
+    @Override
+    public boolean isText() {
+        return false;
+    }
+}
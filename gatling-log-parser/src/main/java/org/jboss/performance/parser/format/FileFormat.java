@@ -1,5 +1,10 @@
 package org.jboss.performance.parser.format;
 
+import org.jboss.performance.parser.reader.Compression;
+
+import java.io.IOException;
+import java.io.InputStream;
+
 /**
  * Created by johara on 31/05/16.
  */
@@ -16,6 +21,10 @@ public interface FileFormat {
 
     String getEND();
 
+    String getOK();
+
+    String getKO();
+
     int getTypeField();
 
     int getCompleteTimestampField();
@@ -26,7 +35,36 @@ public interface FileFormat {
 
     int getIdField();
 
+    int getGroupField();
+
+    int getRequestNameField();
+
+    int getStatusField();
+
+    int getScenarioField();
+
+    int getUserEventField();
+
+    int getUserStartField();
+
+    int getUserEndField();
+
     boolean validateFormat(String header);
 
     int getHeaderStartTimeField();
+
+    /**
+     * Opens the log as lines of text in the column layout of this format, decompressing it if needed.
+     */
+    default InputStream open(String file, boolean pipelined) throws IOException {
+        return Compression.open(file, pipelined);
+    }
+
+    /**
+     * @return {@code false} for binary logs, whose lines only exist while decoding them: they cannot be split at
+     * newlines for parallel parsing, read from the end or followed
+     */
+    default boolean isText() {
+        return true;
+    }
 }
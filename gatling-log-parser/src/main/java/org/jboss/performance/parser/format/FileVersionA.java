@@ -10,6 +10,10 @@ public class FileVersionA extends BaseFileVersion {
     private static final int REQUEST_TIMESTAMP_FIELD = 5;
     private static final int CLASS_FIELD = 0;
     private static final int ID_FIELD = 1;
+    private static final int GROUP_FIELD = 3;
+    private static final int REQUEST_NAME_FIELD = 4;
+    private static final int SCENARIO_FIELD = 0;
+    private static final int STATUS_FIELD = 9;
     private static final int HEADER_START_TIME_FIELD = 3;
 
     public int getTypeField() {
@@ -32,6 +36,22 @@ public class FileVersionA extends BaseFileVersion {
         return ID_FIELD;
     }
 
+    public int getGroupField() {
+        return GROUP_FIELD;
+    }
+
+    public int getRequestNameField() {
+        return REQUEST_NAME_FIELD;
+    }
+
+    public int getStatusField() {
+        return STATUS_FIELD;
+    }
+
+    public int getScenarioField() {
+        return SCENARIO_FIELD;
+    }
+
     public int getHeaderStartTimeField() {
         return HEADER_START_TIME_FIELD;
     }
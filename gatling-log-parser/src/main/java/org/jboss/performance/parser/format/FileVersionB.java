@@ -9,6 +9,10 @@ public class FileVersionB extends BaseFileVersion {
     private static final int REQUEST_TIMESTAMP_FIELD = 5;
     private static final int CLASS_FIELD = 1;
     private static final int ID_FIELD = 2;
+    private static final int GROUP_FIELD = 3;
+    private static final int REQUEST_NAME_FIELD = 4;
+    private static final int SCENARIO_FIELD = 1;
+    private static final int STATUS_FIELD = 7;
     private static final int HEADER_START_TIME_FIELD = 4;
 
     public int getTypeField() {
@@ -31,6 +35,22 @@ public class FileVersionB extends BaseFileVersion {
         return ID_FIELD;
     }
 
+    public int getGroupField() {
+        return GROUP_FIELD;
+    }
+
+    public int getRequestNameField() {
+        return REQUEST_NAME_FIELD;
+    }
+
+    public int getStatusField() {
+        return STATUS_FIELD;
+    }
+
+    public int getScenarioField() {
+        return SCENARIO_FIELD;
+    }
+
     public int getHeaderStartTimeField() {
         return HEADER_START_TIME_FIELD;
     }
@@ -4,4 +4,11 @@ package org.jboss.performance.parser.format;
  * Created by johara on 31/05/16.
  */
 public class UnknownFileFormatException extends RuntimeException {
+
+    public UnknownFileFormatException() {
+    }
+
+    public UnknownFileFormatException(String message) {
+        super(message);
+    }
 }
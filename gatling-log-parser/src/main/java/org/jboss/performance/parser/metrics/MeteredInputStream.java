@@ -0,0 +1,48 @@
+package org.jboss.performance.parser.metrics;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Counts the bytes read and the time spent reading them. Meant to sit below a buffer, so it is called once per
+ * buffer fill rather than once per line.
+ */
+public class MeteredInputStream extends FilterInputStream {
+
+    private final ParserMetrics metrics;
+    private long nanos;
+
+    public MeteredInputStream(InputStream input, ParserMetrics metrics) {
+        super(input);
+        this.metrics = metrics;
+    }
+
+    @Override
+    public int read() throws IOException {
+        long start = System.nanoTime();
+        int value = super.read();
+        record(start, value < 0 ? 0 : 1);
+        return value;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        long start = System.nanoTime();
+        int read = super.read(buffer, offset, length);
+        record(start, Math.max(0, read));
+        return read;
+    }
+
+    private void record(long start, int bytes) {
+        long elapsed = System.nanoTime() - start;
+        nanos += elapsed;
+        metrics.addTime(Stage.READ, elapsed);
+        metrics.addRead(bytes);
+    }
+
+    /** Time spent in reads of this stream so far, for the caller to subtract from its own stage. */
+    public long getNanos() {
+        return nanos;
+    }
+}
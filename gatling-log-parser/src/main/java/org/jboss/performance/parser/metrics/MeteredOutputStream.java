@@ -0,0 +1,42 @@
+package org.jboss.performance.parser.metrics;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Counts the bytes written and the time spent writing them. Meant to sit below a buffer, so it is called once per
+ * buffer flush rather than once per line.
+ */
+public class MeteredOutputStream extends FilterOutputStream {
+
+    private final ParserMetrics metrics;
+
+    public MeteredOutputStream(OutputStream output, ParserMetrics metrics) {
+        super(output);
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        long start = System.nanoTime();
+        out.write(b);
+        metrics.addTime(Stage.WRITE, System.nanoTime() - start);
+        metrics.addWritten(1);
+    }
+
+    @Override
+    public void write(byte[] buffer, int offset, int length) throws IOException {
+        long start = System.nanoTime();
+        out.write(buffer, offset, length);
+        metrics.addTime(Stage.WRITE, System.nanoTime() - start);
+        metrics.addWritten(length);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        long start = System.nanoTime();
+        out.flush();
+        metrics.addTime(Stage.WRITE, System.nanoTime() - start);
+    }
+}
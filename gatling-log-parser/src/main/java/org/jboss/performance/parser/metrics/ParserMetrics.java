@@ -0,0 +1,202 @@
+package org.jboss.performance.parser.metrics;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Throughput, time per {@link Stage} and allocation of parser runs.
+ * <p>
+ * Everything is recorded in bulk, per buffer of read or written bytes, per batch of lines or per chunk, never per
+ * line, so the metrics are cheap enough to be always on. All counters are thread-safe and may be shared by several
+ * parsers, e.g. by all logs of an aggregated stats run.
+ */
+public class ParserMetrics implements ParserMetricsMBean {
+
+    /** Lines are counted locally and published in batches of this size. */
+    public static final int LINE_BATCH = 64 * 1024;
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final long startNanos = System.nanoTime();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder linesRead = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final LongAdder linesWritten = new LongAdder();
+    private final LongAdder expectedBytes = new LongAdder();
+    private final LongAdder allocatedBytes = new LongAdder();
+    private final LongAdder[] stageNanos = new LongAdder[Stage.values().length];
+
+    public ParserMetrics() {
+        for (int i = 0; i < stageNanos.length; ++i) {
+            stageNanos[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Bytes allocated by the current thread so far, or -1 when the JVM cannot tell.
+     */
+    public static long threadAllocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+            if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    public void addRead(long bytes) {
+        bytesRead.add(bytes);
+    }
+
+    public void addLines(long lines) {
+        linesRead.add(lines);
+    }
+
+    public void addWritten(long bytes) {
+        bytesWritten.add(bytes);
+    }
+
+    public void addLinesWritten(long lines) {
+        linesWritten.add(lines);
+    }
+
+    /** Adds to the number of bytes the run is going to read, for the progress percentage. */
+    public void expectBytes(long bytes) {
+        expectedBytes.add(bytes);
+    }
+
+    public void addTime(Stage stage, long nanos) {
+        stageNanos[stage.ordinal()].add(nanos);
+    }
+
+    /** @param before value of {@link #threadAllocatedBytes()} when the work started on this thread */
+    public void addAllocatedSince(long before) {
+        if (before >= 0) {
+            long now = threadAllocatedBytes();
+            if (now >= before) {
+                allocatedBytes.add(now - before);
+            }
+        }
+    }
+
+    public long getTime(Stage stage, TimeUnit unit) {
+        return unit.convert(stageNanos[stage.ordinal()].sum(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    @Override
+    public long getLinesRead() {
+        return linesRead.sum();
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    @Override
+    public long getLinesWritten() {
+        return linesWritten.sum();
+    }
+
+    @Override
+    public long getExpectedBytes() {
+        return expectedBytes.sum();
+    }
+
+    @Override
+    public long getAllocatedBytes() {
+        return allocatedBytes.sum();
+    }
+
+    @Override
+    public long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    @Override
+    public double getBytesPerSecond() {
+        return getBytesRead() * 1000.0 / Math.max(1, getElapsedMillis());
+    }
+
+    @Override
+    public double getLinesPerSecond() {
+        return getLinesRead() * 1000.0 / Math.max(1, getElapsedMillis());
+    }
+
+    @Override
+    public long getReadMillis() {
+        return getTime(Stage.READ, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public long getParseMillis() {
+        return getTime(Stage.PARSE, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public long getFilterMillis() {
+        return getTime(Stage.FILTER, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public long getWriteMillis() {
+        return getTime(Stage.WRITE, TimeUnit.MILLISECONDS);
+    }
+
+    /** Registers these metrics with the platform MBean server as {@code org.jboss.performance.parser:type=ParserMetrics}. */
+    public void register() throws JMException {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName("org.jboss.performance.parser:type=ParserMetrics"));
+    }
+
+    /** One line: bytes and lines read so far, with rates and the share of the expected bytes. */
+    public String progress() {
+        long read = getBytesRead();
+        long expected = getExpectedBytes();
+        StringBuilder sb = new StringBuilder("progress: ").append(megabytes(read)).append(" MB");
+        if (expected > 0) {
+            sb.append(String.format(" of %d MB (%.1f %%)", megabytes(expected), Math.min(100.0, read * 100.0 / expected)));
+        }
+        sb.append(String.format(", %.1f MB/s, %.0f lines/s", getBytesPerSecond() / (1024 * 1024), getLinesPerSecond()));
+        if (getLinesWritten() > 0) {
+            sb.append(", ").append(getLinesWritten()).append(" lines written");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Final summary: totals, throughput, time per stage and allocation. Stage times are summed over threads, so with
+     * parallel parsing they may exceed the elapsed time.
+     */
+    public String profile() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("profile: %d ms, %d MB read, %d lines read, %.1f MB/s, %.0f lines/s%n", getElapsedMillis(),
+                megabytes(getBytesRead()), getLinesRead(), getBytesPerSecond() / (1024 * 1024), getLinesPerSecond()));
+        if (getLinesWritten() > 0) {
+            sb.append(String.format("  written: %d MB, %d lines%n", megabytes(getBytesWritten()), getLinesWritten()));
+        }
+        for (Stage stage : Stage.values()) {
+            long millis = getTime(stage, TimeUnit.MILLISECONDS);
+            if (millis > 0) {
+                sb.append(String.format("  %-6s %8d ms%n", stage.name().toLowerCase(), millis));
+            }
+        }
+        if (getAllocatedBytes() > 0) {
+            sb.append(String.format("  allocated: %.1f MB%n", getAllocatedBytes() / (1024.0 * 1024)));
+        }
+        return sb.toString();
+    }
+
+    private static long megabytes(long bytes) {
+        return bytes / (1024 * 1024);
+    }
+}
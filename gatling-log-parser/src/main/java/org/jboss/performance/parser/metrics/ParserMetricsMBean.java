@@ -0,0 +1,32 @@
+package org.jboss.performance.parser.metrics;
+
+/**
+ * JMX view of {@link ParserMetrics}.
+ */
+public interface ParserMetricsMBean {
+    long getBytesRead();
+
+    long getLinesRead();
+
+    long getBytesWritten();
+
+    long getLinesWritten();
+
+    long getExpectedBytes();
+
+    long getAllocatedBytes();
+
+    long getElapsedMillis();
+
+    double getBytesPerSecond();
+
+    double getLinesPerSecond();
+
+    long getReadMillis();
+
+    long getParseMillis();
+
+    long getFilterMillis();
+
+    long getWriteMillis();
+}
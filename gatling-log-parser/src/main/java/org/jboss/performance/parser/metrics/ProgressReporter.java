@@ -0,0 +1,43 @@
+package org.jboss.performance.parser.metrics;
+
+import java.io.Closeable;
+import java.io.PrintStream;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prints {@link ParserMetrics#progress()} periodically from a daemon thread, and the {@link ParserMetrics#profile()}
+ * when closed. Runs shorter than the period print nothing, unless the profile is forced.
+ */
+public class ProgressReporter implements Closeable {
+
+    private final ParserMetrics metrics;
+    private final PrintStream output;
+    private final long periodMillis;
+    private final boolean forceProfile;
+    private final ScheduledExecutorService executor;
+
+    public ProgressReporter(ParserMetrics metrics, PrintStream output, long periodMillis, boolean forceProfile) {
+        this.metrics = metrics;
+        this.output = output;
+        this.periodMillis = periodMillis;
+        this.forceProfile = forceProfile;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "simulation-log-progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (periodMillis > 0) {
+            executor.scheduleAtFixedRate(() -> output.println(metrics.progress()), periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        if (forceProfile || (periodMillis > 0 && metrics.getElapsedMillis() >= periodMillis)) {
+            output.print(metrics.profile());
+        }
+    }
+}
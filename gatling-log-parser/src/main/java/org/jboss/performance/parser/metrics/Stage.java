@@ -0,0 +1,18 @@
+package org.jboss.performance.parser.metrics;
+
+/**
+ * Stages of a parser run whose time is recorded by {@link ParserMetrics}.
+ */
+public enum Stage {
+    /** Reading (and decompressing) the log, including page faults of memory-mapped chunks. */
+    READ,
+    /**
+     * Splitting lines and accumulating statistics. Fields are tokenized lazily while the accumulators look at them,
+     * so tokenizing and accumulating cannot be told apart.
+     */
+    PARSE,
+    /** Running the filters of the filter command, and handing lines to the writer. */
+    FILTER,
+    /** Writing (and compressing) the output of the filter command. */
+    WRITE
+}
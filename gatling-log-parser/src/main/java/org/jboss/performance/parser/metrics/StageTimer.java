@@ -0,0 +1,64 @@
+package org.jboss.performance.parser.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Times a line loop on one thread as a {@link Stage} and counts its lines, publishing to {@link ParserMetrics} only
+ * every {@link ParserMetrics#LINE_BATCH} lines. Time already accounted to other stages within the loop, e.g. by a
+ * {@link MeteredInputStream}, is given as running totals in nanoseconds and subtracted.
+ */
+public class StageTimer implements AutoCloseable {
+
+    private final ParserMetrics metrics;
+    private final Stage stage;
+    private final LongSupplier[] excluded;
+    private final long[] excludedMarks;
+    private final long allocatedMark;
+    private long mark;
+    private int lines;
+
+    public StageTimer(ParserMetrics metrics, Stage stage, LongSupplier... excluded) {
+        this.metrics = metrics;
+        this.stage = stage;
+        this.excluded = excluded;
+        this.excludedMarks = new long[excluded.length];
+        for (int i = 0; i < excluded.length; ++i) {
+            excludedMarks[i] = excluded[i].getAsLong();
+        }
+        this.allocatedMark = ParserMetrics.threadAllocatedBytes();
+        this.mark = System.nanoTime();
+    }
+
+    /** Time spent in {@code stage} in total so far, for use as an excluded time. */
+    public static LongSupplier total(ParserMetrics metrics, Stage stage) {
+        return () -> metrics.getTime(stage, TimeUnit.NANOSECONDS);
+    }
+
+    public void line() {
+        if (++lines == ParserMetrics.LINE_BATCH) {
+            publish();
+        }
+    }
+
+    private void publish() {
+        long now = System.nanoTime();
+        long elapsed = now - mark;
+        for (int i = 0; i < excluded.length; ++i) {
+            long value = excluded[i].getAsLong();
+            elapsed -= value - excludedMarks[i];
+            excludedMarks[i] = value;
+        }
+        metrics.addTime(stage, Math.max(0, elapsed));
+        metrics.addLines(lines);
+        lines = 0;
+        mark = now;
+    }
+
+    /** Publishes the remaining lines and time, and the bytes this thread allocated since the timer was created. */
+    @Override
+    public void close() {
+        publish();
+        metrics.addAllocatedSince(allocatedMark);
+    }
+}
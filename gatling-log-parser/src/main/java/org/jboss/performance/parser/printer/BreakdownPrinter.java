@@ -0,0 +1,72 @@
+package org.jboss.performance.parser.printer;
+
+import org.jboss.performance.parser.consumer.PercentileCalculator;
+import org.jboss.performance.parser.consumer.RequestBreakdown;
+import org.jboss.performance.parser.consumer.RequestKey;
+import org.jboss.performance.parser.consumer.ResponseTimeStatistics;
+
+import java.util.DoubleSummaryStatistics;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * Prints a {@link RequestBreakdown} as a table with one row per request key.
+ */
+public class BreakdownPrinter {
+
+    private final double[] centiles;
+
+    public BreakdownPrinter(double... centiles) {
+        this.centiles = centiles;
+    }
+
+    public void printStats(RequestBreakdown breakdown) {
+        SortedMap<RequestKey, ResponseTimeStatistics> statistics = breakdown.getStatistics();
+        int groupWidth = "group".length();
+        int nameWidth = "name".length();
+        for (RequestKey key : statistics.keySet()) {
+            groupWidth = Math.max(groupWidth, String.valueOf(key.getGroup()).length());
+            nameWidth = Math.max(nameWidth, String.valueOf(key.getName()).length());
+        }
+
+        StringBuilder header = new StringBuilder();
+        if (breakdown.isByGroup()) {
+            header.append(pad("group", groupWidth)).append("  ");
+        }
+        header.append(pad("name", nameWidth)).append("  ");
+        if (breakdown.isByStatus()) {
+            header.append("status  ");
+        }
+        header.append(String.format("%10s %10s %10s %10s", "count", "min", "max", "mean"));
+        for (double centile : centiles) {
+            header.append(String.format(" %10s", centile + "th"));
+        }
+        System.out.println(header);
+
+        for (Map.Entry<RequestKey, ResponseTimeStatistics> entry : statistics.entrySet()) {
+            RequestKey key = entry.getKey();
+            DoubleSummaryStatistics summary = entry.getValue().getSummary();
+            StringBuilder row = new StringBuilder();
+            if (breakdown.isByGroup()) {
+                row.append(pad(key.getGroup(), groupWidth)).append("  ");
+            }
+            row.append(pad(key.getName(), nameWidth)).append("  ");
+            if (breakdown.isByStatus()) {
+                row.append(pad(key.getStatus(), "status".length())).append("  ");
+            }
+            row.append(String.format("%10d %10.0f %10.0f %10.2f", summary.getCount(), summary.getMin(), summary.getMax(), summary.getAverage()));
+            for (double value : PercentileCalculator.fromHistogram(entry.getValue().getHistogram(), centiles)) {
+                row.append(String.format(" %10.0f", value));
+            }
+            System.out.println(row);
+        }
+    }
+
+    private static String pad(String value, int width) {
+        StringBuilder sb = new StringBuilder(String.valueOf(value));
+        while (sb.length() < width) {
+            sb.append(' ');
+        }
+        return sb.toString();
+    }
+}
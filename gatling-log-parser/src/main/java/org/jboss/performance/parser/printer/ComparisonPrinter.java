@@ -0,0 +1,57 @@
+package org.jboss.performance.parser.printer;
+
+import org.jboss.performance.parser.report.ReportComparison;
+import org.jboss.performance.parser.report.StatisticsResult;
+
+/**
+ * Prints a {@link ReportComparison} with one line per request and compared value: the mean and every gated
+ * percentile.
+ */
+public class ComparisonPrinter {
+
+    public void printComparison(ReportComparison comparison) {
+        double[] centiles = comparison.getCentiles();
+        int[] gated = comparison.getGatedCentiles();
+        int labelWidth = "request".length();
+        for (ReportComparison.Row row : comparison.getRows()) {
+            labelWidth = Math.max(labelWidth, label(row).length());
+        }
+        System.out.println(String.format("%-" + labelWidth + "s  %-10s %10s %10s %10s  %s", "request", "value", "baseline", "candidate", "delta[%]", "verdict"));
+        for (ReportComparison.Row row : comparison.getRows()) {
+            String label = label(row);
+            print(label, labelWidth, "mean", mean(row.getBaseline()), mean(row.getCandidate()), row.getVerdict().name());
+            for (int index : gated) {
+                print("", labelWidth, centiles[index] + "th", percentile(row.getBaseline(), index), percentile(row.getCandidate(), index), "");
+            }
+        }
+    }
+
+    private static void print(String label, int labelWidth, String value, double baseline, double candidate, String verdict) {
+        // a relative change from zero is meaningless, e.g. the percentiles of sub-millisecond requests
+        String delta = baseline == 0 ? "n/a" : String.format("%+.2f", (candidate - baseline) * 100 / baseline);
+        System.out.println(String.format("%-" + labelWidth + "s  %-10s %10.2f %10.2f %10s  %s", label, value, baseline, candidate, delta, verdict));
+    }
+
+    private static String label(ReportComparison.Row row) {
+        if (row.getName() == null) {
+            return "total";
+        }
+        StringBuilder label = new StringBuilder();
+        if (row.getGroup() != null && !row.getGroup().isEmpty()) {
+            label.append(row.getGroup()).append(" / ");
+        }
+        label.append(row.getName());
+        if (row.getStatus() != null) {
+            label.append(" (").append(row.getStatus()).append(')');
+        }
+        return label.toString();
+    }
+
+    private static double mean(StatisticsResult statistics) {
+        return statistics == null ? Double.NaN : statistics.getMean();
+    }
+
+    private static double percentile(StatisticsResult statistics, int index) {
+        return statistics == null ? Double.NaN : statistics.getPercentile(index);
+    }
+}
@@ -1,27 +1,34 @@
 package org.jboss.performance.parser.printer;
 
+import org.jboss.performance.parser.consumer.PercentileCalculator;
+import org.jboss.performance.parser.consumer.ResponseTimeStatistics;
+
 import java.util.List;
-import java.util.OptionalDouble;
-import java.util.stream.Stream;
 
 /**
  * Created by johara on 10/05/16.
  */
 public class PercentileStatsPrinter implements StatsPrinter{
 
-    private final double centile;
+    private final double[] centiles;
 
-    public PercentileStatsPrinter(double centile) {
-        this.centile = centile;
+    public PercentileStatsPrinter(double... centiles) {
+        this.centiles = centiles;
     }
 
     @Override
     public void printStats(List<Double> valueList) {
-        Stream<Double> timesStream = valueList.parallelStream();
-        long centil = new Double(valueList.size() / 100.00 * centile).longValue();
+        print(PercentileCalculator.fromValues(valueList, centiles));
+    }
 
-        OptionalDouble centileValue = timesStream.mapToDouble(Double::doubleValue).sorted().limit(centil).reduce((first, second) -> second);
+    @Override
+    public void printStats(ResponseTimeStatistics statistics) {
+        print(PercentileCalculator.fromHistogram(statistics.getHistogram(), centiles));
+    }
 
-        System.out.println(centile + "th Centile: " + centileValue.getAsDouble());
+    private void print(double[] centileValues) {
+        for (int i = 0; i < centiles.length; ++i) {
+            System.out.println(centiles[i] + "th Centile: " + centileValues[i]);
+        }
     }
 }
@@ -0,0 +1,77 @@
+package org.jboss.performance.parser.printer;
+
+import org.jboss.performance.parser.query.QueryResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Prints a {@link QueryResult} as an aligned table, or as CSV with a header line.
+ */
+public class QueryPrinter {
+
+    private final boolean csv;
+
+    public QueryPrinter(boolean csv) {
+        this.csv = csv;
+    }
+
+    public void printResult(QueryResult result) {
+        List<String> header = new ArrayList<>(result.getKeyColumns());
+        header.addAll(result.getValueColumns());
+        List<List<String>> lines = new ArrayList<>();
+        lines.add(header);
+        for (QueryResult.Row row : result.getRows()) {
+            List<String> line = new ArrayList<>(row.getKeys());
+            for (int i = 0; i < result.getValueColumns().size(); ++i) {
+                line.add(format(result.getValueColumns().get(i), row.getValue(i)));
+            }
+            lines.add(line);
+        }
+        if (csv) {
+            for (List<String> line : lines) {
+                StringBuilder sb = new StringBuilder();
+                for (String value : line) {
+                    if (sb.length() > 0) {
+                        sb.append(',');
+                    }
+                    sb.append(csvValue(value));
+                }
+                System.out.println(sb);
+            }
+            return;
+        }
+        int keys = result.getKeyColumns().size();
+        int[] widths = new int[header.size()];
+        for (List<String> line : lines) {
+            for (int i = 0; i < line.size(); ++i) {
+                widths[i] = Math.max(widths[i], line.get(i).length());
+            }
+        }
+        for (List<String> line : lines) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < line.size(); ++i) {
+                if (i > 0) {
+                    sb.append("  ");
+                }
+                // group values to the left, numbers to the right
+                sb.append(String.format("%" + (i < keys ? "-" : "") + widths[i] + "s", line.get(i)));
+            }
+            System.out.println(sb.toString().replaceAll("\\s+$", ""));
+        }
+    }
+
+    private String format(String column, double value) {
+        if (Double.isNaN(value)) {
+            return csv ? "" : "-";
+        }
+        return "count".equals(column) ? Long.toString((long) value) : String.format("%.2f", value);
+    }
+
+    private static String csvValue(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -1,5 +1,7 @@
 package org.jboss.performance.parser.printer;
 
+import org.jboss.performance.parser.consumer.ResponseTimeStatistics;
+
 import java.util.List;
 
 /**
@@ -7,4 +9,6 @@ import java.util.List;
  */
 public interface StatsPrinter {
     void printStats(List<Double> valueList);
+
+    void printStats(ResponseTimeStatistics statistics);
 }
@@ -1,5 +1,7 @@
 package org.jboss.performance.parser.printer;
 
+import org.jboss.performance.parser.consumer.ResponseTimeStatistics;
+
 import java.util.DoubleSummaryStatistics;
 import java.util.List;
 import java.util.stream.Stream;
@@ -13,12 +15,19 @@ public class SummaryStatsPrinter implements StatsPrinter{
     public void printStats(List<Double> valueList) {
         Stream<Double> timesStream = valueList.parallelStream();
 
-        DoubleSummaryStatistics maxResponseTime = timesStream.mapToDouble(Double::doubleValue).summaryStatistics();
+        print(timesStream.mapToDouble(Double::doubleValue).summaryStatistics());
+    }
+
+    @Override
+    public void printStats(ResponseTimeStatistics statistics) {
+        print(statistics.getSummary());
+    }
 
-        System.out.println("count: " + maxResponseTime.getCount());
-        System.out.println("min: " + maxResponseTime.getMin());
-        System.out.println("max: " + maxResponseTime.getMax());
-        System.out.println("mean: " + maxResponseTime.getAverage());
+    private void print(DoubleSummaryStatistics summary) {
+        System.out.println("count: " + summary.getCount());
+        System.out.println("min: " + summary.getMin());
+        System.out.println("max: " + summary.getMax());
+        System.out.println("mean: " + summary.getAverage());
 
     }
 }
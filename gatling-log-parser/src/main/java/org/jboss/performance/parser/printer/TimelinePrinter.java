@@ -0,0 +1,63 @@
+package org.jboss.performance.parser.printer;
+
+import org.jboss.performance.parser.consumer.PercentileCalculator;
+import org.jboss.performance.parser.consumer.TimelineBucket;
+
+import java.util.DoubleSummaryStatistics;
+import java.util.function.Consumer;
+
+/**
+ * Prints one row per {@link TimelineBucket} as the timeline is being computed.
+ */
+public class TimelinePrinter implements Consumer<TimelineBucket> {
+
+    public static final double[] CENTILES = {50, 95, 99};
+
+    private final double[] centiles;
+    private final boolean users;
+    private boolean headerPrinted;
+
+    public TimelinePrinter() {
+        this(CENTILES);
+    }
+
+    public TimelinePrinter(double... centiles) {
+        this(false, centiles);
+    }
+
+    /**
+     * @param users whether to print the active and peak users of every interval
+     */
+    public TimelinePrinter(boolean users, double... centiles) {
+        this.users = users;
+        this.centiles = centiles;
+    }
+
+    @Override
+    public void accept(TimelineBucket bucket) {
+        if (!headerPrinted) {
+            StringBuilder header = new StringBuilder(String.format("%-14s %10s %9s %10s", "time", "req/s", "errors[%]", "mean"));
+            for (double centile : centiles) {
+                header.append(String.format(" %10s", centile + "th"));
+            }
+            header.append(String.format(" %10s", "max"));
+            if (users) {
+                header.append(String.format(" %10s %10s", "users", "peak users"));
+            }
+            System.out.println(header);
+            headerPrinted = true;
+        }
+        DoubleSummaryStatistics summary = bucket.getStatistics().getSummary();
+        boolean empty = summary.getCount() == 0;
+        StringBuilder row = new StringBuilder(String.format("%-14d %10.1f %9.2f %10.2f", bucket.getStart(),
+                bucket.getRequestsPerSecond(), bucket.getErrorRate() * 100, empty ? Double.NaN : summary.getAverage()));
+        for (double value : PercentileCalculator.fromHistogram(bucket.getStatistics().getHistogram(), centiles)) {
+            row.append(String.format(" %10.0f", value));
+        }
+        row.append(String.format(" %10.0f", empty ? Double.NaN : summary.getMax()));
+        if (users) {
+            row.append(String.format(" %10d %10d", bucket.getActiveUsers(), bucket.getPeakUsers()));
+        }
+        System.out.println(row);
+    }
+}
@@ -8,17 +8,12 @@ import java.util.List;
  */
 public class Util {
 
+    public static final double[] CENTILES = {50, 75, 95, 99, 99.9, 99.99, 99.999, 99.9999};
+
     public static List<StatsPrinter> getPrinters() {
         List<StatsPrinter> printers = new ArrayList<>();
         printers.add(new SummaryStatsPrinter());
-        printers.add(new PercentileStatsPrinter(50));
-        printers.add(new PercentileStatsPrinter(75));
-        printers.add(new PercentileStatsPrinter(95));
-        printers.add(new PercentileStatsPrinter(99));
-        printers.add(new PercentileStatsPrinter(99.9));
-        printers.add(new PercentileStatsPrinter(99.99));
-        printers.add(new PercentileStatsPrinter(99.999));
-        printers.add(new PercentileStatsPrinter(99.9999));
+        printers.add(new PercentileStatsPrinter(CENTILES));
 
         return printers;
     }
@@ -0,0 +1,349 @@
+package org.jboss.performance.parser.query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parsed query over the REQUEST rows of a log:
+ * <pre>
+ * [SELECT] aggregate, ... [WHERE condition AND ...] [GROUP BY column, ...]
+ *
+ * aggregate: COUNT | MEAN | MIN | MAX | P&lt;centile&gt;, e.g. p99 or p99.9
+ * condition: NAME|GROUP|STATUS (= | !=) value
+ *          | NAME|GROUP|STATUS [NOT] IN (value, ...)
+ *          | TIME|DURATION (&lt; | &lt;= | &gt; | &gt;= | =) amount
+ *          | TIME|DURATION BETWEEN amount AND amount
+ * column:    NAME | GROUP | STATUS
+ * </pre>
+ * Keywords are case-insensitive; values containing spaces or operators are quoted with ' or ". {@code TIME} is the
+ * request start relative to the RUN start, {@code DURATION} the response time; amounts are in ms unless suffixed
+ * with ms, s, m or h. {@code BETWEEN} includes both ends, like in SQL.
+ */
+public class Query {
+
+    public enum Field {
+        NAME, GROUP, STATUS, TIME, DURATION;
+
+        public boolean isDictionary() {
+            return this == NAME || this == GROUP || this == STATUS;
+        }
+    }
+
+    public enum Function {
+        COUNT, MEAN, MIN, MAX, PERCENTILE
+    }
+
+    public static class Aggregate {
+        private final Function function;
+        private final double centile;
+
+        public Aggregate(Function function, double centile) {
+            this.function = function;
+            this.centile = centile;
+        }
+
+        public Function getFunction() {
+            return function;
+        }
+
+        /** @return the percentile of {@link Function#PERCENTILE}, in the range 0..100 */
+        public double getCentile() {
+            return centile;
+        }
+
+        public String getLabel() {
+            if (function != Function.PERCENTILE) {
+                return function.name().toLowerCase(Locale.ENGLISH);
+            }
+            return centile == Math.rint(centile) ? "p" + (long) centile : "p" + centile;
+        }
+    }
+
+    /**
+     * Either a set of dictionary values, or a range {@code [min, max)} of ms.
+     */
+    public static class Condition {
+        private final Field field;
+        private final Set<String> values;
+        private final boolean negated;
+        private final long min;
+        private final long max;
+
+        private Condition(Field field, Set<String> values, boolean negated, long min, long max) {
+            this.field = field;
+            this.values = values;
+            this.negated = negated;
+            this.min = min;
+            this.max = max;
+        }
+
+        public static Condition in(Field field, Set<String> values, boolean negated) {
+            return new Condition(field, Collections.unmodifiableSet(new LinkedHashSet<>(values)), negated, 0, 0);
+        }
+
+        public static Condition range(Field field, long min, long max) {
+            return new Condition(field, null, false, min, max);
+        }
+
+        public Field getField() {
+            return field;
+        }
+
+        /** @return the values of a dictionary condition, {@code null} for a range */
+        public Set<String> getValues() {
+            return values;
+        }
+
+        public boolean isNegated() {
+            return negated;
+        }
+
+        /** @return inclusive lower bound of a range */
+        public long getMin() {
+            return min;
+        }
+
+        /** @return exclusive upper bound of a range */
+        public long getMax() {
+            return max;
+        }
+    }
+
+    private static final Pattern TOKEN = Pattern.compile("\\s*(?:'([^']*)'|\"([^\"]*)\"|(<=|>=|!=|<>|[(),=<>])|([^\\s(),=<>!'\"]+))");
+    private static final Pattern AMOUNT = Pattern.compile("(\\d+(?:\\.\\d+)?)(ms|s|m|h)?");
+
+    private final List<Aggregate> aggregates;
+    private final List<Condition> conditions;
+    private final List<Field> groupBy;
+
+    public Query(List<Aggregate> aggregates, List<Condition> conditions, List<Field> groupBy) {
+        if (aggregates.isEmpty()) {
+            throw new IllegalArgumentException("Query has no aggregates");
+        }
+        for (Field field : groupBy) {
+            if (!field.isDictionary()) {
+                throw new IllegalArgumentException("Cannot group by " + field.name().toLowerCase(Locale.ENGLISH));
+            }
+        }
+        this.aggregates = Collections.unmodifiableList(new ArrayList<>(aggregates));
+        this.conditions = Collections.unmodifiableList(new ArrayList<>(conditions));
+        this.groupBy = Collections.unmodifiableList(new ArrayList<>(groupBy));
+    }
+
+    /**
+     * @throws IllegalArgumentException with a description of the first error
+     */
+    public static Query parse(String text) {
+        return new Parser(text).parse();
+    }
+
+    public List<Aggregate> getAggregates() {
+        return aggregates;
+    }
+
+    public List<Condition> getConditions() {
+        return conditions;
+    }
+
+    public List<Field> getGroupBy() {
+        return groupBy;
+    }
+
+    private static class Parser {
+        private final List<String> tokens = new ArrayList<>();
+        /** Quoted tokens are values, never keywords or operators. */
+        private final List<Boolean> quoted = new ArrayList<>();
+        private int position;
+
+        Parser(String text) {
+            Matcher matcher = TOKEN.matcher(text);
+            int end = 0;
+            while (matcher.find() && matcher.start() == end) {
+                end = matcher.end();
+                for (int group = 1; group <= 4; ++group) {
+                    if (matcher.group(group) != null) {
+                        tokens.add(matcher.group(group));
+                        quoted.add(group <= 2);
+                        break;
+                    }
+                }
+            }
+            if (!text.substring(end).trim().isEmpty()) {
+                throw new IllegalArgumentException("Cannot parse query at '" + text.substring(end).trim() + "'");
+            }
+        }
+
+        Query parse() {
+            List<Aggregate> aggregates = new ArrayList<>();
+            List<Condition> conditions = new ArrayList<>();
+            List<Field> groupBy = new ArrayList<>();
+            acceptKeyword("select");
+            do {
+                aggregates.add(aggregate(next("aggregate")));
+            } while (accept(","));
+            if (acceptKeyword("where")) {
+                do {
+                    conditions.add(condition());
+                } while (acceptKeyword("and"));
+            }
+            if (acceptKeyword("group")) {
+                expectKeyword("by");
+                do {
+                    groupBy.add(field(next("column")));
+                } while (accept(","));
+            }
+            if (position < tokens.size()) {
+                throw new IllegalArgumentException("Unexpected '" + tokens.get(position) + "'");
+            }
+            return new Query(aggregates, conditions, groupBy);
+        }
+
+        private Aggregate aggregate(String word) {
+            String lower = word.toLowerCase(Locale.ENGLISH);
+            switch (lower) {
+                case "count":
+                    if (accept("(")) {
+                        accept("*");
+                        expect(")");
+                    }
+                    return new Aggregate(Function.COUNT, 0);
+                case "mean":
+                case "avg":
+                    return new Aggregate(Function.MEAN, 0);
+                case "min":
+                    return new Aggregate(Function.MIN, 0);
+                case "max":
+                    return new Aggregate(Function.MAX, 0);
+                case "median":
+                    return new Aggregate(Function.PERCENTILE, 50);
+                default:
+                    if (lower.startsWith("p")) {
+                        try {
+                            double centile = Double.parseDouble(lower.substring(1));
+                            if (centile >= 0 && centile <= 100) {
+                                return new Aggregate(Function.PERCENTILE, centile);
+                            }
+                        } catch (NumberFormatException e) {
+                            // reported below
+                        }
+                    }
+                    throw new IllegalArgumentException("Unknown aggregate '" + word + "'");
+            }
+        }
+
+        private Condition condition() {
+            Field field = field(next("condition"));
+            if (field.isDictionary()) {
+                boolean negated = acceptKeyword("not");
+                Set<String> values = new LinkedHashSet<>();
+                if (acceptKeyword("in")) {
+                    expect("(");
+                    do {
+                        values.add(value(field));
+                    } while (accept(","));
+                    expect(")");
+                } else if (!negated && accept("=")) {
+                    values.add(value(field));
+                } else if (!negated && (accept("!=") || accept("<>"))) {
+                    negated = true;
+                    values.add(value(field));
+                } else {
+                    throw new IllegalArgumentException("Expected =, != or IN after " + field.name().toLowerCase(Locale.ENGLISH));
+                }
+                return Condition.in(field, values, negated);
+            }
+            if (acceptKeyword("between")) {
+                long min = amount(next("amount"));
+                expectKeyword("and");
+                return Condition.range(field, min, amount(next("amount")) + 1);
+            }
+            String operator = next("operator");
+            long amount = amount(next("amount"));
+            switch (operator) {
+                case "<":
+                    return Condition.range(field, Long.MIN_VALUE, amount);
+                case "<=":
+                    return Condition.range(field, Long.MIN_VALUE, amount + 1);
+                case ">":
+                    return Condition.range(field, amount + 1, Long.MAX_VALUE);
+                case ">=":
+                    return Condition.range(field, amount, Long.MAX_VALUE);
+                case "=":
+                    return Condition.range(field, amount, amount + 1);
+                default:
+                    throw new IllegalArgumentException("Unexpected '" + operator + "' after " + field.name().toLowerCase(Locale.ENGLISH));
+            }
+        }
+
+        private String value(Field field) {
+            String value = next("value");
+            return field == Field.STATUS ? value.toUpperCase(Locale.ENGLISH) : value;
+        }
+
+        private static Field field(String word) {
+            try {
+                return Field.valueOf(word.toUpperCase(Locale.ENGLISH));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown column '" + word + "'");
+            }
+        }
+
+        private static long amount(String word) {
+            Matcher matcher = AMOUNT.matcher(word.toLowerCase(Locale.ENGLISH));
+            if (!matcher.matches()) {
+                throw new IllegalArgumentException("Expected an amount of time, got '" + word + "'");
+            }
+            double value = Double.parseDouble(matcher.group(1));
+            String unit = matcher.group(2);
+            if ("s".equals(unit)) {
+                value *= 1000;
+            } else if ("m".equals(unit)) {
+                value *= 60 * 1000;
+            } else if ("h".equals(unit)) {
+                value *= 60 * 60 * 1000;
+            }
+            return Math.round(value);
+        }
+
+        private String next(String expected) {
+            if (position >= tokens.size()) {
+                throw new IllegalArgumentException("Query ends where " + expected + " is expected");
+            }
+            return tokens.get(position++);
+        }
+
+        private boolean accept(String token) {
+            if (position < tokens.size() && !quoted.get(position) && tokens.get(position).equals(token)) {
+                ++position;
+                return true;
+            }
+            return false;
+        }
+
+        private boolean acceptKeyword(String keyword) {
+            if (position < tokens.size() && !quoted.get(position) && tokens.get(position).equalsIgnoreCase(keyword)) {
+                ++position;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(String token) {
+            if (!accept(token)) {
+                throw new IllegalArgumentException("Expected '" + token + "'" + (position < tokens.size() ? " at '" + tokens.get(position) + "'" : ""));
+            }
+        }
+
+        private void expectKeyword(String keyword) {
+            if (!acceptKeyword(keyword)) {
+                throw new IllegalArgumentException("Expected " + keyword.toUpperCase(Locale.ENGLISH) + (position < tokens.size() ? " at '" + tokens.get(position) + "'" : ""));
+            }
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package org.jboss.performance.parser.query;
+
+import org.HdrHistogram.Histogram;
+import org.jboss.performance.parser.consumer.ResponseTimeStatistics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Runs a {@link Query} in a single pass over {@link RequestColumns}.
+ * <p>
+ * Rows are processed in blocks: only the columns the query uses are copied into primitive arrays, every condition
+ * narrows a selection vector of row indexes in a tight loop, and the selected rows are then added to the aggregates
+ * of their group. Dictionary conditions are resolved to a lookup table by id once, so no string is compared per row.
+ */
+public class QueryEngine {
+
+    static final int BLOCK_ROWS = 4096;
+    /** Groups are kept in an array indexed by the combined dictionary ids up to this many combinations. */
+    private static final int MAX_DENSE_GROUPS = 1 << 16;
+
+    private final Query query;
+
+    public QueryEngine(Query query) {
+        this.query = query;
+    }
+
+    public QueryResult execute(RequestColumns columns) {
+        boolean[] used = new boolean[Query.Field.values().length];
+        for (Query.Condition condition : query.getConditions()) {
+            used[condition.getField().ordinal()] = true;
+        }
+        for (Query.Field field : query.getGroupBy()) {
+            used[field.ordinal()] = true;
+        }
+        boolean histogram = false;
+        for (Query.Aggregate aggregate : query.getAggregates()) {
+            used[Query.Field.DURATION.ordinal()] |= aggregate.getFunction() != Query.Function.COUNT;
+            histogram |= aggregate.getFunction() == Query.Function.PERCENTILE;
+        }
+        boolean[][] matches = new boolean[query.getConditions().size()][];
+        for (int i = 0; i < matches.length; ++i) {
+            Query.Condition condition = query.getConditions().get(i);
+            if (condition.getField().isDictionary()) {
+                List<String> dictionary = dictionary(columns, condition.getField());
+                matches[i] = new boolean[dictionary.size()];
+                for (int id = 0; id < dictionary.size(); ++id) {
+                    matches[i][id] = condition.getValues().contains(dictionary.get(id)) != condition.isNegated();
+                }
+            }
+        }
+        List<Query.Field> groupBy = query.getGroupBy();
+        long[] radix = new long[groupBy.size()];
+        long groups = 1;
+        for (int i = 0; i < radix.length; ++i) {
+            radix[i] = Math.max(1, dictionary(columns, groupBy.get(i)).size());
+            groups = groups <= MAX_DENSE_GROUPS ? groups * radix[i] : groups;
+        }
+        Aggregator[] dense = groups <= MAX_DENSE_GROUPS ? new Aggregator[(int) groups] : null;
+        Map<Long, Aggregator> sparse = dense == null ? new HashMap<>() : null;
+        Aggregator total = groupBy.isEmpty() ? new Aggregator(histogram) : null;
+
+        Block block = new Block();
+        for (int row = 0; row < columns.rows(); row += BLOCK_ROWS) {
+            int length = Math.min(BLOCK_ROWS, columns.rows() - row);
+            block.load(columns, row, length, used);
+            int size = length;
+            for (int i = 0; i < size; ++i) {
+                block.selection[i] = i;
+            }
+            for (int i = 0; i < matches.length && size > 0; ++i) {
+                Query.Condition condition = query.getConditions().get(i);
+                size = matches[i] != null
+                        ? block.select(block.ids(condition.getField()), matches[i], size)
+                        : block.select(block.values(condition.getField()), condition.getMin(), condition.getMax(), size);
+            }
+            if (total != null) {
+                total.add(block.durations, block.selection, size);
+                continue;
+            }
+            for (int i = 0; i < size; ++i) {
+                int index = block.selection[i];
+                long key = 0;
+                for (int j = 0; j < radix.length; ++j) {
+                    key = key * radix[j] + block.id(groupBy.get(j), index);
+                }
+                Aggregator aggregator;
+                if (dense != null) {
+                    aggregator = dense[(int) key];
+                    if (aggregator == null) {
+                        aggregator = dense[(int) key] = new Aggregator(histogram);
+                    }
+                } else {
+                    aggregator = sparse.get(key);
+                    if (aggregator == null) {
+                        aggregator = new Aggregator(histogram);
+                        sparse.put(key, aggregator);
+                    }
+                }
+                aggregator.add(block.durations[index]);
+            }
+        }
+        return result(columns, radix, dense, sparse, total);
+    }
+
+    private QueryResult result(RequestColumns columns, long[] radix, Aggregator[] dense, Map<Long, Aggregator> sparse, Aggregator total) {
+        List<String> keyColumns = new ArrayList<>();
+        for (Query.Field field : query.getGroupBy()) {
+            keyColumns.add(field.name().toLowerCase(Locale.ENGLISH));
+        }
+        List<String> valueColumns = new ArrayList<>();
+        for (Query.Aggregate aggregate : query.getAggregates()) {
+            valueColumns.add(aggregate.getLabel());
+        }
+        List<QueryResult.Row> rows = new ArrayList<>();
+        if (total != null) {
+            rows.add(new QueryResult.Row(Collections.<String>emptyList(), values(total)));
+            return new QueryResult(keyColumns, valueColumns, rows);
+        }
+        Map<Long, Aggregator> groups = sparse;
+        if (dense != null) {
+            groups = new HashMap<>();
+            for (int key = 0; key < dense.length; ++key) {
+                if (dense[key] != null) {
+                    groups.put((long) key, dense[key]);
+                }
+            }
+        }
+        for (Map.Entry<Long, Aggregator> group : groups.entrySet()) {
+            String[] keys = new String[radix.length];
+            long key = group.getKey();
+            for (int j = radix.length - 1; j >= 0; --j) {
+                String value = dictionary(columns, query.getGroupBy().get(j)).get((int) (key % radix[j]));
+                keys[j] = value == null ? "" : value;
+                key /= radix[j];
+            }
+            rows.add(new QueryResult.Row(Arrays.asList(keys), values(group.getValue())));
+        }
+        rows.sort(KEY_ORDER);
+        return new QueryResult(keyColumns, valueColumns, rows);
+    }
+
+    private static final Comparator<QueryResult.Row> KEY_ORDER = (a, b) -> {
+        for (int i = 0; i < a.getKeys().size(); ++i) {
+            int result = a.getKeys().get(i).compareTo(b.getKeys().get(i));
+            if (result != 0) {
+                return result;
+            }
+        }
+        return 0;
+    };
+
+    private double[] values(Aggregator aggregator) {
+        double[] values = new double[query.getAggregates().size()];
+        for (int i = 0; i < values.length; ++i) {
+            Query.Aggregate aggregate = query.getAggregates().get(i);
+            if (aggregate.getFunction() == Query.Function.COUNT) {
+                values[i] = aggregator.count;
+            } else if (aggregator.count == 0) {
+                values[i] = Double.NaN;
+            } else {
+                switch (aggregate.getFunction()) {
+                    case MEAN:
+                        values[i] = (double) aggregator.sum / aggregator.count;
+                        break;
+                    case MIN:
+                        values[i] = aggregator.min;
+                        break;
+                    case MAX:
+                        values[i] = aggregator.max;
+                        break;
+                    default:
+                        values[i] = aggregator.histogram.getValueAtPercentile(aggregate.getCentile());
+                }
+            }
+        }
+        return values;
+    }
+
+    private static List<String> dictionary(RequestColumns columns, Query.Field field) {
+        switch (field) {
+            case NAME:
+                return columns.names();
+            case GROUP:
+                return columns.groups();
+            case STATUS:
+                return columns.statuses();
+            default:
+                throw new IllegalArgumentException(field + " has no dictionary");
+        }
+    }
+
+    /** Reusable column arrays of one block of rows, and the selection vector of rows that passed so far. */
+    private static class Block {
+        final int[] selection = new int[BLOCK_ROWS];
+        final int[] startOffsets = new int[BLOCK_ROWS];
+        final int[] durations = new int[BLOCK_ROWS];
+        final int[] nameIds = new int[BLOCK_ROWS];
+        final int[] groupIds = new int[BLOCK_ROWS];
+        final byte[] statusIds = new byte[BLOCK_ROWS];
+        final int[] statusInts = new int[BLOCK_ROWS];
+
+        void load(RequestColumns columns, int row, int length, boolean[] used) {
+            if (used[Query.Field.TIME.ordinal()]) {
+                columns.getStartOffsets(row, startOffsets, length);
+            }
+            if (used[Query.Field.DURATION.ordinal()]) {
+                columns.getDurations(row, durations, length);
+            }
+            if (used[Query.Field.NAME.ordinal()]) {
+                columns.getNameIds(row, nameIds, length);
+            }
+            if (used[Query.Field.GROUP.ordinal()]) {
+                columns.getGroupIds(row, groupIds, length);
+            }
+            if (used[Query.Field.STATUS.ordinal()]) {
+                columns.getStatusIds(row, statusIds, length);
+                for (int i = 0; i < length; ++i) {
+                    statusInts[i] = statusIds[i];
+                }
+            }
+        }
+
+        int[] ids(Query.Field field) {
+            switch (field) {
+                case NAME:
+                    return nameIds;
+                case GROUP:
+                    return groupIds;
+                default:
+                    return statusInts;
+            }
+        }
+
+        int[] values(Query.Field field) {
+            return field == Query.Field.TIME ? startOffsets : durations;
+        }
+
+        int id(Query.Field field, int index) {
+            return ids(field)[index];
+        }
+
+        int select(int[] ids, boolean[] matches, int size) {
+            int selected = 0;
+            for (int i = 0; i < size; ++i) {
+                int index = selection[i];
+                if (matches[ids[index]]) {
+                    selection[selected++] = index;
+                }
+            }
+            return selected;
+        }
+
+        int select(int[] values, long min, long max, int size) {
+            int selected = 0;
+            for (int i = 0; i < size; ++i) {
+                int index = selection[i];
+                long value = values[index];
+                if (value >= min && value < max) {
+                    selection[selected++] = index;
+                }
+            }
+            return selected;
+        }
+    }
+
+    private static class Aggregator {
+        final Histogram histogram;
+        long count;
+        long sum;
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+
+        Aggregator(boolean histogram) {
+            this.histogram = histogram ? new Histogram(ResponseTimeStatistics.DEFAULT_HIGHEST_TRACKABLE_VALUE, ResponseTimeStatistics.DEFAULT_SIGNIFICANT_DIGITS) : null;
+        }
+
+        void add(int duration) {
+            ++count;
+            sum += duration;
+            min = Math.min(min, duration);
+            max = Math.max(max, duration);
+            if (histogram != null) {
+                histogram.recordValue(Math.max(0, Math.min(duration, histogram.getHighestTrackableValue())));
+            }
+        }
+
+        void add(int[] durations, int[] selection, int size) {
+            for (int i = 0; i < size; ++i) {
+                add(durations[selection[i]]);
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package org.jboss.performance.parser.query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable result of a {@link Query}: one row per group, ordered by the group values, or a single row without
+ * GROUP BY.
+ */
+public class QueryResult {
+
+    public static class Row {
+        private final List<String> keys;
+        private final double[] values;
+
+        public Row(List<String> keys, double[] values) {
+            this.keys = Collections.unmodifiableList(new ArrayList<>(keys));
+            this.values = values.clone();
+        }
+
+        /** @return values of the GROUP BY columns, in their order */
+        public List<String> getKeys() {
+            return keys;
+        }
+
+        /** @return the aggregate at the given index, NaN for empty groups */
+        public double getValue(int index) {
+            return values[index];
+        }
+    }
+
+    private final List<String> keyColumns;
+    private final List<String> valueColumns;
+    private final List<Row> rows;
+
+    public QueryResult(List<String> keyColumns, List<String> valueColumns, List<Row> rows) {
+        this.keyColumns = Collections.unmodifiableList(new ArrayList<>(keyColumns));
+        this.valueColumns = Collections.unmodifiableList(new ArrayList<>(valueColumns));
+        this.rows = Collections.unmodifiableList(new ArrayList<>(rows));
+    }
+
+    public List<String> getKeyColumns() {
+        return keyColumns;
+    }
+
+    public List<String> getValueColumns() {
+        return valueColumns;
+    }
+
+    public List<Row> getRows() {
+        return rows;
+    }
+}
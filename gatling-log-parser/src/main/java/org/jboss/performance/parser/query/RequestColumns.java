@@ -0,0 +1,33 @@
+package org.jboss.performance.parser.query;
+
+import java.util.List;
+
+/**
+ * REQUEST rows of a log as primitive columns, read in blocks by the {@link QueryEngine}.
+ * <p>
+ * Request start is stored as an offset in ms from the RUN start time, name, group and status as ids into their
+ * dictionaries.
+ */
+public interface RequestColumns {
+
+    /** RUN start time, epoch ms; request starts are relative to it. */
+    long getRunStart();
+
+    int rows();
+
+    List<String> names();
+
+    List<String> groups();
+
+    List<String> statuses();
+
+    void getStartOffsets(int row, int[] destination, int length);
+
+    void getDurations(int row, int[] destination, int length);
+
+    void getNameIds(int row, int[] destination, int length);
+
+    void getGroupIds(int row, int[] destination, int length);
+
+    void getStatusIds(int row, byte[] destination, int length);
+}
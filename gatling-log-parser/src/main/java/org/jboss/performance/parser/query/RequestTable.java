@@ -0,0 +1,194 @@
+package org.jboss.performance.parser.query;
+
+import org.jboss.performance.parser.consumer.RequestSink;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link RequestColumns} held in memory, for logs without a columnar cache. Filled by a {@link Builder} while the
+ * text log is parsed.
+ */
+public class RequestTable implements RequestColumns {
+
+    private final long runStart;
+    private final int rows;
+    private final int[] startOffsets;
+    private final int[] durations;
+    private final int[] nameIds;
+    private final int[] groupIds;
+    private final byte[] statusIds;
+    private final List<String> names;
+    private final List<String> groups;
+    private final List<String> statuses;
+
+    private RequestTable(Builder builder) {
+        this.runStart = builder.runStart;
+        this.rows = builder.rows;
+        this.startOffsets = builder.startOffsets;
+        this.durations = builder.durations;
+        this.nameIds = builder.nameIds;
+        this.groupIds = builder.groupIds;
+        this.statusIds = builder.statusIds;
+        this.names = Collections.unmodifiableList(builder.names.values);
+        this.groups = Collections.unmodifiableList(builder.groups.values);
+        this.statuses = Collections.unmodifiableList(builder.statuses.values);
+    }
+
+    @Override
+    public long getRunStart() {
+        return runStart;
+    }
+
+    @Override
+    public int rows() {
+        return rows;
+    }
+
+    @Override
+    public List<String> names() {
+        return names;
+    }
+
+    @Override
+    public List<String> groups() {
+        return groups;
+    }
+
+    @Override
+    public List<String> statuses() {
+        return statuses;
+    }
+
+    @Override
+    public void getStartOffsets(int row, int[] destination, int length) {
+        System.arraycopy(startOffsets, row, destination, 0, length);
+    }
+
+    @Override
+    public void getDurations(int row, int[] destination, int length) {
+        System.arraycopy(durations, row, destination, 0, length);
+    }
+
+    @Override
+    public void getNameIds(int row, int[] destination, int length) {
+        System.arraycopy(nameIds, row, destination, 0, length);
+    }
+
+    @Override
+    public void getGroupIds(int row, int[] destination, int length) {
+        System.arraycopy(groupIds, row, destination, 0, length);
+    }
+
+    @Override
+    public void getStatusIds(int row, byte[] destination, int length) {
+        System.arraycopy(statusIds, row, destination, 0, length);
+    }
+
+    /**
+     * Per-thread accumulator of rows. Every builder has its own dictionaries; {@link #combine(Builder)} appends the
+     * rows of another builder, translating its ids, and must be called in file order.
+     */
+    public static class Builder implements RequestSink {
+        private final long runStart;
+        private final Ids names = new Ids();
+        private final Ids groups = new Ids();
+        private final Ids statuses = new Ids();
+        private int rows;
+        private int[] startOffsets = new int[1024];
+        private int[] durations = new int[1024];
+        private int[] nameIds = new int[1024];
+        private int[] groupIds = new int[1024];
+        private byte[] statusIds = new byte[1024];
+
+        public Builder(long runStart) {
+            this.runStart = runStart;
+        }
+
+        @Override
+        public void accept(long start, long end, String group, String name, String status) {
+            long offset = start - runStart;
+            long duration = end - start;
+            if (offset != (int) offset || duration != (int) duration) {
+                throw new IllegalStateException("Request at " + start + " does not fit an int column");
+            }
+            add((int) offset, (int) duration, names.id(name), groups.id(group), statusId(statuses.id(status)));
+        }
+
+        private static byte statusId(int id) {
+            if (id > Byte.MAX_VALUE) {
+                throw new IllegalStateException("Too many distinct statuses");
+            }
+            return (byte) id;
+        }
+
+        private void add(int offset, int duration, int nameId, int groupId, byte statusId) {
+            if (rows == startOffsets.length) {
+                if (rows == Integer.MAX_VALUE - 8) {
+                    throw new IllegalStateException("Too many requests for an in-memory table");
+                }
+                int capacity = (int) Math.min(Integer.MAX_VALUE - 8, rows * 2L);
+                startOffsets = Arrays.copyOf(startOffsets, capacity);
+                durations = Arrays.copyOf(durations, capacity);
+                nameIds = Arrays.copyOf(nameIds, capacity);
+                groupIds = Arrays.copyOf(groupIds, capacity);
+                statusIds = Arrays.copyOf(statusIds, capacity);
+            }
+            startOffsets[rows] = offset;
+            durations[rows] = duration;
+            nameIds[rows] = nameId;
+            groupIds[rows] = groupId;
+            statusIds[rows] = statusId;
+            ++rows;
+        }
+
+        public void combine(Builder other) {
+            int[] nameMap = names.translate(other.names);
+            int[] groupMap = groups.translate(other.groups);
+            int[] statusMap = statuses.translate(other.statuses);
+            for (int row = 0; row < other.rows; ++row) {
+                add(other.startOffsets[row], other.durations[row], nameMap[other.nameIds[row]], groupMap[other.groupIds[row]],
+                        statusId(statusMap[other.statusIds[row]]));
+            }
+        }
+
+        public RequestTable build() {
+            return new RequestTable(this);
+        }
+    }
+
+    /** Unsynchronized dictionary of one builder; consecutive rows often repeat a value, so the last one is cached. */
+    private static class Ids {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+        private String last;
+        private int lastId = -1;
+
+        int id(String value) {
+            if (lastId >= 0 && value == last) {
+                return lastId;
+            }
+            Integer id = ids.get(value);
+            if (id == null) {
+                id = values.size();
+                ids.put(value, id);
+                values.add(value);
+            }
+            last = value;
+            lastId = id;
+            return id;
+        }
+
+        int[] translate(Ids other) {
+            int[] map = new int[other.values.size()];
+            for (int i = 0; i < map.length; ++i) {
+                map[i] = id(other.values.get(i));
+            }
+            return map;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package org.jboss.performance.parser.reader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Presents a binary log as text lines in the column layout of
+ * {@link org.jboss.performance.parser.format.FileVersionB}, so that everything working on lines (info, timeline,
+ * filter, merge) reads binary logs too:
+ * <pre>
+ * RUN      class, (empty id), description, start, (empty), version
+ * REQUEST  (empty scenario), 0, group, name, start, end, OK|KO, message
+ * USER     scenario, 0, START|END, timestamp, timestamp
+ * GROUP    group, start, end, cumulated response time, OK|KO
+ * ERROR    message, timestamp
+ * </pre>
+ * Binary logs do not record user ids, the scenario of requests or the start of ending users. Lines are encoded
+ * from the dictionary bytes into a reused buffer; tabs and line breaks within values become spaces.
+ */
+public class BinaryLogInputStream extends InputStream {
+
+    private static final byte[] RUN = bytes("RUN");
+    private static final byte[] REQUEST = bytes("REQUEST");
+    private static final byte[] USER = bytes("USER");
+    private static final byte[] GROUP = bytes("GROUP");
+    private static final byte[] ERROR = bytes("ERROR");
+    private static final byte[] START = bytes("START");
+    private static final byte[] END = bytes("END");
+    private static final byte[] OK = bytes("OK");
+    private static final byte[] KO = bytes("KO");
+    private static final byte[] NO_ID = bytes("0");
+
+    private final BinaryLogReader reader;
+    private byte[] line = new byte[1024];
+    private int position;
+    private int limit;
+
+    public BinaryLogInputStream(BinaryLogReader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (position == limit && !encodeNext()) {
+            return -1;
+        }
+        return line[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        int copied = 0;
+        while (copied < length) {
+            if (position == limit && !encodeNext()) {
+                break;
+            }
+            int chunk = Math.min(length - copied, limit - position);
+            System.arraycopy(line, position, buffer, offset + copied, chunk);
+            position += chunk;
+            copied += chunk;
+        }
+        return copied == 0 ? -1 : copied;
+    }
+
+    private boolean encodeNext() throws IOException {
+        if (!reader.next()) {
+            return false;
+        }
+        position = limit = 0;
+        switch (reader.getType()) {
+            case RUN:
+                field(RUN).tab().text(bytes(reader.getSimulationClass())).tab().tab().text(bytes(reader.getDescription())).tab()
+                        .number(reader.getRunStart()).tab().tab().text(bytes(reader.getVersion()));
+                break;
+            case REQUEST:
+                field(REQUEST).tab().tab().field(NO_ID).tab().text(reader.groupBytes()).tab().text(reader.nameBytes()).tab()
+                        .number(reader.getStart()).tab().number(reader.getEnd()).tab().field(reader.isOk() ? OK : KO).tab()
+                        .text(reader.messageBytes());
+                break;
+            case USER:
+                field(USER).tab().text(reader.scenarioBytes()).tab().field(NO_ID).tab().field(reader.isUserStart() ? START : END).tab()
+                        .number(reader.getStart()).tab().number(reader.getEnd());
+                break;
+            case GROUP:
+                field(GROUP).tab().text(reader.groupBytes()).tab().number(reader.getStart()).tab().number(reader.getEnd()).tab()
+                        .number(reader.getCumulatedResponseTime()).tab().field(reader.isOk() ? OK : KO);
+                break;
+            default:
+                field(ERROR).tab().text(reader.messageBytes()).tab().number(reader.getStart());
+        }
+        ensure(1);
+        line[limit++] = '\n';
+        return true;
+    }
+
+    private BinaryLogInputStream field(byte[] value) {
+        ensure(value.length);
+        System.arraycopy(value, 0, line, limit, value.length);
+        limit += value.length;
+        return this;
+    }
+
+    private BinaryLogInputStream text(byte[] value) {
+        ensure(value.length);
+        for (byte b : value) {
+            line[limit++] = b == '\t' || b == '\n' || b == '\r' ? (byte) ' ' : b;
+        }
+        return this;
+    }
+
+    private BinaryLogInputStream tab() {
+        ensure(1);
+        line[limit++] = '\t';
+        return this;
+    }
+
+    private BinaryLogInputStream number(long value) {
+        ensure(20);
+        if (value < 0) {
+            line[limit++] = '-';
+            value = -value;
+        }
+        int start = limit;
+        do {
+            line[limit++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+        for (int i = start, j = limit - 1; i < j; ++i, --j) {
+            byte b = line[i];
+            line[i] = line[j];
+            line[j] = b;
+        }
+        return this;
+    }
+
+    private void ensure(int bytes) {
+        if (limit + bytes > line.length) {
+            line = Arrays.copyOf(line, Math.max(line.length * 2, limit + bytes));
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
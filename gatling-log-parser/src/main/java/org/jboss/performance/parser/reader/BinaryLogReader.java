@@ -0,0 +1,449 @@
+package org.jboss.performance.parser.reader;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Decodes the binary simulation.log written by Gatling 3.13 and later, one record at a time.
+ * <p>
+ * Every record starts with a type byte, followed by big-endian fields:
+ * <pre>
+ * 0 RUN      string version, string simulation class, long start (epoch ms), string description,
+ *            int n + n strings (scenarios, in index order), int n + n int-length-prefixed byte arrays (assertions)
+ * 1 REQUEST  int n + n cached strings (group hierarchy), cached string name, int start, int end, byte ok,
+ *            cached string message
+ * 2 USER     int scenario index, byte start (1) or end (0), int timestamp
+ * 3 GROUP    int n + n cached strings (group hierarchy), int start, int end, int cumulated response time, byte ok
+ * 4 ERROR    cached string message, int timestamp
+ * </pre>
+ * Timestamps other than the RUN start are ms after the RUN start. A string is the internal value of a Java string:
+ * an int byte length, then, unless it is zero, the bytes and a coder byte, 0 for Latin-1 and 1 for UTF-16 in the
+ * byte order of the writing JVM, which is little-endian on the platforms Gatling runs on. A cached string is an int:
+ * a non-negative value defines the dictionary entry of that index and is followed by the string, a negative value
+ * refers to the entry of the negated index (so entries that are referred to again start at 1). Strings are kept as
+ * UTF-8, which only costs a conversion for those that are not plain ASCII.
+ * <p>
+ * Uncompressed logs are memory-mapped in windows, compressed ones are read through a reused buffer. Strings are
+ * only decoded once per dictionary entry, and only when asked for, so no object is created per record. The values
+ * of the current record are only valid until the next call to {@link #next()}.
+ */
+public class BinaryLogReader implements Closeable {
+
+    public enum RecordType {
+        RUN, REQUEST, USER, GROUP, ERROR
+    }
+
+    /** Byte the first record of every binary log starts with. */
+    public static final int RUN_HEADER = 0;
+
+    private static final long MAPPED_WINDOW = 64 * 1024 * 1024;
+    private static final int STREAM_BUFFER = 64 * 1024;
+
+    private final FileChannel channel;
+    private final InputStream input;
+    private final long size;
+    private ByteBuffer buffer;
+    private long bufferOffset;
+
+    private byte[][] dictionary = new byte[256][];
+    private String[] decoded = new String[256];
+    private byte[][] scenarios = new byte[0][];
+    private String[] scenarioNames = new String[0];
+    private final GroupPath root = new GroupPath(true, "", new byte[0]);
+
+    private RecordType type;
+    private long runStart;
+    private String version;
+    private String simulationClass;
+    private String description;
+    private GroupPath group;
+    private int name;
+    private int scenario;
+    private int message;
+    private long start;
+    private long end;
+    private int cumulatedResponseTime;
+    private boolean flag;
+
+    public BinaryLogReader(String file) throws IOException {
+        if (Compression.detect(file) == Compression.NONE) {
+            this.channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ);
+            this.input = null;
+            this.size = channel.size();
+            this.buffer = ByteBuffer.allocate(0);
+        } else {
+            this.channel = null;
+            this.input = Compression.open(file, true);
+            this.size = -1;
+            this.buffer = ByteBuffer.allocate(STREAM_BUFFER);
+            buffer.flip();
+        }
+    }
+
+    /**
+     * @return {@code true} if the file starts like a binary log: a RUN record with a short version string
+     */
+    public static boolean detect(String file) throws IOException {
+        byte[] header = new byte[5];
+        int length = 0;
+        try (InputStream input = Compression.open(file, false)) {
+            int read;
+            while (length < header.length && (read = input.read(header, length, header.length - length)) > 0) {
+                length += read;
+            }
+        }
+        if (length < header.length || header[0] != RUN_HEADER) {
+            return false;
+        }
+        int versionLength = ByteBuffer.wrap(header, 1, 4).getInt();
+        return versionLength > 0 && versionLength < 256;
+    }
+
+    /**
+     * Advances to the next record.
+     *
+     * @return {@code false} at the end of the log
+     * @throws EOFException if the log ends within a record
+     */
+    public boolean next() throws IOException {
+        if (!fill(1)) {
+            return false;
+        }
+        int header = buffer.get();
+        switch (header) {
+            case 0:
+                type = RecordType.RUN;
+                version = readString();
+                simulationClass = readString();
+                runStart = readLong();
+                description = readString();
+                scenarios = new byte[readCount()][];
+                scenarioNames = new String[scenarios.length];
+                for (int i = 0; i < scenarios.length; ++i) {
+                    scenarios[i] = readStringBytes();
+                    scenarioNames[i] = new String(scenarios[i], StandardCharsets.UTF_8);
+                }
+                for (int i = readInt(); i > 0; --i) {
+                    skip(readInt());
+                }
+                start = end = runStart;
+                break;
+            case 1:
+                type = RecordType.REQUEST;
+                group = readGroups();
+                name = readCachedString();
+                start = runStart + readInt();
+                end = runStart + readInt();
+                flag = readByte() != 0;
+                message = readCachedString();
+                break;
+            case 2:
+                type = RecordType.USER;
+                scenario = readInt();
+                if (scenario < 0 || scenario >= scenarios.length) {
+                    throw new IOException("Undefined scenario " + scenario + " at offset " + position());
+                }
+                flag = readByte() != 0;
+                start = end = runStart + readInt();
+                break;
+            case 3:
+                type = RecordType.GROUP;
+                group = readGroups();
+                start = runStart + readInt();
+                end = runStart + readInt();
+                cumulatedResponseTime = readInt();
+                flag = readByte() != 0;
+                break;
+            case 4:
+                type = RecordType.ERROR;
+                message = readCachedString();
+                start = end = runStart + readInt();
+                break;
+            default:
+                throw new IOException("Unknown record type " + header + " at offset " + (position() - 1));
+        }
+        return true;
+    }
+
+    public RecordType getType() {
+        return type;
+    }
+
+    /** @return RUN start, epoch ms */
+    public long getRunStart() {
+        return runStart;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public String getSimulationClass() {
+        return simulationClass;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /** @return request or group start, or the timestamp of other records, epoch ms */
+    public long getStart() {
+        return start;
+    }
+
+    /** @return request or group end, or the timestamp of other records, epoch ms */
+    public long getEnd() {
+        return end;
+    }
+
+    /** @return status of REQUEST and GROUP records */
+    public boolean isOk() {
+        return flag;
+    }
+
+    /** @return {@code true} for the USER record of a starting user */
+    public boolean isUserStart() {
+        return flag;
+    }
+
+    public int getCumulatedResponseTime() {
+        return cumulatedResponseTime;
+    }
+
+    /** @return group hierarchy of REQUEST and GROUP records joined by commas, empty outside of groups */
+    public String getGroup() {
+        return group.path;
+    }
+
+    public String getName() {
+        return string(name);
+    }
+
+    public String getScenario() {
+        return scenarioNames[scenario];
+    }
+
+    public String getMessage() {
+        return string(message);
+    }
+
+    /** @return bytes read so far */
+    public long position() {
+        return bufferOffset + buffer.position();
+    }
+
+    byte[] groupBytes() {
+        return group.bytes;
+    }
+
+    byte[] nameBytes() {
+        return dictionary[name];
+    }
+
+    byte[] scenarioBytes() {
+        return scenarios[scenario];
+    }
+
+    byte[] messageBytes() {
+        return dictionary[message];
+    }
+
+    private String string(int index) {
+        String value = decoded[index];
+        if (value == null) {
+            value = decoded[index] = new String(dictionary[index], StandardCharsets.UTF_8);
+        }
+        return value;
+    }
+
+    private GroupPath readGroups() throws IOException {
+        GroupPath path = root;
+        for (int i = readInt(); i > 0; --i) {
+            path = path.child(readCachedString());
+        }
+        return path;
+    }
+
+    private int readCachedString() throws IOException {
+        int index = readInt();
+        if (index < 0) {
+            index = -index;
+            if (index >= dictionary.length || dictionary[index] == null) {
+                throw new IOException("Undefined string " + index + " at offset " + position());
+            }
+            return index;
+        }
+        if (index >= dictionary.length) {
+            int length = Math.max(dictionary.length * 2, index + 1);
+            dictionary = Arrays.copyOf(dictionary, length);
+            decoded = Arrays.copyOf(decoded, length);
+        }
+        dictionary[index] = readStringBytes();
+        decoded[index] = null;
+        return index;
+    }
+
+    private String readString() throws IOException {
+        return new String(readStringBytes(), StandardCharsets.UTF_8);
+    }
+
+    /** @return the UTF-8 bytes of a string */
+    private byte[] readStringBytes() throws IOException {
+        int length = readInt();
+        if (length < 0) {
+            throw new IOException("Negative string length at offset " + position());
+        }
+        if (length == 0) {
+            return new byte[0];
+        }
+        byte[] bytes = readBytes(length);
+        byte coder = readByte();
+        switch (coder) {
+            case 0:
+                for (byte b : bytes) {
+                    if (b < 0) {
+                        return new String(bytes, StandardCharsets.ISO_8859_1).getBytes(StandardCharsets.UTF_8);
+                    }
+                }
+                // ASCII is already UTF-8
+                return bytes;
+            case 1:
+                return new String(bytes, StandardCharsets.UTF_16LE).getBytes(StandardCharsets.UTF_8);
+            default:
+                throw new IOException("Unknown string coder " + coder + " at offset " + (position() - 1));
+        }
+    }
+
+    private int readCount() throws IOException {
+        int count = readInt();
+        if (count < 0) {
+            throw new IOException("Negative count at offset " + position());
+        }
+        return count;
+    }
+
+    private byte[] readBytes(int length) throws IOException {
+        byte[] bytes = new byte[length];
+        int read = 0;
+        while (read < length) {
+            require(Math.min(length - read, STREAM_BUFFER));
+            int chunk = Math.min(length - read, buffer.remaining());
+            buffer.get(bytes, read, chunk);
+            read += chunk;
+        }
+        return bytes;
+    }
+
+    private void skip(int length) throws IOException {
+        while (length > 0) {
+            require(Math.min(length, STREAM_BUFFER));
+            int chunk = Math.min(length, buffer.remaining());
+            buffer.position(buffer.position() + chunk);
+            length -= chunk;
+        }
+    }
+
+    private byte readByte() throws IOException {
+        require(1);
+        return buffer.get();
+    }
+
+    private int readInt() throws IOException {
+        require(Integer.BYTES);
+        return buffer.getInt();
+    }
+
+    private long readLong() throws IOException {
+        require(Long.BYTES);
+        return buffer.getLong();
+    }
+
+    private void require(int bytes) throws IOException {
+        if (!fill(bytes)) {
+            throw new EOFException("Log ends within a record at offset " + position());
+        }
+    }
+
+    /**
+     * Makes at least {@code bytes} bytes available in the buffer.
+     *
+     * @return {@code false} if the log ends before
+     */
+    private boolean fill(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return true;
+        }
+        if (channel != null) {
+            long position = position();
+            long length = Math.min(Math.max(MAPPED_WINDOW, bytes), size - position);
+            if (length < bytes) {
+                return false;
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            bufferOffset = position;
+            return true;
+        }
+        long position = position();
+        if (buffer.capacity() < bytes) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(bytes, buffer.capacity() * 2));
+            larger.put(buffer);
+            buffer = larger;
+        } else {
+            buffer.compact();
+        }
+        while (buffer.position() < bytes) {
+            int read = input.read(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            if (read < 0) {
+                break;
+            }
+            buffer.position(buffer.position() + read);
+        }
+        buffer.flip();
+        bufferOffset = position;
+        return buffer.remaining() >= bytes;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        } else {
+            input.close();
+        }
+    }
+
+    /** Node of the tree of group hierarchies seen so far, keyed by dictionary index. */
+    private class GroupPath {
+        final boolean isRoot;
+        final String path;
+        final byte[] bytes;
+        GroupPath[] children = new GroupPath[0];
+
+        GroupPath(boolean isRoot, String path, byte[] bytes) {
+            this.isRoot = isRoot;
+            this.path = path;
+            this.bytes = bytes;
+        }
+
+        GroupPath child(int index) {
+            if (index >= children.length) {
+                children = Arrays.copyOf(children, Math.max(index + 1, children.length * 2));
+            }
+            GroupPath child = children[index];
+            if (child == null) {
+                String name = string(index);
+                String childPath = isRoot ? name : path + "," + name;
+                child = children[index] = new GroupPath(false, childPath, childPath.getBytes(StandardCharsets.UTF_8));
+            }
+            return child;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package org.jboss.performance.parser.reader;
+
+import io.airlift.compress.zstd.ZstdInputStream;
+import io.airlift.compress.zstd.ZstdOutputStream;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compression of simulation log files, detected on input from the leading magic bytes.
+ */
+public enum Compression {
+    NONE {
+        @Override
+        public InputStream decompress(InputStream input) {
+            return input;
+        }
+
+        @Override
+        public OutputStream compress(OutputStream output) {
+            return output;
+        }
+    },
+    GZIP(0x1f, 0x8b) {
+        @Override
+        public InputStream decompress(InputStream input) throws IOException {
+            return new GZIPInputStream(input, BUFFER_SIZE);
+        }
+
+        @Override
+        public OutputStream compress(OutputStream output) throws IOException {
+            return new GZIPOutputStream(output, BUFFER_SIZE);
+        }
+    },
+    ZSTD(0x28, 0xb5, 0x2f, 0xfd) {
+        @Override
+        public InputStream decompress(InputStream input) {
+            return new ZstdInputStream(input);
+        }
+
+        @Override
+        public OutputStream compress(OutputStream output) throws IOException {
+            return new ZstdOutputStream(output);
+        }
+    };
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAGIC_LENGTH = 4;
+
+    private final int[] magic;
+
+    Compression(int... magic) {
+        this.magic = magic;
+    }
+
+    public abstract InputStream decompress(InputStream input) throws IOException;
+
+    /** Wraps the stream; closing the returned stream finishes the compressed format and closes {@code output}. */
+    public abstract OutputStream compress(OutputStream output) throws IOException;
+
+    private boolean matches(byte[] header, int length) {
+        if (magic.length == 0 || length < magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; ++i) {
+            if ((header[i] & 0xFF) != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static Compression detect(String file) throws IOException {
+        byte[] header = new byte[MAGIC_LENGTH];
+        int length = 0;
+        try (InputStream input = new FileInputStream(file)) {
+            int read;
+            while (length < header.length && (read = input.read(header, length, header.length - length)) > 0) {
+                length += read;
+            }
+        }
+        for (Compression compression : values()) {
+            if (compression.matches(header, length)) {
+                return compression;
+            }
+        }
+        return NONE;
+    }
+
+    /** Guesses the compression from the file extension: {@code .gz} or {@code .zst}. */
+    public static Compression forFileName(String file) {
+        String lower = file.toLowerCase(Locale.ENGLISH);
+        if (lower.endsWith(".gz")) {
+            return GZIP;
+        } else if (lower.endsWith(".zst")) {
+            return ZSTD;
+        }
+        return NONE;
+    }
+
+    public static Compression forName(String name) {
+        return valueOf(name.toUpperCase(Locale.ENGLISH));
+    }
+
+    /**
+     * Opens the file, decompressing it if needed. With {@code pipelined} set, decompression runs on a separate
+     * thread that stays a few blocks ahead of the reader.
+     */
+    public static InputStream open(String file, boolean pipelined) throws IOException {
+        Compression compression = detect(file);
+        InputStream input = new FileInputStream(file);
+        if (compression == NONE) {
+            return input;
+        }
+        InputStream decompressed = compression.decompress(input);
+        return pipelined ? new PrefetchInputStream(decompressed) : decompressed;
+    }
+}
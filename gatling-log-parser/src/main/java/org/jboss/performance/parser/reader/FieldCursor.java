@@ -0,0 +1,187 @@
+package org.jboss.performance.parser.reader;
+
+import org.jboss.performance.parser.format.FileFormat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Separator-delimited view over a single line held in a byte buffer.
+ * <p>
+ * Fields are located lazily, only as far as the highest field index requested, and are read in place:
+ * comparisons and numeric parsing work directly on the bytes, so looking at the type and timestamp
+ * columns of a line allocates nothing. The cursor is reused by calling {@link #reset(byte[], int, int)}
+ * for every line.
+ */
+public class FieldCursor {
+
+    private final byte separator;
+
+    private byte[] buffer;
+    private int end;
+    private int[] fieldStarts = new int[16];
+    private int[] fieldEnds = new int[16];
+    private int located;
+    private boolean complete;
+
+    public FieldCursor(FileFormat fileFormat) {
+        this((byte) fileFormat.getSEPARATOR().charAt(0));
+    }
+
+    private FieldCursor(byte separator) {
+        this.separator = separator;
+    }
+
+    public FieldCursor reset(byte[] buffer, int start, int end) {
+        this.buffer = buffer;
+        this.end = end;
+        this.fieldStarts[0] = start;
+        this.located = 0;
+        this.complete = false;
+        return this;
+    }
+
+    public FieldCursor reset(LineReader reader) {
+        return reset(reader.buffer(), reader.lineStart(), reader.lineEnd());
+    }
+
+    private boolean locate(int index) {
+        while (located <= index) {
+            if (complete) {
+                return false;
+            }
+            if (located == fieldStarts.length) {
+                fieldStarts = Arrays.copyOf(fieldStarts, located * 2);
+                fieldEnds = Arrays.copyOf(fieldEnds, located * 2);
+            }
+            int start = located == 0 ? fieldStarts[0] : fieldEnds[located - 1] + 1;
+            int i = start;
+            while (i < end && buffer[i] != separator) {
+                ++i;
+            }
+            fieldStarts[located] = start;
+            fieldEnds[located] = i;
+            complete = i >= end;
+            ++located;
+        }
+        return true;
+    }
+
+    public boolean hasField(int index) {
+        return locate(index);
+    }
+
+    /** Number of fields on the line; this locates every field. */
+    public int fieldCount() {
+        locate(Integer.MAX_VALUE - 1);
+        return located;
+    }
+
+    public byte[] buffer() {
+        return buffer;
+    }
+
+    public int fieldStart(int index) {
+        return locate(index) ? fieldStarts[index] : -1;
+    }
+
+    public int fieldEnd(int index) {
+        return locate(index) ? fieldEnds[index] : -1;
+    }
+
+    public int lineStart() {
+        return fieldStarts[0];
+    }
+
+    public int lineEnd() {
+        return end;
+    }
+
+    /**
+     * Compares the field with an ASCII string without decoding it.
+     *
+     * @return {@code false} when the field does not exist or differs
+     */
+    public boolean fieldEquals(int index, String ascii) {
+        if (!locate(index)) {
+            return false;
+        }
+        int start = fieldStarts[index];
+        int length = ascii.length();
+        if (fieldEnds[index] - start != length) {
+            return false;
+        }
+        for (int i = 0; i < length; ++i) {
+            if (buffer[start + i] != ascii.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses a decimal field in place.
+     *
+     * @throws NumberFormatException when the field is missing, empty or not a number
+     */
+    public long longField(int index) {
+        if (!locate(index)) {
+            throw new NumberFormatException("Line has no field " + index);
+        }
+        int i = fieldStarts[index];
+        int fieldEnd = fieldEnds[index];
+        boolean negative = i < fieldEnd && buffer[i] == '-';
+        if (negative) {
+            ++i;
+        }
+        if (i == fieldEnd) {
+            throw new NumberFormatException("Empty field " + index);
+        }
+        long value = 0;
+        for (; i < fieldEnd; ++i) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("For input string: \"" + field(index) + "\"");
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /** Decodes the field; allocates, so use only for columns that are actually needed as text. */
+    public String field(int index) {
+        if (!locate(index)) {
+            return null;
+        }
+        return new String(buffer, fieldStarts[index], fieldEnds[index] - fieldStarts[index], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns a cursor over a copy of this line with one field replaced; this cursor is left unchanged.
+     *
+     * @throws IllegalArgumentException when the line does not have the field
+     */
+    public FieldCursor replace(int index, String value) {
+        if (!locate(index)) {
+            throw new IllegalArgumentException("Line has no field " + index);
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int start = lineStart();
+        int prefix = fieldStarts[index] - start;
+        int suffix = end - fieldEnds[index];
+        byte[] line = new byte[prefix + bytes.length + suffix];
+        System.arraycopy(buffer, start, line, 0, prefix);
+        System.arraycopy(bytes, 0, line, prefix, bytes.length);
+        System.arraycopy(buffer, fieldEnds[index], line, prefix + bytes.length, suffix);
+        return new FieldCursor(separator).reset(line, 0, line.length);
+    }
+
+    /** Decodes all fields, including trailing empty ones. */
+    public String[] columns() {
+        String[] columns = new String[fieldCount()];
+        for (int i = 0; i < columns.length; ++i) {
+            columns[i] = field(i);
+        }
+        return columns;
+    }
+}
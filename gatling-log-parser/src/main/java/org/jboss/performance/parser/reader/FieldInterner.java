@@ -0,0 +1,88 @@
+package org.jboss.performance.parser.reader;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Maps field contents to canonical Strings without decoding the field again once it has been seen.
+ * <p>
+ * Meant for low-cardinality columns such as request names or statuses: a lookup hashes and compares the raw bytes,
+ * and only the first occurrence of a value allocates. Not thread-safe; use one instance per parsing thread.
+ */
+public class FieldInterner {
+
+    private byte[][] keys = new byte[64][];
+    private int[] hashes = new int[64];
+    private String[] values = new String[64];
+    private int size;
+
+    /**
+     * @return the field as a String, or {@code null} when the line does not have the field
+     */
+    public String intern(FieldCursor cursor, int field) {
+        int start = cursor.fieldStart(field);
+        if (start < 0) {
+            return null;
+        }
+        int end = cursor.fieldEnd(field);
+        byte[] buffer = cursor.buffer();
+        int hash = 1;
+        for (int i = start; i < end; ++i) {
+            hash = 31 * hash + buffer[i];
+        }
+        int mask = values.length - 1;
+        int index = (hash ^ (hash >>> 16)) & mask;
+        while (values[index] != null) {
+            if (hashes[index] == hash && matches(keys[index], buffer, start, end)) {
+                return values[index];
+            }
+            index = (index + 1) & mask;
+        }
+        byte[] key = new byte[end - start];
+        System.arraycopy(buffer, start, key, 0, key.length);
+        String value = new String(key, StandardCharsets.UTF_8);
+        keys[index] = key;
+        hashes[index] = hash;
+        values[index] = value;
+        if (++size * 2 > values.length) {
+            rehash();
+        }
+        return value;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private static boolean matches(byte[] key, byte[] buffer, int start, int end) {
+        if (key.length != end - start) {
+            return false;
+        }
+        for (int i = 0; i < key.length; ++i) {
+            if (key[i] != buffer[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void rehash() {
+        byte[][] oldKeys = keys;
+        int[] oldHashes = hashes;
+        String[] oldValues = values;
+        keys = new byte[oldKeys.length * 2][];
+        hashes = new int[oldKeys.length * 2];
+        values = new String[oldKeys.length * 2];
+        int mask = values.length - 1;
+        for (int i = 0; i < oldValues.length; ++i) {
+            if (oldValues[i] != null) {
+                int index = (oldHashes[i] ^ (oldHashes[i] >>> 16)) & mask;
+                while (values[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                hashes[index] = oldHashes[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+}
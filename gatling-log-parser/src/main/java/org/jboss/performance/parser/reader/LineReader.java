@@ -0,0 +1,111 @@
+package org.jboss.performance.parser.reader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads newline-terminated lines from a stream into a single reused byte buffer.
+ * <p>
+ * No object is allocated per line: after {@link #next()} returns {@code true} the current line
+ * occupies {@code buffer()[lineStart() .. lineEnd())}, without the line terminator. The contents
+ * are only valid until the next call to {@link #next()}.
+ */
+public class LineReader implements Closeable {
+
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final InputStream input;
+    private byte[] buffer;
+    private int position;
+    private int limit;
+    private int scan;
+    private int lineStart;
+    private int lineEnd;
+    private boolean eof;
+    private long consumed;
+
+    public LineReader(InputStream input) {
+        this(input, DEFAULT_BUFFER_SIZE);
+    }
+
+    public LineReader(InputStream input, int bufferSize) {
+        this.input = input;
+        this.buffer = new byte[bufferSize];
+    }
+
+    /**
+     * Advances to the next line.
+     *
+     * @return {@code false} when the end of the stream has been reached
+     */
+    public boolean next() throws IOException {
+        for (; ; ) {
+            for (int i = scan; i < limit; ++i) {
+                if (buffer[i] == '\n') {
+                    setLine(position, i);
+                    position = i + 1;
+                    scan = position;
+                    return true;
+                }
+            }
+            scan = limit;
+            if (eof) {
+                if (position < limit) {
+                    setLine(position, limit);
+                    position = limit;
+                    return true;
+                }
+                return false;
+            }
+            fill();
+        }
+    }
+
+    private void setLine(int start, int end) {
+        lineStart = start;
+        lineEnd = end > start && buffer[end - 1] == '\r' ? end - 1 : end;
+    }
+
+    private void fill() throws IOException {
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            scan -= position;
+            consumed += position;
+            position = 0;
+        } else if (limit == buffer.length) {
+            byte[] larger = new byte[buffer.length * 2];
+            System.arraycopy(buffer, 0, larger, 0, limit);
+            buffer = larger;
+        }
+        int read = input.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            eof = true;
+        } else {
+            limit += read;
+        }
+    }
+
+    public byte[] buffer() {
+        return buffer;
+    }
+
+    public int lineStart() {
+        return lineStart;
+    }
+
+    public int lineEnd() {
+        return lineEnd;
+    }
+
+    /** Offset of the current line from the start of the stream. */
+    public long lineOffset() {
+        return consumed + lineStart;
+    }
+
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }
+}
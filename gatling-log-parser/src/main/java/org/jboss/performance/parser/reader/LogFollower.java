@@ -0,0 +1,88 @@
+package org.jboss.performance.parser.reader;
+
+import org.jboss.performance.parser.format.FileFormat;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Follows a log that is still being written: every {@link #poll(Consumer)} reads only the bytes appended since the
+ * previous one and feeds the complete lines among them to the consumer. A trailing line without its newline yet is
+ * kept until the rest of it arrives. If the file shrinks it is assumed to have been replaced and is read again from
+ * the start, after telling the {@linkplain #setRewindListener(Runnable) rewind listener} so that the caller can drop
+ * what it derived from the old content.
+ */
+public class LogFollower implements Closeable {
+
+    private final FileChannel channel;
+    private final FieldCursor cursor;
+    private byte[] buffer = new byte[64 * 1024];
+    private int limit;
+    private long position;
+    private Runnable rewindListener = () -> { };
+
+    public LogFollower(String file, FileFormat fileFormat) throws IOException {
+        this.channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ);
+        this.cursor = new FieldCursor(fileFormat);
+    }
+
+    /**
+     * Sets what to run when the file shrank, before its new content is passed to the consumer of {@link #poll}.
+     */
+    public LogFollower setRewindListener(Runnable rewindListener) {
+        this.rewindListener = rewindListener;
+        return this;
+    }
+
+    /**
+     * @return number of new bytes read
+     */
+    public long poll(Consumer<FieldCursor> consumer) throws IOException {
+        long size = channel.size();
+        if (size < position) {
+            position = 0;
+            limit = 0;
+            rewindListener.run();
+        }
+        long read = 0;
+        while (position < size) {
+            if (limit == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            int count = channel.read(ByteBuffer.wrap(buffer, limit, buffer.length - limit), position);
+            if (count <= 0) {
+                break;
+            }
+            position += count;
+            read += count;
+            int lineStart = 0;
+            for (int i = limit; i < limit + count; ++i) {
+                if (buffer[i] == '\n') {
+                    int lineEnd = i > lineStart && buffer[i - 1] == '\r' ? i - 1 : i;
+                    consumer.accept(cursor.reset(buffer, lineStart, lineEnd));
+                    lineStart = i + 1;
+                }
+            }
+            limit += count;
+            System.arraycopy(buffer, lineStart, buffer, 0, limit - lineStart);
+            limit -= lineStart;
+        }
+        return read;
+    }
+
+    /** Offset in the file up to which bytes have been read. */
+    public long getPosition() {
+        return position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
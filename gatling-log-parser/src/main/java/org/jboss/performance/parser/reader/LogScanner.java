@@ -0,0 +1,345 @@
+package org.jboss.performance.parser.reader;
+
+import org.jboss.performance.parser.format.FileFormat;
+import org.jboss.performance.parser.metrics.MeteredInputStream;
+import org.jboss.performance.parser.metrics.ParserMetrics;
+import org.jboss.performance.parser.metrics.Stage;
+import org.jboss.performance.parser.metrics.StageTimer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Feeds every line of a simulation log to an accumulator, in the manner of {@code Stream.collect}.
+ * <p>
+ * With parallelism of 1 the file is streamed on the calling thread. Otherwise the file is memory-mapped and
+ * split into newline-aligned chunks that are parsed concurrently, each into its own accumulator obtained from the
+ * supplier; the accumulators are then combined in file order. Compressed files cannot be split and are always
+ * streamed, with decompression running on a separate thread; so are binary logs, whose lines only exist while they
+ * are decoded.
+ */
+public class LogScanner {
+
+    /** Upper bound of a single mapping; also keeps chunks below the 2 GB limit of {@code FileChannel.map}. */
+    public static final long DEFAULT_MAX_CHUNK_SIZE = 256 * 1024 * 1024;
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final String file;
+    private final FileFormat fileFormat;
+    private final int parallelism;
+    private final long maxChunkSize;
+    private ParserMetrics metrics;
+
+    public LogScanner(String file, FileFormat fileFormat, int parallelism) {
+        this(file, fileFormat, parallelism, DEFAULT_MAX_CHUNK_SIZE);
+    }
+
+    public LogScanner(String file, FileFormat fileFormat, int parallelism, long maxChunkSize) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        this.file = file;
+        this.fileFormat = fileFormat;
+        this.parallelism = parallelism;
+        this.maxChunkSize = maxChunkSize;
+    }
+
+    /**
+     * Records bytes and lines read, and the time spent reading and parsing them, of all following scans.
+     */
+    public LogScanner setMetrics(ParserMetrics metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
+    public <A> A scan(Supplier<A> supplier, BiConsumer<A, FieldCursor> accumulator, BiConsumer<A, A> combiner) throws IOException {
+        if (parallelism == 1 || !fileFormat.isText() || Compression.detect(file) != Compression.NONE) {
+            A result = supplier.get();
+            scan(fileFormat.open(file, true), result, accumulator);
+            return result;
+        }
+        try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+            List<long[]> chunks = new ArrayList<>();
+            addChunks(chunks, chunkBoundaries(channel));
+            return scanChunks(channel, chunks, supplier, accumulator, combiner);
+        }
+    }
+
+    /**
+     * Feeds the lines of the given newline-aligned, ascending {@code [start, end)} byte ranges to the accumulator,
+     * skipping the rest of the file. With parallelism of 1 the ranges are streamed with positional reads; otherwise
+     * each range is split into chunks as a whole file would be. Only uncompressed text logs can be read in ranges.
+     */
+    public <A> A scan(List<long[]> ranges, Supplier<A> supplier, BiConsumer<A, FieldCursor> accumulator,
+                      BiConsumer<A, A> combiner) throws IOException {
+        if (!fileFormat.isText() || Compression.detect(file) != Compression.NONE) {
+            throw new IOException("Only uncompressed text logs can be read in ranges: " + file);
+        }
+        if (parallelism == 1) {
+            A result = supplier.get();
+            scan(new RangeInputStream(Paths.get(file), ranges), result, accumulator);
+            return result;
+        }
+        try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+            List<long[]> chunks = new ArrayList<>();
+            for (long[] range : ranges) {
+                addChunks(chunks, chunkBoundaries(channel, range[0], Math.min(range[1], channel.size())));
+            }
+            return scanChunks(channel, chunks, supplier, accumulator, combiner);
+        }
+    }
+
+    private static void addChunks(List<long[]> chunks, long[] boundaries) {
+        for (int i = 0; i < boundaries.length - 1; ++i) {
+            chunks.add(new long[]{boundaries[i], boundaries[i + 1]});
+        }
+    }
+
+    private <A> A scanChunks(FileChannel channel, List<long[]> chunks, Supplier<A> supplier, BiConsumer<A, FieldCursor> accumulator,
+                             BiConsumer<A, A> combiner) throws IOException {
+        if (chunks.isEmpty()) {
+            return supplier.get();
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, chunks.size()), new ScannerThreadFactory());
+        try {
+            List<Future<A>> futures = new ArrayList<>(chunks.size());
+            for (long[] bounds : chunks) {
+                long start = bounds[0];
+                long size = bounds[1] - start;
+                futures.add(executor.submit(() -> {
+                    A chunkResult = supplier.get();
+                    ByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+                    scan(new ByteBufferInputStream(chunk), chunkResult, accumulator);
+                    return chunkResult;
+                }));
+            }
+            return combine(futures, supplier, combiner);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Feeds the lines of {@code count} ranges of {@code rangeSize} bytes, chosen at random among all ranges of the file,
+     * to the accumulator. A line belongs to the range it starts in, so that every line has the same chance to be
+     * sampled whatever its length. The ranges are read with positional reads by up to {@code parallelism} threads, each
+     * range into its own accumulator; the accumulators are then combined in file order. Only uncompressed text logs
+     * can be read at random offsets.
+     */
+    public <A> A sample(long rangeSize, int count, Random random, Supplier<A> supplier, BiConsumer<A, FieldCursor> accumulator,
+                        BiConsumer<A, A> combiner) throws IOException {
+        if (!fileFormat.isText() || Compression.detect(file) != Compression.NONE) {
+            throw new IOException("Only uncompressed text logs can be sampled: " + file);
+        }
+        if (rangeSize <= 0 || count <= 0) {
+            throw new IllegalArgumentException("Range size and count must be positive");
+        }
+        try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+            long size = channel.size();
+            int[] ranges = chooseRanges((int) Math.min(Integer.MAX_VALUE, (size + rangeSize - 1) / rangeSize), count, random);
+            if (ranges.length == 0) {
+                return supplier.get();
+            }
+            ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, ranges.length), new ScannerThreadFactory());
+            try {
+                List<Future<A>> futures = new ArrayList<>(ranges.length);
+                for (int range : ranges) {
+                    futures.add(executor.submit(() -> {
+                        A rangeResult = supplier.get();
+                        ByteBuffer probe = ByteBuffer.allocate(4096);
+                        long start = range * rangeSize;
+                        long end = Math.min(size, start + rangeSize);
+                        start = start == 0 ? 0 : nextLineStart(channel, start - 1, probe);
+                        end = end == size ? size : nextLineStart(channel, end - 1, probe);
+                        if (end - start > Integer.MAX_VALUE) {
+                            throw new IOException("Line at offset " + start + " in " + file + " is too long");
+                        }
+                        // positional reads leave the channel position alone, so ranges can be read concurrently
+                        ByteBuffer lines = ByteBuffer.allocate((int) Math.max(0, end - start));
+                        while (lines.hasRemaining()) {
+                            if (channel.read(lines, start + lines.position()) < 0) {
+                                break;
+                            }
+                        }
+                        lines.flip();
+                        scan(new ByteBufferInputStream(lines), rangeResult, accumulator);
+                        return rangeResult;
+                    }));
+                }
+                return combine(futures, supplier, combiner);
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /** Indexes of {@code count} distinct ranges out of {@code ranges}, in ascending order. */
+    static int[] chooseRanges(int ranges, int count, Random random) {
+        int[] indexes = new int[ranges];
+        for (int i = 0; i < ranges; ++i) {
+            indexes[i] = i;
+        }
+        int chosen = Math.min(count, ranges);
+        // partial Fisher-Yates shuffle
+        for (int i = 0; i < chosen; ++i) {
+            int j = i + random.nextInt(ranges - i);
+            int swap = indexes[i];
+            indexes[i] = indexes[j];
+            indexes[j] = swap;
+        }
+        int[] result = Arrays.copyOf(indexes, chosen);
+        Arrays.sort(result);
+        return result;
+    }
+
+    private <A> A combine(List<Future<A>> futures, Supplier<A> supplier, BiConsumer<A, A> combiner) throws IOException {
+        try {
+            A result = null;
+            for (Future<A> future : futures) {
+                A chunkResult = future.get();
+                if (result == null) {
+                    result = chunkResult;
+                } else {
+                    combiner.accept(result, chunkResult);
+                }
+            }
+            return result == null ? supplier.get() : result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while parsing " + file, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            } else if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException("Failed to parse " + file, e.getCause());
+        }
+    }
+
+    /**
+     * Feeds the complete lines within the last {@code bytes} bytes of the file to the accumulator, sequentially.
+     * A compressed or binary file cannot be read from the end, so all of its lines are fed.
+     *
+     * @return {@code false} when the range already covered the whole file
+     */
+    public <A> boolean scanTail(long bytes, A result, BiConsumer<A, FieldCursor> accumulator) throws IOException {
+        if (!fileFormat.isText() || Compression.detect(file) != Compression.NONE) {
+            scan(fileFormat.open(file, true), result, accumulator);
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long start = Math.max(0, size - bytes);
+            if (start > 0) {
+                start = nextLineStart(channel, start - 1, ByteBuffer.allocate(4096));
+            }
+            ByteBuffer tail = channel.map(FileChannel.MapMode.READ_ONLY, start, size - start);
+            scan(new ByteBufferInputStream(tail), result, accumulator);
+            return start > 0;
+        }
+    }
+
+    private <A> void scan(InputStream input, A result, BiConsumer<A, FieldCursor> accumulator) throws IOException {
+        FieldCursor cursor = new FieldCursor(fileFormat);
+        if (metrics == null) {
+            try (LineReader reader = new LineReader(input)) {
+                while (reader.next()) {
+                    accumulator.accept(result, cursor.reset(reader));
+                }
+            }
+            return;
+        }
+        MeteredInputStream metered = new MeteredInputStream(input, metrics);
+        try (LineReader reader = new LineReader(metered);
+             StageTimer timer = new StageTimer(metrics, Stage.PARSE, metered::getNanos)) {
+            while (reader.next()) {
+                accumulator.accept(result, cursor.reset(reader));
+                timer.line();
+            }
+        }
+    }
+
+    /**
+     * Splits the file into ranges of roughly equal size; every range but the last one ends right after a newline.
+     */
+    long[] chunkBoundaries(FileChannel channel) throws IOException {
+        return chunkBoundaries(channel, 0, channel.size());
+    }
+
+    /**
+     * Splits the newline-aligned range {@code [start, end)} of the file as {@link #chunkBoundaries(FileChannel)}
+     * splits the whole file.
+     */
+    long[] chunkBoundaries(FileChannel channel, long start, long end) throws IOException {
+        long size = end - start;
+        long chunks = Math.max(parallelism * CHUNKS_PER_THREAD, (size + maxChunkSize - 1) / maxChunkSize);
+        long chunkSize = Math.max(1, Math.min(maxChunkSize, (size + chunks - 1) / chunks));
+        List<Long> boundaries = new ArrayList<>();
+        boundaries.add(start);
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        long position = start;
+        while (position < end) {
+            long next = Math.min(end, position + chunkSize);
+            if (next < end) {
+                next = Math.min(end, nextLineStart(channel, next - 1, probe));
+                // a line longer than the chunk size is kept whole, the mapping limit permitting
+                if (next - position > Integer.MAX_VALUE) {
+                    throw new IOException("Line at offset " + position + " in " + file + " is too long");
+                }
+            }
+            boundaries.add(next);
+            position = next;
+        }
+        long[] result = new long[boundaries.size()];
+        for (int i = 0; i < result.length; ++i) {
+            result[i] = boundaries.get(i);
+        }
+        return result;
+    }
+
+    private static long nextLineStart(FileChannel channel, long position, ByteBuffer probe) throws IOException {
+        long size = channel.size();
+        while (position < size) {
+            probe.clear();
+            int read = channel.read(probe, position);
+            if (read < 0) {
+                break;
+            }
+            for (int i = 0; i < read; ++i) {
+                if (probe.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    private static class ScannerThreadFactory implements ThreadFactory {
+        private static final AtomicInteger COUNTER = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "simulation-log-scanner-" + COUNTER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package org.jboss.performance.parser.reader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reads the source stream on a background thread into a small ring of recycled blocks, so that an expensive source
+ * (e.g. inflating a compressed log) overlaps with parsing on the consuming thread. The source is only touched by that
+ * thread, which also closes it; any failure there is handed to the reader as an {@link IOException}.
+ */
+class PrefetchInputStream extends InputStream {
+
+    private static final int BLOCK_SIZE = 256 * 1024;
+    private static final int BLOCKS = 4;
+    private static final AtomicInteger COUNTER = new AtomicInteger();
+
+    private final InputStream source;
+    private final BlockingQueue<Block> free = new ArrayBlockingQueue<>(BLOCKS);
+    private final BlockingQueue<Block> filled = new ArrayBlockingQueue<>(BLOCKS + 1);
+    private final Thread thread;
+    private volatile IOException failure;
+    private volatile boolean closed;
+    private Block current;
+    private int position;
+
+    PrefetchInputStream(InputStream source) {
+        this.source = source;
+        for (int i = 0; i < BLOCKS; ++i) {
+            free.add(new Block());
+        }
+        thread = new Thread(this::prefetch, "simulation-log-prefetch-" + COUNTER.incrementAndGet());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void prefetch() {
+        try {
+            for (; ; ) {
+                Block block = free.take();
+                block.length = 0;
+                int read;
+                while (block.length < block.data.length && (read = source.read(block.data, block.length, block.data.length - block.length)) >= 0) {
+                    block.length += read;
+                }
+                filled.put(block);
+                if (block.length < block.data.length) {
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            failure = e;
+        } catch (RuntimeException | Error e) {
+            // e.g. corrupt compressed data, which decompressors report as unchecked exceptions
+            failure = new IOException("Cannot read source: " + e, e);
+        } catch (InterruptedException e) {
+            // closed
+        } finally {
+            try {
+                source.close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+            // there is always room: only BLOCKS blocks exist besides END
+            filled.offer(Block.END);
+        }
+    }
+
+    private boolean advance() throws IOException {
+        if (current == Block.END) {
+            return false;
+        }
+        if (current != null) {
+            free.offer(current);
+        }
+        try {
+            current = filled.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+        position = 0;
+        if (current == Block.END) {
+            if (failure != null) {
+                throw failure;
+            }
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] one = new byte[1];
+        return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        while (current == null || position == current.length) {
+            if (!advance()) {
+                return -1;
+            }
+        }
+        int count = Math.min(length, current.length - position);
+        System.arraycopy(current.data, position, bytes, offset, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        thread.interrupt();
+        try {
+            // the thread closes the source once its current read returns
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+
+    private static class Block {
+        static final Block END = new Block(0);
+
+        final byte[] data;
+        int length;
+
+        Block() {
+            this(BLOCK_SIZE);
+        }
+
+        Block(int size) {
+            data = new byte[size];
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package org.jboss.performance.parser.reader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Reads ascending, disjoint {@code [start, end)} byte ranges of a file one after the other, as a single stream;
+ * the bytes between them are never read. When the ranges are newline-aligned, so are the lines of the stream.
+ */
+public class RangeInputStream extends InputStream {
+
+    private final FileChannel channel;
+    private final List<long[]> ranges;
+    private int range;
+    private long position;
+
+    public RangeInputStream(Path file, List<long[]> ranges) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.ranges = ranges;
+        this.position = ranges.isEmpty() ? 0 : ranges.get(0)[0];
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        return read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (range < ranges.size()) {
+            long[] current = ranges.get(range);
+            long remaining = current[1] - position;
+            if (remaining <= 0) {
+                if (++range < ranges.size()) {
+                    position = ranges.get(range)[0];
+                }
+                continue;
+            }
+            int read = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, remaining)), position);
+            if (read < 0) {
+                // the file was truncated under us
+                range = ranges.size();
+                break;
+            }
+            position += read;
+            return read;
+        }
+        return -1;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,113 @@
+package org.jboss.performance.parser.report;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes the report as one CSV table with a row for the total, for every request of the breakdown and for every
+ * interval of the timeline, told apart by the {@code scope} column. Columns that do not apply to a row are empty.
+ * The row of statistics corrected for coordinated omission has the expected interval in the {@code interval}
+ * column. Statistics of a sample are followed by {@code estimate}, {@code estimate-low} and {@code estimate-high}
+ * rows with the estimated count of the whole log and its confidence bounds, and the percentile bounds. Timelines
+ * that tracked users add the {@code users} and {@code peakUsers} columns last.
+ */
+public class CsvReportWriter implements ReportWriter {
+
+    @Override
+    public void write(SimulationReport report, Writer output) throws IOException {
+        output.write("scope,group,name,status,start,interval,errors,count,min,max,mean");
+        for (double centile : report.getCentiles()) {
+            output.write(",p" + centile);
+        }
+        boolean users = report.hasUsers();
+        if (users) {
+            output.write(",users,peakUsers");
+        }
+        output.write('\n');
+        if (report.getTotal() != null) {
+            output.write("total,,,,,,,");
+            writeStatistics(output, report.getTotal());
+            endRow(output, users ? ",," : "");
+        }
+        if (report.getCorrected() != null) {
+            output.write("corrected,,,,," + report.getExpectedInterval() + ",,");
+            writeStatistics(output, report.getCorrected());
+            endRow(output, users ? ",," : "");
+        }
+        SampleResult sample = report.getSample();
+        if (sample != null) {
+            output.write("estimate,,,,,,,");
+            writeEstimate(output, sample.getCount(), report.getTotal() == null ? new double[0] : report.getTotal().getPercentiles());
+            endRow(output, users ? ",," : "");
+            output.write("estimate-low,,,,,,,");
+            writeEstimate(output, sample.getCountLow(), sample.getPercentilesLow());
+            endRow(output, users ? ",," : "");
+            output.write("estimate-high,,,,,,,");
+            writeEstimate(output, sample.getCountHigh(), sample.getPercentilesHigh());
+            endRow(output, users ? ",," : "");
+        }
+        for (RequestResult request : report.getRequests()) {
+            output.write("request,");
+            writeString(output, request.getGroup());
+            output.write(',');
+            writeString(output, request.getName());
+            output.write(',');
+            writeString(output, request.getStatus());
+            output.write(",,,,");
+            writeStatistics(output, request.getStatistics());
+            endRow(output, users ? ",," : "");
+        }
+        for (IntervalResult interval : report.getTimeline()) {
+            output.write("interval,,,," + interval.getStart() + "," + interval.getInterval() + "," + interval.getErrors() + ",");
+            writeStatistics(output, interval.getStatistics());
+            endRow(output, users ? "," + interval.getActiveUsers() + "," + interval.getPeakUsers() : "");
+        }
+    }
+
+    private static void writeStatistics(Writer output, StatisticsResult statistics) throws IOException {
+        output.write(Long.toString(statistics.getCount()));
+        output.write(',');
+        writeNumber(output, statistics.getMin());
+        output.write(',');
+        writeNumber(output, statistics.getMax());
+        output.write(',');
+        writeNumber(output, statistics.getMean());
+        for (double value : statistics.getPercentiles()) {
+            output.write(',');
+            writeNumber(output, value);
+        }
+    }
+
+    private static void writeEstimate(Writer output, double count, double[] percentiles) throws IOException {
+        output.write(Long.toString(Math.round(count)));
+        output.write(",,,");
+        for (double value : percentiles) {
+            output.write(',');
+            writeNumber(output, value);
+        }
+    }
+
+    private static void endRow(Writer output, String users) throws IOException {
+        output.write(users);
+        output.write('\n');
+    }
+
+    private static void writeNumber(Writer output, double value) throws IOException {
+        if (!Double.isNaN(value) && !Double.isInfinite(value)) {
+            output.write(Double.toString(value));
+        }
+    }
+
+    private static void writeString(Writer output, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            output.write(value);
+        } else {
+            output.write('"');
+            output.write(value.replace("\"", "\"\""));
+            output.write('"');
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package org.jboss.performance.parser.report;
+
+import org.jboss.performance.parser.consumer.TimelineBucket;
+
+/**
+ * Requests completed, and optionally users active, within one interval of the timeline.
+ */
+public final class IntervalResult {
+
+    private final long start;
+    private final long interval;
+    private final long errors;
+    private final StatisticsResult statistics;
+    private final long activeUsers;
+    private final long peakUsers;
+
+    public IntervalResult(long start, long interval, long errors, StatisticsResult statistics) {
+        this(start, interval, errors, statistics, -1, -1);
+    }
+
+    public IntervalResult(long start, long interval, long errors, StatisticsResult statistics, long activeUsers, long peakUsers) {
+        this.start = start;
+        this.interval = interval;
+        this.errors = errors;
+        this.statistics = statistics;
+        this.activeUsers = activeUsers;
+        this.peakUsers = peakUsers;
+    }
+
+    public static IntervalResult of(TimelineBucket bucket, double[] centiles) {
+        return of(bucket, centiles, false);
+    }
+
+    /**
+     * @param users whether the timeline tracked users, otherwise the result has none
+     */
+    public static IntervalResult of(TimelineBucket bucket, double[] centiles, boolean users) {
+        return new IntervalResult(bucket.getStart(), bucket.getInterval(), bucket.getErrors(),
+                StatisticsResult.of(bucket.getStatistics(), centiles),
+                users ? bucket.getActiveUsers() : -1, users ? bucket.getPeakUsers() : -1);
+    }
+
+    /** Start of the interval, epoch milliseconds. */
+    public long getStart() {
+        return start;
+    }
+
+    public long getInterval() {
+        return interval;
+    }
+
+    public long getCount() {
+        return statistics.getCount();
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public double getRequestsPerSecond() {
+        return getCount() * 1000.0 / interval;
+    }
+
+    /** Share of KO requests, 0 for an empty interval. */
+    public double getErrorRate() {
+        return getCount() == 0 ? 0 : (double) errors / getCount();
+    }
+
+    public boolean hasUsers() {
+        return peakUsers >= 0;
+    }
+
+    /** Users active at the end of the interval, -1 unless {@link #hasUsers()}. */
+    public long getActiveUsers() {
+        return activeUsers;
+    }
+
+    /** Highest number of users active at the same time within the interval, -1 unless {@link #hasUsers()}. */
+    public long getPeakUsers() {
+        return peakUsers;
+    }
+
+    public StatisticsResult getStatistics() {
+        return statistics;
+    }
+}
@@ -0,0 +1,146 @@
+package org.jboss.performance.parser.report;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes the report as a single JSON object:
+ * <pre>
+ * {"centiles":[50.0,...],
+ *  "total":{"count":..,"min":..,"max":..,"mean":..,"percentiles":[..]},
+ *  "expectedInterval":..,"corrected":{..},
+ *  "sample":{"fraction":..,"ranges":..,"totalRanges":..,"count":..,"countLow":..,"countHigh":..,
+ *            "percentilesLow":[..],"percentilesHigh":[..]},
+ *  "requests":[{"group":..,"name":..,"status":..,"statistics":{..}},...],
+ *  "timeline":[{"start":..,"interval":..,"errors":..,"users":..,"peakUsers":..,"statistics":{..}},...]}
+ * </pre>
+ * The users of an interval are only written if the timeline tracked them. Values that are not finite (e.g.
+ * percentiles of an empty interval) are written as {@code null}.
+ */
+public class JsonReportWriter implements ReportWriter {
+
+    @Override
+    public void write(SimulationReport report, Writer output) throws IOException {
+        output.write("{\"centiles\":");
+        writeArray(output, report.getCentiles());
+        if (report.getTotal() != null) {
+            output.write(",\"total\":");
+            writeStatistics(output, report.getTotal());
+        }
+        if (report.getCorrected() != null) {
+            output.write(",\"expectedInterval\":" + report.getExpectedInterval() + ",\"corrected\":");
+            writeStatistics(output, report.getCorrected());
+        }
+        SampleResult sample = report.getSample();
+        if (sample != null) {
+            output.write(",\"sample\":{\"fraction\":" + sample.getFraction() + ",\"ranges\":" + sample.getSampledRanges()
+                    + ",\"totalRanges\":" + sample.getTotalRanges() + ",\"count\":");
+            writeNumber(output, sample.getCount());
+            output.write(",\"countLow\":");
+            writeNumber(output, sample.getCountLow());
+            output.write(",\"countHigh\":");
+            writeNumber(output, sample.getCountHigh());
+            output.write(",\"percentilesLow\":");
+            writeArray(output, sample.getPercentilesLow());
+            output.write(",\"percentilesHigh\":");
+            writeArray(output, sample.getPercentilesHigh());
+            output.write('}');
+        }
+        output.write(",\"requests\":[");
+        boolean first = true;
+        for (RequestResult request : report.getRequests()) {
+            if (!first) {
+                output.write(',');
+            }
+            first = false;
+            output.write("{\"group\":");
+            writeString(output, request.getGroup());
+            output.write(",\"name\":");
+            writeString(output, request.getName());
+            output.write(",\"status\":");
+            writeString(output, request.getStatus());
+            output.write(",\"statistics\":");
+            writeStatistics(output, request.getStatistics());
+            output.write('}');
+        }
+        output.write("],\"timeline\":[");
+        first = true;
+        for (IntervalResult interval : report.getTimeline()) {
+            if (!first) {
+                output.write(',');
+            }
+            first = false;
+            output.write("{\"start\":" + interval.getStart() + ",\"interval\":" + interval.getInterval()
+                    + ",\"errors\":" + interval.getErrors());
+            if (interval.hasUsers()) {
+                output.write(",\"users\":" + interval.getActiveUsers() + ",\"peakUsers\":" + interval.getPeakUsers());
+            }
+            output.write(",\"statistics\":");
+            writeStatistics(output, interval.getStatistics());
+            output.write('}');
+        }
+        output.write("]}\n");
+    }
+
+    private static void writeStatistics(Writer output, StatisticsResult statistics) throws IOException {
+        output.write("{\"count\":" + statistics.getCount() + ",\"min\":");
+        writeNumber(output, statistics.getMin());
+        output.write(",\"max\":");
+        writeNumber(output, statistics.getMax());
+        output.write(",\"mean\":");
+        writeNumber(output, statistics.getMean());
+        output.write(",\"percentiles\":");
+        writeArray(output, statistics.getPercentiles());
+        output.write('}');
+    }
+
+    private static void writeArray(Writer output, double[] values) throws IOException {
+        output.write('[');
+        for (int i = 0; i < values.length; ++i) {
+            if (i > 0) {
+                output.write(',');
+            }
+            writeNumber(output, values[i]);
+        }
+        output.write(']');
+    }
+
+    private static void writeNumber(Writer output, double value) throws IOException {
+        output.write(Double.isNaN(value) || Double.isInfinite(value) ? "null" : Double.toString(value));
+    }
+
+    private static void writeString(Writer output, String value) throws IOException {
+        if (value == null) {
+            output.write("null");
+            return;
+        }
+        output.write('"');
+        for (int i = 0; i < value.length(); ++i) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    output.write("\\\"");
+                    break;
+                case '\\':
+                    output.write("\\\\");
+                    break;
+                case '\n':
+                    output.write("\\n");
+                    break;
+                case '\r':
+                    output.write("\\r");
+                    break;
+                case '\t':
+                    output.write("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        output.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        output.write(c);
+                    }
+            }
+        }
+        output.write('"');
+    }
+}
@@ -0,0 +1,169 @@
+package org.jboss.performance.parser.report;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Percentile deltas between a baseline and a candidate report, overall and per request of the breakdown.
+ * <p>
+ * A row regresses when any of the gated percentiles got worse by more than both the relative and the absolute
+ * threshold; requiring both keeps fast requests (where 1 ms is a large relative change) and slow requests (where
+ * a few per cent are a lot of ms) from raising false alarms. Requests found in only one of the runs are reported
+ * as {@link Verdict#MISSING} or {@link Verdict#NEW} but do not count as regressions.
+ */
+public final class ReportComparison {
+
+    public enum Verdict {
+        SAME, IMPROVED, REGRESSED, MISSING, NEW
+    }
+
+    /** One compared request, or the total when name is {@code null}. */
+    public static final class Row {
+        private final String group;
+        private final String name;
+        private final String status;
+        private final StatisticsResult baseline;
+        private final StatisticsResult candidate;
+        private final Verdict verdict;
+
+        Row(String group, String name, String status, StatisticsResult baseline, StatisticsResult candidate, Verdict verdict) {
+            this.group = group;
+            this.name = name;
+            this.status = status;
+            this.baseline = baseline;
+            this.candidate = candidate;
+            this.verdict = verdict;
+        }
+
+        public String getGroup() {
+            return group;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        /** {@code null} for {@link Verdict#NEW} */
+        public StatisticsResult getBaseline() {
+            return baseline;
+        }
+
+        /** {@code null} for {@link Verdict#MISSING} */
+        public StatisticsResult getCandidate() {
+            return candidate;
+        }
+
+        public Verdict getVerdict() {
+            return verdict;
+        }
+    }
+
+    private final double[] centiles;
+    private final int[] gated;
+    private final double relativeThreshold;
+    private final double absoluteThreshold;
+    private final List<Row> rows;
+
+    /**
+     * @param gatedCentiles     centiles that decide the verdict, each must be one of the reports' centiles
+     * @param relativeThreshold e.g. 0.1 for 10 %
+     * @param absoluteThreshold ms
+     */
+    public ReportComparison(SimulationReport baseline, SimulationReport candidate, double[] gatedCentiles,
+                            double relativeThreshold, double absoluteThreshold) {
+        this.centiles = baseline.getCentiles();
+        if (!Arrays.equals(centiles, candidate.getCentiles())) {
+            throw new IllegalArgumentException("Reports have different centiles");
+        }
+        this.gated = new int[gatedCentiles.length];
+        for (int i = 0; i < gatedCentiles.length; ++i) {
+            gated[i] = indexOf(centiles, gatedCentiles[i]);
+        }
+        this.relativeThreshold = relativeThreshold;
+        this.absoluteThreshold = absoluteThreshold;
+
+        List<Row> rows = new ArrayList<>();
+        if (baseline.getTotal() != null && candidate.getTotal() != null) {
+            rows.add(new Row(null, null, null, baseline.getTotal(), candidate.getTotal(), verdict(baseline.getTotal(), candidate.getTotal())));
+        }
+        Map<List<String>, RequestResult> candidates = new LinkedHashMap<>();
+        for (RequestResult request : candidate.getRequests()) {
+            candidates.put(key(request), request);
+        }
+        for (RequestResult request : baseline.getRequests()) {
+            RequestResult other = candidates.remove(key(request));
+            StatisticsResult statistics = request.getStatistics();
+            if (other == null) {
+                rows.add(new Row(request.getGroup(), request.getName(), request.getStatus(), statistics, null, Verdict.MISSING));
+            } else {
+                rows.add(new Row(request.getGroup(), request.getName(), request.getStatus(), statistics, other.getStatistics(),
+                        verdict(statistics, other.getStatistics())));
+            }
+        }
+        for (RequestResult request : candidates.values()) {
+            rows.add(new Row(request.getGroup(), request.getName(), request.getStatus(), null, request.getStatistics(), Verdict.NEW));
+        }
+        this.rows = Collections.unmodifiableList(rows);
+    }
+
+    private static int indexOf(double[] centiles, double centile) {
+        for (int i = 0; i < centiles.length; ++i) {
+            if (centiles[i] == centile) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Centile " + centile + " is not part of the reports");
+    }
+
+    private static List<String> key(RequestResult request) {
+        return Arrays.asList(request.getGroup(), request.getName(), request.getStatus());
+    }
+
+    private Verdict verdict(StatisticsResult baseline, StatisticsResult candidate) {
+        boolean improved = false;
+        for (int index : gated) {
+            double before = baseline.getPercentile(index);
+            double after = candidate.getPercentile(index);
+            if (Double.isNaN(before) || Double.isNaN(after)) {
+                continue;
+            }
+            double delta = after - before;
+            if (delta > absoluteThreshold && delta > before * relativeThreshold) {
+                return Verdict.REGRESSED;
+            } else if (-delta > absoluteThreshold && -delta > before * relativeThreshold) {
+                improved = true;
+            }
+        }
+        return improved ? Verdict.IMPROVED : Verdict.SAME;
+    }
+
+    public double[] getCentiles() {
+        return centiles.clone();
+    }
+
+    /** Indexes into {@link #getCentiles()} of the centiles that decide the verdicts. */
+    public int[] getGatedCentiles() {
+        return gated.clone();
+    }
+
+    public List<Row> getRows() {
+        return rows;
+    }
+
+    public boolean hasRegression() {
+        for (Row row : rows) {
+            if (row.getVerdict() == Verdict.REGRESSED) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,33 @@
+package org.jboss.performance.parser.report;
+
+import java.util.Locale;
+
+/**
+ * Output formats of the stats and timeline commands.
+ */
+public enum ReportFormat {
+    TEXT {
+        @Override
+        public ReportWriter writer() {
+            return new TextReportWriter();
+        }
+    },
+    JSON {
+        @Override
+        public ReportWriter writer() {
+            return new JsonReportWriter();
+        }
+    },
+    CSV {
+        @Override
+        public ReportWriter writer() {
+            return new CsvReportWriter();
+        }
+    };
+
+    public abstract ReportWriter writer();
+
+    public static ReportFormat forName(String name) {
+        return valueOf(name.toUpperCase(Locale.ENGLISH));
+    }
+}
@@ -0,0 +1,13 @@
+package org.jboss.performance.parser.report;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Renders a {@link SimulationReport}; implementations write straight to the output without building a document.
+ *
+ * @see ReportFormat
+ */
+public interface ReportWriter {
+    void write(SimulationReport report, Writer output) throws IOException;
+}
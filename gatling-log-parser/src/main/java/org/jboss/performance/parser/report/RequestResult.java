@@ -0,0 +1,36 @@
+package org.jboss.performance.parser.report;
+
+/**
+ * Statistics of one row of the request breakdown. Group and status are {@code null} unless the breakdown was split
+ * by them.
+ */
+public final class RequestResult {
+
+    private final String group;
+    private final String name;
+    private final String status;
+    private final StatisticsResult statistics;
+
+    public RequestResult(String group, String name, String status, StatisticsResult statistics) {
+        this.group = group;
+        this.name = name;
+        this.status = status;
+        this.statistics = statistics;
+    }
+
+    public String getGroup() {
+        return group;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public StatisticsResult getStatistics() {
+        return statistics;
+    }
+}
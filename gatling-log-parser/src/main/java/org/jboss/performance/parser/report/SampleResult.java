@@ -0,0 +1,106 @@
+package org.jboss.performance.parser.report;
+
+import org.HdrHistogram.Histogram;
+import org.jboss.performance.parser.consumer.PercentileCalculator;
+import org.jboss.performance.parser.consumer.SampledStatistics;
+
+/**
+ * Estimates for the whole log from the statistics of a sample of it, with 95% confidence bounds.
+ * <p>
+ * Percentile bounds are the values at the centile shifted by the confidence margin of the share of requests below
+ * the estimate (Woodruff's method), so they are taken from the sampled distribution as the estimate itself.
+ */
+public final class SampleResult {
+
+    /** Two-sided 95% quantile of the normal distribution. */
+    public static final double Z = 1.96;
+
+    private final double fraction;
+    private final int sampledRanges;
+    private final long totalRanges;
+    private final double count;
+    private final double countLow;
+    private final double countHigh;
+    private final double[] percentilesLow;
+    private final double[] percentilesHigh;
+
+    public SampleResult(double fraction, int sampledRanges, long totalRanges, double count, double countLow, double countHigh,
+                        double[] percentilesLow, double[] percentilesHigh) {
+        this.fraction = fraction;
+        this.sampledRanges = sampledRanges;
+        this.totalRanges = totalRanges;
+        this.count = count;
+        this.countLow = countLow;
+        this.countHigh = countHigh;
+        this.percentilesLow = percentilesLow.clone();
+        this.percentilesHigh = percentilesHigh.clone();
+    }
+
+    /**
+     * @param histogram all sampled response times, from which the estimated percentiles are taken
+     */
+    public static SampleResult of(SampledStatistics sample, Histogram histogram, double[] centiles) {
+        double count = sample.getEstimatedCount();
+        double countMargin = Z * sample.getCountStandardError();
+        double[] estimates = PercentileCalculator.fromHistogram(histogram, centiles);
+        double[] low = new double[centiles.length];
+        double[] high = new double[centiles.length];
+        for (int i = 0; i < centiles.length; ++i) {
+            // a percentile beyond the resolution of the sample is its maximum, which cannot be bounded
+            boolean resolved = histogram.getTotalCount() * (100 - centiles[i]) / 100 >= 1;
+            double margin = !resolved || Double.isNaN(estimates[i]) ? Double.NaN : Z * 100 * sample.getShareStandardError(estimates[i]);
+            if (Double.isNaN(margin)) {
+                low[i] = high[i] = Double.NaN;
+            } else {
+                low[i] = PercentileCalculator.fromHistogram(histogram, centiles[i] - margin)[0];
+                high[i] = PercentileCalculator.fromHistogram(histogram, centiles[i] + margin)[0];
+            }
+        }
+        return new SampleResult(sample.getFraction(), sample.getSampledRanges(), sample.getTotalRanges(),
+                count, Math.max(0, count - countMargin), count + countMargin, low, high);
+    }
+
+    /** Share of the log that was read. */
+    public double getFraction() {
+        return fraction;
+    }
+
+    public int getSampledRanges() {
+        return sampledRanges;
+    }
+
+    public long getTotalRanges() {
+        return totalRanges;
+    }
+
+    /** Estimated number of requests in the whole log. */
+    public double getCount() {
+        return count;
+    }
+
+    public double getCountLow() {
+        return countLow;
+    }
+
+    public double getCountHigh() {
+        return countHigh;
+    }
+
+    /** Lower bounds of the percentiles, in the order of {@link SimulationReport#getCentiles()}; {@code NaN} if unknown. */
+    public double getPercentileLow(int index) {
+        return percentilesLow[index];
+    }
+
+    /** Upper bounds of the percentiles, in the order of {@link SimulationReport#getCentiles()}; {@code NaN} if unknown. */
+    public double getPercentileHigh(int index) {
+        return percentilesHigh[index];
+    }
+
+    public double[] getPercentilesLow() {
+        return percentilesLow.clone();
+    }
+
+    public double[] getPercentilesHigh() {
+        return percentilesHigh.clone();
+    }
+}
@@ -0,0 +1,134 @@
+package org.jboss.performance.parser.report;
+
+import org.jboss.performance.parser.consumer.RequestBreakdown;
+import org.jboss.performance.parser.consumer.RequestKey;
+import org.jboss.performance.parser.consumer.ResponseTimeStatistics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable result of a stats or timeline run, rendered by a {@link ReportWriter}.
+ * <p>
+ * All percentiles in the report, overall, per request and per interval, are computed for the same
+ * {@link #getCentiles() centiles}. Parts that were not computed are {@code null} (total, corrected, sample) or empty
+ * (breakdown and timeline).
+ */
+public final class SimulationReport {
+
+    private final double[] centiles;
+    private final StatisticsResult total;
+    private final boolean byGroup;
+    private final boolean byStatus;
+    private final List<RequestResult> requests;
+    private final List<IntervalResult> timeline;
+    private final StatisticsResult corrected;
+    private final long expectedInterval;
+    private final SampleResult sample;
+
+    public SimulationReport(double[] centiles, StatisticsResult total, boolean byGroup, boolean byStatus,
+                            List<RequestResult> requests, List<IntervalResult> timeline) {
+        this(centiles, total, byGroup, byStatus, requests, timeline, null, 0);
+    }
+
+    public SimulationReport(double[] centiles, StatisticsResult total, boolean byGroup, boolean byStatus,
+                            List<RequestResult> requests, List<IntervalResult> timeline,
+                            StatisticsResult corrected, long expectedInterval) {
+        this(centiles, total, byGroup, byStatus, requests, timeline, corrected, expectedInterval, null);
+    }
+
+    public SimulationReport(double[] centiles, StatisticsResult total, boolean byGroup, boolean byStatus,
+                            List<RequestResult> requests, List<IntervalResult> timeline,
+                            StatisticsResult corrected, long expectedInterval, SampleResult sample) {
+        this.sample = sample;
+        this.corrected = corrected;
+        this.expectedInterval = expectedInterval;
+        this.centiles = centiles.clone();
+        this.total = total;
+        this.byGroup = byGroup;
+        this.byStatus = byStatus;
+        this.requests = Collections.unmodifiableList(new ArrayList<>(requests));
+        this.timeline = Collections.unmodifiableList(new ArrayList<>(timeline));
+    }
+
+    /**
+     * @param breakdown may be {@code null}
+     */
+    public static SimulationReport of(ResponseTimeStatistics statistics, RequestBreakdown breakdown, double[] centiles) {
+        List<RequestResult> requests = new ArrayList<>();
+        if (breakdown != null) {
+            for (Map.Entry<RequestKey, ResponseTimeStatistics> entry : breakdown.getStatistics().entrySet()) {
+                RequestKey key = entry.getKey();
+                requests.add(new RequestResult(key.getGroup(), key.getName(), key.getStatus(), StatisticsResult.of(entry.getValue(), centiles)));
+            }
+        }
+        return new SimulationReport(centiles, statistics == null ? null : StatisticsResult.of(statistics, centiles),
+                breakdown != null && breakdown.isByGroup(), breakdown != null && breakdown.isByStatus(), requests,
+                Collections.<IntervalResult>emptyList());
+    }
+
+    /** @return a copy of this report with the given timeline */
+    public SimulationReport withTimeline(List<IntervalResult> timeline) {
+        return new SimulationReport(centiles, total, byGroup, byStatus, requests, timeline, corrected, expectedInterval, sample);
+    }
+
+    /** @return a copy of this report with statistics corrected for coordinated omission */
+    public SimulationReport withCorrected(StatisticsResult corrected, long expectedInterval) {
+        return new SimulationReport(centiles, total, byGroup, byStatus, requests, timeline, corrected, expectedInterval, sample);
+    }
+
+    /** @return a copy of this report with estimates for the whole log, the rest of the report being of a sample */
+    public SimulationReport withSample(SampleResult sample) {
+        return new SimulationReport(centiles, total, byGroup, byStatus, requests, timeline, corrected, expectedInterval, sample);
+    }
+
+    public double[] getCentiles() {
+        return centiles.clone();
+    }
+
+    public StatisticsResult getTotal() {
+        return total;
+    }
+
+    public boolean isByGroup() {
+        return byGroup;
+    }
+
+    public boolean isByStatus() {
+        return byStatus;
+    }
+
+    /** Request breakdown ordered by group, name and status. */
+    public List<RequestResult> getRequests() {
+        return requests;
+    }
+
+    public List<IntervalResult> getTimeline() {
+        return timeline;
+    }
+
+    /** Whether the intervals of the timeline report active users. */
+    public boolean hasUsers() {
+        return !timeline.isEmpty() && timeline.get(0).hasUsers();
+    }
+
+    /**
+     * Overall statistics corrected for coordinated omission, or {@code null}; its count includes the back-filled
+     * samples.
+     */
+    public StatisticsResult getCorrected() {
+        return corrected;
+    }
+
+    /** Interval the {@link #getCorrected() corrected} statistics assume between requests, ms. */
+    public long getExpectedInterval() {
+        return expectedInterval;
+    }
+
+    /** Estimates for the whole log, or {@code null} unless the statistics are of a sample of it. */
+    public SampleResult getSample() {
+        return sample;
+    }
+}
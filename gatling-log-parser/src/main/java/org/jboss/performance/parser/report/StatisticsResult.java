@@ -0,0 +1,68 @@
+package org.jboss.performance.parser.report;
+
+import org.HdrHistogram.Histogram;
+import org.jboss.performance.parser.consumer.PercentileCalculator;
+import org.jboss.performance.parser.consumer.ResponseTimeStatistics;
+
+import java.util.DoubleSummaryStatistics;
+
+/**
+ * Immutable snapshot of {@link ResponseTimeStatistics}: summary plus the percentiles of a {@link SimulationReport}.
+ */
+public final class StatisticsResult {
+
+    private final long count;
+    private final double min;
+    private final double max;
+    private final double mean;
+    private final double[] percentiles;
+
+    public StatisticsResult(long count, double min, double max, double mean, double[] percentiles) {
+        this.count = count;
+        this.min = min;
+        this.max = max;
+        this.mean = mean;
+        this.percentiles = percentiles.clone();
+    }
+
+    public static StatisticsResult of(ResponseTimeStatistics statistics, double[] centiles) {
+        DoubleSummaryStatistics summary = statistics.getSummary();
+        return new StatisticsResult(summary.getCount(), summary.getMin(), summary.getMax(), summary.getAverage(),
+                PercentileCalculator.fromHistogram(statistics.getHistogram(), centiles));
+    }
+
+    /** From the histogram only, e.g. a {@link org.jboss.performance.parser.consumer.CorrectedStatistics} one. */
+    public static StatisticsResult of(Histogram histogram, double[] centiles) {
+        boolean empty = histogram.getTotalCount() == 0;
+        return new StatisticsResult(histogram.getTotalCount(), empty ? Double.POSITIVE_INFINITY : histogram.getMinValue(),
+                empty ? Double.NEGATIVE_INFINITY : histogram.getMaxValue(), empty ? 0 : histogram.getMean(),
+                PercentileCalculator.fromHistogram(histogram, centiles));
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /** {@code Infinity} when there are no requests, like {@link DoubleSummaryStatistics#getMin()}. */
+    public double getMin() {
+        return min;
+    }
+
+    /** {@code -Infinity} when there are no requests, like {@link DoubleSummaryStatistics#getMax()}. */
+    public double getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    /** Percentile values in the order of {@link SimulationReport#getCentiles()}; {@code NaN} when empty. */
+    public double getPercentile(int index) {
+        return percentiles[index];
+    }
+
+    public double[] getPercentiles() {
+        return percentiles.clone();
+    }
+}
@@ -0,0 +1,131 @@
+package org.jboss.performance.parser.report;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * The human-readable output of the stats and timeline commands: summary, percentiles, then the estimates of a
+ * sample, the corrected percentiles, the breakdown table and the timeline table when present.
+ */
+public class TextReportWriter implements ReportWriter {
+
+    private static final String EOL = System.lineSeparator();
+
+    @Override
+    public void write(SimulationReport report, Writer output) throws IOException {
+        double[] centiles = report.getCentiles();
+        StatisticsResult total = report.getTotal();
+        if (total != null) {
+            output.write("count: " + total.getCount() + EOL);
+            output.write("min: " + total.getMin() + EOL);
+            output.write("max: " + total.getMax() + EOL);
+            output.write("mean: " + total.getMean() + EOL);
+            for (int i = 0; i < centiles.length; ++i) {
+                output.write(centiles[i] + "th Centile: " + total.getPercentile(i) + EOL);
+            }
+        }
+        SampleResult sample = report.getSample();
+        if (sample != null) {
+            output.write(String.format("statistics of a sample of %.2f%% of the log (%d of %d ranges), estimates with 95%% confidence bounds:",
+                    sample.getFraction() * 100, sample.getSampledRanges(), sample.getTotalRanges()) + EOL);
+            output.write(String.format("estimated count: %.0f [%.0f, %.0f]", sample.getCount(), sample.getCountLow(), sample.getCountHigh()) + EOL);
+            output.write(String.format("%10s %10s %10s %10s", "centile", "sample", "low", "high") + EOL);
+            for (int i = 0; i < centiles.length; ++i) {
+                output.write(String.format("%10s %10.0f %10.0f %10.0f", centiles[i] + "th",
+                        total == null ? Double.NaN : total.getPercentile(i), sample.getPercentileLow(i), sample.getPercentileHigh(i)) + EOL);
+            }
+        }
+        StatisticsResult corrected = report.getCorrected();
+        if (corrected != null) {
+            output.write("coordinated omission correction, expected interval " + report.getExpectedInterval() + " ms" + EOL);
+            output.write(String.format("%10s %10s %10s", "centile", "raw", "corrected") + EOL);
+            for (int i = 0; i < centiles.length; ++i) {
+                output.write(String.format("%10s %10.0f %10.0f", centiles[i] + "th",
+                        total == null ? Double.NaN : total.getPercentile(i), corrected.getPercentile(i)) + EOL);
+            }
+        }
+        if (!report.getRequests().isEmpty()) {
+            writeRequests(report, output);
+        }
+        if (!report.getTimeline().isEmpty()) {
+            writeTimeline(report, output);
+        }
+    }
+
+    private void writeRequests(SimulationReport report, Writer output) throws IOException {
+        double[] centiles = report.getCentiles();
+        int groupWidth = "group".length();
+        int nameWidth = "name".length();
+        for (RequestResult request : report.getRequests()) {
+            groupWidth = Math.max(groupWidth, String.valueOf(request.getGroup()).length());
+            nameWidth = Math.max(nameWidth, String.valueOf(request.getName()).length());
+        }
+
+        StringBuilder header = new StringBuilder();
+        if (report.isByGroup()) {
+            header.append(pad("group", groupWidth)).append("  ");
+        }
+        header.append(pad("name", nameWidth)).append("  ");
+        if (report.isByStatus()) {
+            header.append("status  ");
+        }
+        header.append(String.format("%10s %10s %10s %10s", "count", "min", "max", "mean"));
+        for (double centile : centiles) {
+            header.append(String.format(" %10s", centile + "th"));
+        }
+        output.write(header + EOL);
+
+        for (RequestResult request : report.getRequests()) {
+            StatisticsResult statistics = request.getStatistics();
+            StringBuilder row = new StringBuilder();
+            if (report.isByGroup()) {
+                row.append(pad(request.getGroup(), groupWidth)).append("  ");
+            }
+            row.append(pad(request.getName(), nameWidth)).append("  ");
+            if (report.isByStatus()) {
+                row.append(pad(request.getStatus(), "status".length())).append("  ");
+            }
+            row.append(String.format("%10d %10.0f %10.0f %10.2f", statistics.getCount(), statistics.getMin(), statistics.getMax(), statistics.getMean()));
+            for (int i = 0; i < centiles.length; ++i) {
+                row.append(String.format(" %10.0f", statistics.getPercentile(i)));
+            }
+            output.write(row + EOL);
+        }
+    }
+
+    private void writeTimeline(SimulationReport report, Writer output) throws IOException {
+        double[] centiles = report.getCentiles();
+        StringBuilder header = new StringBuilder(String.format("%-14s %10s %9s %10s", "time", "req/s", "errors[%]", "mean"));
+        for (double centile : centiles) {
+            header.append(String.format(" %10s", centile + "th"));
+        }
+        header.append(String.format(" %10s", "max"));
+        boolean users = report.hasUsers();
+        if (users) {
+            header.append(String.format(" %10s %10s", "users", "peak users"));
+        }
+        output.write(header + EOL);
+        for (IntervalResult interval : report.getTimeline()) {
+            StatisticsResult statistics = interval.getStatistics();
+            boolean empty = statistics.getCount() == 0;
+            StringBuilder row = new StringBuilder(String.format("%-14d %10.1f %9.2f %10.2f", interval.getStart(),
+                    interval.getRequestsPerSecond(), interval.getErrorRate() * 100, empty ? Double.NaN : statistics.getMean()));
+            for (int i = 0; i < centiles.length; ++i) {
+                row.append(String.format(" %10.0f", statistics.getPercentile(i)));
+            }
+            row.append(String.format(" %10.0f", empty ? Double.NaN : statistics.getMax()));
+            if (users) {
+                row.append(String.format(" %10d %10d", interval.getActiveUsers(), interval.getPeakUsers()));
+            }
+            output.write(row + EOL);
+        }
+    }
+
+    private static String pad(String value, int width) {
+        StringBuilder sb = new StringBuilder(String.valueOf(value));
+        while (sb.length() < width) {
+            sb.append(' ');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,38 @@
+package org.jboss.performance.parser.report;
+
+import org.jboss.performance.parser.consumer.TimelineBucket;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Keeps a snapshot of every closed timeline interval, for {@link SimulationReport#withTimeline(List)}.
+ */
+public class TimelineCollector implements Consumer<TimelineBucket> {
+
+    private final double[] centiles;
+    private final boolean users;
+    private final List<IntervalResult> intervals = new ArrayList<>();
+
+    public TimelineCollector(double... centiles) {
+        this(false, centiles);
+    }
+
+    /**
+     * @param users whether to keep the active users of every interval
+     */
+    public TimelineCollector(boolean users, double... centiles) {
+        this.users = users;
+        this.centiles = centiles;
+    }
+
+    @Override
+    public void accept(TimelineBucket bucket) {
+        intervals.add(IntervalResult.of(bucket, centiles, users));
+    }
+
+    public List<IntervalResult> getIntervals() {
+        return intervals;
+    }
+}
@@ -0,0 +1,317 @@
+package org.jboss.performance.parser.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.jboss.performance.parser.SimulationInfo;
+import org.jboss.performance.parser.SimulationLogParser;
+import org.jboss.performance.parser.filter.Filter;
+import org.jboss.performance.parser.filter.RequestNameFilter;
+import org.jboss.performance.parser.filter.ScenarioFilter;
+import org.jboss.performance.parser.filter.SkipFilter;
+import org.jboss.performance.parser.filter.StatusFilter;
+import org.jboss.performance.parser.filter.TimeWindowFilter;
+import org.jboss.performance.parser.filter.TruncateFilter;
+import org.jboss.performance.parser.printer.Util;
+import org.jboss.performance.parser.report.ReportFormat;
+import org.jboss.performance.parser.report.SimulationReport;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serves stats, info and filter queries over HTTP from a long-running JVM, keeping parsed runs in a {@link RunCache}.
+ * <p>
+ * Endpoints, all GET, with the log given by the {@code file} parameter relative to the root directory:
+ * <pre>
+ * /stats?file=..[&amp;format=json|text|csv][&amp;breakdown=true][&amp;by-group=true][&amp;by-status=true]
+ *        [&amp;skip=ms][&amp;truncate=ms][&amp;expected-interval=ms|auto][&amp;centiles=50,99]
+ * /info?file=..
+ * /filter?file=..[&amp;skip=ms][&amp;truncate=ms][&amp;from=ms][&amp;to=ms][&amp;name=..]*[&amp;status=OK|KO][&amp;scenario=..]*
+ * /cache
+ * </pre>
+ * Stats are cached per log and parse options; the centiles and format only affect the rendering. Info comes from a
+ * full pass over the log, as the first request start may be anywhere in it. Filter output is streamed and not cached,
+ * only the info it needs is. Requests are served by a fixed pool of threads; a log that is
+ * not cached yet is parsed on the thread that asked for it, with the configured parallelism.
+ */
+public class AnalysisServer implements Closeable {
+
+    public static final int DEFAULT_PORT = 8080;
+    public static final long DEFAULT_CACHE_BYTES = 256 * 1024 * 1024;
+
+    private final Path root;
+    private final int parallelism;
+    private final RunCache<ParsedRun> cache;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    public AnalysisServer(InetSocketAddress address, Path root, int threads, int parallelism, long cacheBytes) throws IOException {
+        if (threads < 1 || parallelism < 1) {
+            throw new IllegalArgumentException("Threads and parallelism must be positive");
+        }
+        this.root = root.toRealPath();
+        this.parallelism = parallelism;
+        this.cache = new RunCache<>(cacheBytes, ParsedRun::getEstimatedSize);
+        this.server = HttpServer.create(address, 0);
+        this.executor = Executors.newFixedThreadPool(threads, new ServerThreadFactory());
+        server.setExecutor(executor);
+        server.createContext("/stats", exchange -> handle(exchange, this::stats));
+        server.createContext("/info", exchange -> handle(exchange, this::info));
+        server.createContext("/filter", exchange -> handle(exchange, this::filter));
+        server.createContext("/cache", exchange -> handle(exchange, this::cacheStatus));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /** The address the server listens on, with the actual port if it was started on port 0. */
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    public RunCache<ParsedRun> getCache() {
+        return cache;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void stats(Map<String, List<String>> parameters, HttpExchange exchange) throws Exception {
+        Path file = file(parameters);
+        boolean byGroup = flag(parameters, "by-group");
+        boolean byStatus = flag(parameters, "by-status");
+        boolean breakdown = byGroup || byStatus || flag(parameters, "breakdown");
+        long skip = Long.parseLong(parameter(parameters, "skip", "-1"));
+        long truncate = Long.parseLong(parameter(parameters, "truncate", "-1"));
+        String interval = parameter(parameters, "expected-interval", "0");
+        long expectedInterval = "auto".equalsIgnoreCase(interval) ? -1 : Long.parseLong(interval);
+        ReportFormat format = ReportFormat.forName(parameter(parameters, "format", "json"));
+        double[] centiles = centiles(parameter(parameters, "centiles", null));
+
+        String options = "stats breakdown=" + breakdown + " by-group=" + byGroup + " by-status=" + byStatus
+                + " skip=" + skip + " truncate=" + truncate + " expected-interval=" + expectedInterval;
+        ParsedRun run = cache.get(RunKey.of(file, options), key -> {
+            SimulationLogParser parser = new SimulationLogParser(key.getPath());
+            parser.setParallelism(parallelism);
+            parser.setWindow(skip, truncate);
+            parser.setExpectedInterval(expectedInterval);
+            if (breakdown) {
+                parser.setBreakdown(byGroup, byStatus);
+            }
+            parser.parseLogFile();
+            return new ParsedRun(parser, parser.readInfo(), true);
+        });
+        SimulationReport report = run.getReport(centiles);
+        try (Writer output = respond(exchange, format == ReportFormat.JSON ? "application/json"
+                : format == ReportFormat.CSV ? "text/csv" : "text/plain")) {
+            format.writer().write(report, output);
+        }
+    }
+
+    private void info(Map<String, List<String>> parameters, HttpExchange exchange) throws Exception {
+        SimulationInfo info = info(file(parameters)).getInfo();
+        try (Writer output = respond(exchange, "application/json")) {
+            output.write("{\"file\":" + quote(info.getFile()) + ",\"class\":" + quote(info.clazz) + ",\"name\":" + quote(info.name)
+                    + ",\"startTime\":" + info.startTime + ",\"firstRequestStart\":" + info.firstRequestStart
+                    + ",\"lastRequestComplete\":" + info.lastRequestComplete + "}\n");
+        }
+    }
+
+    private void filter(Map<String, List<String>> parameters, HttpExchange exchange) throws Exception {
+        ParsedRun run = info(file(parameters));
+        List<Filter> filters = new ArrayList<>();
+        String skip = parameter(parameters, "skip", null);
+        if (skip != null) {
+            filters.add(new SkipFilter(Long.parseLong(skip)));
+        }
+        String truncate = parameter(parameters, "truncate", null);
+        if (truncate != null) {
+            filters.add(new TruncateFilter(Long.parseLong(truncate)));
+        }
+        String from = parameter(parameters, "from", null);
+        String to = parameter(parameters, "to", null);
+        if (from != null || to != null) {
+            filters.add(new TimeWindowFilter(from == null ? Long.MIN_VALUE : Long.parseLong(from), to == null ? Long.MAX_VALUE : Long.parseLong(to)));
+        }
+        String status = parameter(parameters, "status", null);
+        if (status != null) {
+            filters.add(new StatusFilter(status));
+        }
+        List<String> names = parameters.getOrDefault("name", Collections.<String>emptyList());
+        if (!names.isEmpty()) {
+            filters.add(new RequestNameFilter(names.toArray(new String[0])));
+        }
+        List<String> scenarios = parameters.getOrDefault("scenario", Collections.<String>emptyList());
+        if (!scenarios.isEmpty()) {
+            filters.add(new ScenarioFilter(scenarios.toArray(new String[0])));
+        }
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream output = new BufferedOutputStream(exchange.getResponseBody(), 64 * 1024)) {
+            run.getParser().rewrite(run.getInfo(), output, filters);
+        }
+    }
+
+    private void cacheStatus(Map<String, List<String>> parameters, HttpExchange exchange) throws IOException {
+        try (Writer output = respond(exchange, "application/json")) {
+            output.write("{\"runs\":" + cache.size() + ",\"bytes\":" + cache.getBytes() + ",\"maxBytes\":" + cache.getMaxBytes()
+                    + ",\"hits\":" + cache.getHits() + ",\"misses\":" + cache.getMisses() + ",\"evictions\":" + cache.getEvictions() + "}\n");
+        }
+    }
+
+    private ParsedRun info(Path file) throws Exception {
+        return cache.get(RunKey.of(file, "info"), key -> {
+            SimulationLogParser parser = new SimulationLogParser(key.getPath());
+            parser.setParallelism(parallelism);
+            // a full pass: readInfo() would only see the first request start among the rows at the end of the log
+            return new ParsedRun(parser, parser.parseInfo(), false);
+        });
+    }
+
+    /** Resolves the {@code file} parameter against the root, which it must not leave. */
+    private Path file(Map<String, List<String>> parameters) throws IOException {
+        String name = parameter(parameters, "file", null);
+        if (name == null) {
+            throw new IllegalArgumentException("Parameter file is required");
+        }
+        Path file = root.resolve(name).toRealPath();
+        if (!file.startsWith(root)) {
+            throw new SecurityException(name + " is outside of " + root);
+        }
+        return file;
+    }
+
+    private void handle(HttpExchange exchange, Handler handler) {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                error(exchange, 405, "Only GET is supported");
+                return;
+            }
+            handler.handle(parameters(exchange.getRequestURI().getRawQuery()), exchange);
+        } catch (ExecutionException e) {
+            error(exchange, 500, String.valueOf(e.getCause()));
+        } catch (IllegalArgumentException e) {
+            error(exchange, 400, e.getMessage());
+        } catch (NoSuchFileException e) {
+            error(exchange, 404, "No such file: " + e.getMessage());
+        } catch (SecurityException e) {
+            error(exchange, 403, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            error(exchange, 503, "Interrupted");
+        } catch (Exception e) {
+            error(exchange, 500, String.valueOf(e));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static void error(HttpExchange exchange, int code, String message) {
+        try {
+            byte[] body = (message + "\n").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+            exchange.sendResponseHeaders(code, body.length);
+            exchange.getResponseBody().write(body);
+        } catch (IOException e) {
+            // headers were sent already or the client is gone, nothing left to tell it
+        }
+    }
+
+    private static Writer respond(HttpExchange exchange, String contentType) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType + "; charset=utf-8");
+        exchange.sendResponseHeaders(200, 0);
+        return new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8));
+    }
+
+    static Map<String, List<String>> parameters(String query) throws UnsupportedEncodingException {
+        Map<String, List<String>> parameters = new HashMap<>();
+        if (query == null || query.isEmpty()) {
+            return parameters;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), "UTF-8");
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), "UTF-8");
+            parameters.computeIfAbsent(name, n -> new ArrayList<>()).add(value);
+        }
+        return parameters;
+    }
+
+    private static String parameter(Map<String, List<String>> parameters, String name, String defaultValue) {
+        List<String> values = parameters.get(name);
+        return values == null || values.isEmpty() ? defaultValue : values.get(values.size() - 1);
+    }
+
+    private static boolean flag(Map<String, List<String>> parameters, String name) {
+        String value = parameter(parameters, name, null);
+        return value != null && (value.isEmpty() || Boolean.parseBoolean(value));
+    }
+
+    private static double[] centiles(String value) {
+        if (value == null) {
+            return Util.CENTILES;
+        }
+        String[] centiles = value.split(",");
+        double[] result = new double[centiles.length];
+        for (int i = 0; i < centiles.length; ++i) {
+            result[i] = Double.parseDouble(centiles[i].trim());
+        }
+        return result;
+    }
+
+    private static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder sb = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); ++i) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    private interface Handler {
+        void handle(Map<String, List<String>> parameters, HttpExchange exchange) throws Exception;
+    }
+
+    private static class ServerThreadFactory implements ThreadFactory {
+        private static final AtomicInteger COUNTER = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            return new Thread(runnable, "analysis-server-" + COUNTER.incrementAndGet());
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package org.jboss.performance.parser.server;
+
+import org.HdrHistogram.Histogram;
+import org.jboss.performance.parser.SimulationInfo;
+import org.jboss.performance.parser.SimulationLogParser;
+import org.jboss.performance.parser.consumer.RequestKey;
+import org.jboss.performance.parser.consumer.ResponseTimeStatistics;
+import org.jboss.performance.parser.report.SimulationReport;
+
+import java.util.Map;
+
+/**
+ * What the {@link AnalysisServer} keeps of a log: its {@link SimulationInfo} and, unless only the info was asked for,
+ * the statistics of a full parse, with the parser they came from.
+ */
+public class ParsedRun {
+
+    /** Rough cost of the objects around the histograms. */
+    private static final long OVERHEAD = 1024;
+    private static final long REQUEST_OVERHEAD = 256;
+
+    private final SimulationLogParser parser;
+    private final SimulationInfo info;
+    private final boolean parsed;
+
+    public ParsedRun(SimulationLogParser parser, SimulationInfo info, boolean parsed) {
+        this.parser = parser;
+        this.info = info;
+        this.parsed = parsed;
+    }
+
+    public SimulationLogParser getParser() {
+        return parser;
+    }
+
+    public SimulationInfo getInfo() {
+        return info;
+    }
+
+    /** @return the report of the full parse, or {@code null} if the run was only read for its info */
+    public SimulationReport getReport(double... centiles) {
+        return parsed && parser.getStatistics() != null ? parser.getReport(centiles) : null;
+    }
+
+    /** Estimated memory retained by this run. */
+    public long getEstimatedSize() {
+        long size = OVERHEAD;
+        if (parser.getStatistics() != null) {
+            size += parser.getStatistics().getHistogram().getEstimatedFootprintInBytes();
+        }
+        if (parser.getCorrectedStatistics() != null) {
+            size += parser.getCorrectedStatistics().getHistogram().getEstimatedFootprintInBytes();
+        }
+        if (parser.getBreakdown() != null) {
+            for (Map.Entry<RequestKey, ResponseTimeStatistics> entry : parser.getBreakdown().getStatistics().entrySet()) {
+                Histogram histogram = entry.getValue().getHistogram();
+                size += REQUEST_OVERHEAD + histogram.getEstimatedFootprintInBytes();
+            }
+        }
+        return size;
+    }
+}
@@ -0,0 +1,136 @@
+package org.jboss.performance.parser.server;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Least recently used cache of parsed runs, bounded by their estimated size in memory.
+ * <p>
+ * A run missing from the cache is parsed by the thread that asked for it first; threads asking for the same run
+ * meanwhile wait for that parse instead of starting their own. Loading a newer version of a log drops the older
+ * ones right away. After every load the least recently used runs are evicted until the cache fits its bound again,
+ * except for the run just loaded, which is kept even if it is larger than the bound on its own.
+ */
+public class RunCache<V> {
+
+    private final long maxBytes;
+    private final ToLongFunction<V> weigher;
+    private final LinkedHashMap<RunKey, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public RunCache(long maxBytes, ToLongFunction<V> weigher) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive: " + maxBytes);
+        }
+        this.maxBytes = maxBytes;
+        this.weigher = weigher;
+    }
+
+    /**
+     * @return the cached value for the key, loaded by {@code loader} if missing
+     * @throws ExecutionException if the loader failed, with its exception as cause; failures are not cached
+     */
+    public V get(RunKey key, Function<RunKey, V> loader) throws ExecutionException, InterruptedException {
+        Entry<V> entry;
+        boolean load = false;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry == null) {
+                ++misses;
+                entry = new Entry<>(new FutureTask<>(() -> loader.apply(key)));
+                entries.put(key, entry);
+                load = true;
+            } else {
+                ++hits;
+            }
+        }
+        if (load) {
+            entry.task.run();
+            loaded(key, entry);
+        }
+        return entry.task.get();
+    }
+
+    private synchronized void loaded(RunKey key, Entry<V> entry) {
+        V value;
+        try {
+            value = entry.task.get();
+        } catch (ExecutionException | InterruptedException e) {
+            entries.remove(key, entry);
+            return;
+        }
+        if (entries.get(key) != entry) {
+            // cleared while loading
+            return;
+        }
+        entry.bytes = weigher.applyAsLong(value);
+        bytes += entry.bytes;
+        for (Iterator<Map.Entry<RunKey, Entry<V>>> it = entries.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<RunKey, Entry<V>> other = it.next();
+            if (key.supersedes(other.getKey())) {
+                remove(it, other.getValue());
+            }
+        }
+        for (Iterator<Map.Entry<RunKey, Entry<V>>> it = entries.entrySet().iterator(); bytes > maxBytes && it.hasNext(); ) {
+            Map.Entry<RunKey, Entry<V>> eldest = it.next();
+            // runs still loading have no size yet and are left alone
+            if (eldest.getValue() != entry && eldest.getValue().task.isDone()) {
+                remove(it, eldest.getValue());
+            }
+        }
+    }
+
+    private void remove(Iterator<?> it, Entry<V> entry) {
+        it.remove();
+        bytes -= entry.bytes;
+        ++evictions;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    /** Number of cached runs, including those being loaded. */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /** Estimated memory taken by the cached runs. */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    private static class Entry<V> {
+        final FutureTask<V> task;
+        long bytes;
+
+        Entry(FutureTask<V> task) {
+            this.task = task;
+        }
+    }
+}
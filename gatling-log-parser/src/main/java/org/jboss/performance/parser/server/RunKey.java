@@ -0,0 +1,76 @@
+package org.jboss.performance.parser.server;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * Identifies a parsed run in the {@link RunCache}: the log by its real path, size and modification time, so that a
+ * log that is rewritten or still growing is parsed again, and the options it was parsed with.
+ */
+public final class RunKey {
+
+    private final String path;
+    private final long size;
+    private final long modified;
+    private final String options;
+
+    public RunKey(String path, long size, long modified, String options) {
+        this.path = path;
+        this.size = size;
+        this.modified = modified;
+        this.options = options;
+    }
+
+    /**
+     * @param options everything besides the log that the parse result depends on, in a canonical form
+     */
+    public static RunKey of(Path file, String options) throws IOException {
+        Path real = file.toRealPath();
+        return new RunKey(real.toString(), Files.size(real), Files.getLastModifiedTime(real).toMillis(), options);
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getModified() {
+        return modified;
+    }
+
+    public String getOptions() {
+        return options;
+    }
+
+    /** Whether both keys are for the same log and options, but different versions of the log. */
+    public boolean supersedes(RunKey other) {
+        return path.equals(other.path) && options.equals(other.options) && (size != other.size || modified != other.modified);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RunKey)) {
+            return false;
+        }
+        RunKey other = (RunKey) o;
+        return size == other.size && modified == other.modified && path.equals(other.path) && options.equals(other.options);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(path, size, modified, options);
+    }
+
+    @Override
+    public String toString() {
+        return path + " (" + size + " bytes, modified " + modified + ") " + options;
+    }
+}
@@ -3,7 +3,26 @@ package org.jboss.performance.parser;
 import junit.framework.Test;
 import junit.framework.TestCase;
 import junit.framework.TestSuite;
+import org.jboss.performance.parser.consumer.RequestKey;
+import org.jboss.performance.parser.consumer.RequestSink;
+import org.jboss.performance.parser.filter.Filter;
+import org.jboss.performance.parser.format.UnknownFileFormatException;
+import org.jboss.performance.parser.consumer.ResponseTimeStatistics;
 import org.jboss.performance.parser.printer.Util;
+import org.jboss.performance.parser.reader.Compression;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Unit test for simple App.
@@ -71,4 +90,298 @@ public class GatlingParserTest
         simulationLogParser.printStats(Util.getPrinters());
 
     }
+
+    public void testLogWithoutRecordsIsUnknownFormat() throws IOException {
+
+        Path log = Files.createTempFile("simulation", ".log.gz");
+        try {
+            for (String content : new String[]{"", "ASSERTION\tglobal\n"}) {
+                try (OutputStream output = Compression.GZIP.compress(Files.newOutputStream(log))) {
+                    output.write(content.getBytes(StandardCharsets.UTF_8));
+                }
+                try {
+                    new SimulationLogParser(log.toString());
+                    fail("Expected UnknownFileFormatException for '" + content + "'");
+                } catch (UnknownFileFormatException e) {
+                    assertTrue(e.getMessage().contains(log.toString()));
+                }
+            }
+        } finally {
+            Files.delete(log);
+        }
+    }
+
+    public void testUnreadableLogFailsParse() throws IOException {
+
+        String filePath = this.getClass().getClassLoader().getResource(SIMULATION_LOG_FILE_FORMAT_B).getPath();
+        Path log = Files.createTempFile("simulation", ".log");
+        Files.copy(Paths.get(filePath), log, StandardCopyOption.REPLACE_EXISTING);
+        SimulationLogParser simulationLogParser = new SimulationLogParser(log.toString());
+        Files.delete(log);
+
+        for (double sample : new double[]{0, 0.5}) {
+            simulationLogParser.setSample(sample, 1);
+            try {
+                simulationLogParser.parseLogFile();
+                fail("Expected UncheckedIOException with sample " + sample);
+            } catch (UncheckedIOException e) {
+                assertEquals("Cannot read " + log, e.getMessage());
+            }
+        }
+        try {
+            simulationLogParser.parseTimeline(1000, 10, bucket -> { });
+            fail("Expected UncheckedIOException from the timeline");
+        } catch (UncheckedIOException e) {
+            assertEquals("Cannot read " + log, e.getMessage());
+        }
+    }
+
+    public void testParallelHistogramMatchesSequential() {
+
+        String filePath = this.getClass().getClassLoader().getResource(SIMULATION_LOG_FILE_FORMAT_B).getPath();
+
+        SimulationLogParser sequential = new SimulationLogParser(filePath);
+        sequential.parseLogFile();
+
+        SimulationLogParser parallel = new SimulationLogParser(filePath);
+        parallel.setParallelism(4);
+        parallel.parseLogFile();
+
+        assertEquals(sequential.getStatistics().getSummary().getCount(), parallel.getStatistics().getSummary().getCount());
+        assertEquals(sequential.getStatistics().getSummary().getMax(), parallel.getStatistics().getSummary().getMax());
+        assertEquals(sequential.getStatistics().getHistogram(), parallel.getStatistics().getHistogram());
+        assertEquals(sequential.getStatistics().getSummary().getCount(), sequential.getStatistics().getHistogram().getTotalCount());
+    }
+
+    public void testBreakdown() {
+
+        String filePath = this.getClass().getClassLoader().getResource(SIMULATION_LOG_FILE).getPath();
+
+        SimulationLogParser simulationLogParser = new SimulationLogParser(filePath);
+        simulationLogParser.setParallelism(2);
+        simulationLogParser.setBreakdown(true, true);
+        simulationLogParser.parseLogFile();
+
+        long count = 0;
+        for (ResponseTimeStatistics statistics : simulationLogParser.getBreakdown().getStatistics().values()) {
+            count += statistics.getSummary().getCount();
+        }
+        assertEquals(simulationLogParser.getStatistics().getSummary().getCount(), count);
+        RequestKey key = simulationLogParser.getBreakdown().getStatistics().firstKey();
+        assertEquals("JaxbXmlSimulations.Put", key.getName());
+        assertEquals("", key.getGroup());
+        assertEquals("OK", key.getStatus());
+    }
+
+    public void testReadInfoMatchesParseInfo() {
+
+        for (String file : new String[]{SIMULATION_LOG_FILE, SIMULATION_LOG_FILE_FORMAT_B, SIMULATION_LOG_FILE_ASSERTIONS}) {
+            String filePath = this.getClass().getClassLoader().getResource(file).getPath();
+
+            SimulationLogParser simulationLogParser = new SimulationLogParser(filePath);
+            SimulationInfo parsed = simulationLogParser.parseInfo();
+            SimulationInfo read = simulationLogParser.readInfo();
+
+            assertEquals(parsed.clazz, read.clazz);
+            assertEquals(parsed.name, read.name);
+            assertEquals(parsed.startTime, read.startTime);
+            assertEquals(parsed.lastRequestComplete, read.lastRequestComplete);
+        }
+    }
+
+    public void testRewriteWithoutFiltersCopiesFile() throws IOException {
+
+        String filePath = this.getClass().getClassLoader().getResource(SIMULATION_LOG_FILE_ASSERTIONS).getPath();
+
+        SimulationLogParser simulationLogParser = new SimulationLogParser(filePath);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        simulationLogParser.rewrite(simulationLogParser.readInfo(), output, Collections.<Filter>emptyList());
+
+        assertTrue(Arrays.equals(Files.readAllBytes(Paths.get(filePath)), output.toByteArray()));
+    }
+
+    public void testWatchStartsOverWhenLogIsReplaced() throws IOException {
+
+        String filePath = this.getClass().getClassLoader().getResource(SIMULATION_LOG_FILE_FORMAT_B).getPath();
+        List<String> lines = Files.readAllLines(Paths.get(filePath));
+        List<String> replacement = lines.subList(0, lines.size() / 2);
+        Path log = Files.createTempFile("simulation", ".log");
+        Path shorter = Files.createTempFile("simulation", ".log");
+        try {
+            Files.write(log, lines);
+            Files.write(shorter, replacement);
+            SimulationLogParser expected = new SimulationLogParser(shorter.toString());
+            expected.parseLogFile();
+
+            SimulationLogParser simulationLogParser = new SimulationLogParser(log.toString());
+            boolean[] replaced = new boolean[1];
+            simulationLogParser.watch(10, 0, 300, () -> {
+                if (!replaced[0]) {
+                    try {
+                        Files.write(log, replacement);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    replaced[0] = true;
+                }
+            });
+
+            assertEquals(expected.getStatistics().getHistogram(), simulationLogParser.getStatistics().getHistogram());
+        } finally {
+            Files.delete(log);
+            Files.delete(shorter);
+        }
+    }
+
+    public void testAggregateMixedFormats() {
+
+        String formatA = this.getClass().getClassLoader().getResource(SIMULATION_LOG_FILE).getPath();
+        String formatB = this.getClass().getClassLoader().getResource(SIMULATION_LOG_FILE_FORMAT_B).getPath();
+
+        SimulationLogAggregator aggregator = new SimulationLogAggregator(Arrays.asList(formatA, formatB, formatA), file -> {
+            SimulationLogParser simulationLogParser = new SimulationLogParser(file);
+            simulationLogParser.setBreakdown(false, false);
+            return simulationLogParser;
+        }, 2);
+        aggregator.parseLogFiles();
+
+        assertEquals(3, aggregator.getParsers().size());
+        long count = 0;
+        double max = Double.NEGATIVE_INFINITY;
+        for (SimulationLogParser simulationLogParser : aggregator.getParsers()) {
+            count += simulationLogParser.getStatistics().getSummary().getCount();
+            max = Math.max(max, simulationLogParser.getStatistics().getSummary().getMax());
+        }
+        assertEquals(count, aggregator.getStatistics().getSummary().getCount());
+        assertEquals(count, aggregator.getStatistics().getHistogram().getTotalCount());
+        assertEquals(max, aggregator.getStatistics().getSummary().getMax());
+
+        long breakdownCount = 0;
+        for (ResponseTimeStatistics statistics : aggregator.getBreakdown().getStatistics().values()) {
+            breakdownCount += statistics.getSummary().getCount();
+        }
+        assertEquals(count, breakdownCount);
+    }
+
+    public void testAggregateFailsOnUnreadableLog() throws IOException {
+
+        String formatB = this.getClass().getClassLoader().getResource(SIMULATION_LOG_FILE_FORMAT_B).getPath();
+        Path missing = Files.createTempFile("simulation", ".log");
+        Files.copy(Paths.get(formatB), missing, StandardCopyOption.REPLACE_EXISTING);
+
+        SimulationLogAggregator aggregator = new SimulationLogAggregator(Arrays.asList(formatB, missing.toString()), file -> {
+            SimulationLogParser simulationLogParser = new SimulationLogParser(file);
+            if (file.equals(missing.toString())) {
+                // detected, then gone before the pass
+                try {
+                    Files.delete(missing);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return simulationLogParser;
+        }, 2);
+        try {
+            aggregator.parseLogFiles();
+            fail("Expected UncheckedIOException");
+        } catch (UncheckedIOException e) {
+            assertEquals("Cannot read " + missing, e.getMessage());
+        }
+    }
+
+    public void testMergeIsTimeOrdered() throws IOException {
+
+        String formatA = this.getClass().getClassLoader().getResource(SIMULATION_LOG_FILE).getPath();
+        String shifted = Files.createTempFile("simulation", ".log").toString();
+        new java.io.File(shifted).deleteOnExit();
+        // the same run 50 ms later, so that the lines of both sources interleave
+        StringBuilder content = new StringBuilder();
+        for (String line : Files.readAllLines(Paths.get(formatA))) {
+            String[] fields = line.split("\t", -1);
+            for (int i = 4; i < fields.length; ++i) {
+                if (fields[i].matches("1\\d{12}")) {
+                    fields[i] = String.valueOf(Long.parseLong(fields[i]) + 50);
+                }
+            }
+            content.append(String.join("\t", fields)).append('\n');
+        }
+        Files.write(Paths.get(shifted), content.toString().getBytes("UTF-8"));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new SimulationLogMerger(Arrays.asList(formatA, shifted)).merge(output, Collections.<Filter>emptyList());
+
+        String[] lines = new String(output.toByteArray(), "UTF-8").split("\n");
+        assertEquals(2 * Files.readAllLines(Paths.get(formatA)).size() - 1, lines.length);
+        assertTrue(lines[0].contains("\tRUN\t"));
+        // the source has a single request logged after a line with a later timestamp; one per copy is expected
+        long previous = Long.MIN_VALUE;
+        int inversions = 0;
+        for (int i = 1; i < lines.length; ++i) {
+            String[] fields = lines[i].split("\t", -1);
+            assertFalse(lines[i].contains("\tRUN\t"));
+            long key = "REQUEST".equals(fields[2]) ? Long.parseLong(fields[8]) : Long.parseLong(fields["START".equals(fields[3]) ? 4 : 5]);
+            if (key < previous) {
+                ++inversions;
+            }
+            previous = key;
+        }
+        assertTrue(inversions <= 2);
+    }
+
+    public void testMergeFailsOnMalformedRow() throws IOException {
+        String formatA = this.getClass().getClassLoader().getResource(SIMULATION_LOG_FILE).getPath();
+        String broken = Files.createTempFile("simulation", ".log").toString();
+        new java.io.File(broken).deleteOnExit();
+        List<String> lines = Files.readAllLines(Paths.get(formatA));
+        for (int i = lines.size() / 2; i < lines.size(); ++i) {
+            String[] fields = lines.get(i).split("\t", -1);
+            if ("REQUEST".equals(fields[2])) {
+                fields[8] = "x";
+                lines.set(i, String.join("\t", fields));
+                break;
+            }
+        }
+        Files.write(Paths.get(broken), lines);
+
+        try {
+            new SimulationLogMerger(Arrays.asList(formatA, broken)).merge(new ByteArrayOutputStream(), Collections.<Filter>emptyList());
+            fail("Malformed row was merged");
+        } catch (IOException e) {
+            assertTrue(e.getCause() instanceof NumberFormatException);
+        }
+    }
+
+    public void testCustomRequestSink() {
+
+        String filePath = this.getClass().getClassLoader().getResource(SIMULATION_LOG_FILE).getPath();
+
+        SimulationLogParser simulationLogParser = new SimulationLogParser(filePath);
+        simulationLogParser.setParallelism(3);
+        simulationLogParser.setWindow(1000, 500);
+        simulationLogParser.parseLogFile();
+
+        // counts KO requests and sums response times, without keeping any row
+        class Totals implements RequestSink {
+            long count;
+            long sum;
+            long ko;
+
+            @Override
+            public void accept(long start, long end, String group, String name, String status) {
+                ++count;
+                sum += end - start;
+                if ("KO".equals(status)) {
+                    ++ko;
+                }
+            }
+        }
+        Totals result = simulationLogParser.parseRequests(Totals::new, (a, b) -> {
+            a.count += b.count;
+            a.sum += b.sum;
+            a.ko += b.ko;
+        });
+        assertEquals(simulationLogParser.getStatistics().getSummary().getCount(), result.count);
+        assertEquals(simulationLogParser.getStatistics().getSummary().getSum(), (double) result.sum);
+        assertEquals(0, result.ko);
+    }
 }
@@ -0,0 +1,92 @@
+package org.jboss.performance.parser.cache;
+
+import junit.framework.TestCase;
+import org.jboss.performance.parser.SimulationInfo;
+import org.jboss.performance.parser.SimulationLogParser;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+public class ColumnarLogTest extends TestCase {
+
+    private Path log;
+
+    @Override
+    protected void setUp() throws IOException {
+        log = Files.createTempFile("simulation", ".log");
+        Files.copy(Paths.get(getClass().getClassLoader().getResource("simulation.log").getPath()), log, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Override
+    protected void tearDown() throws IOException {
+        Files.deleteIfExists(ColumnarLog.sidecar(log.toString()));
+        Files.deleteIfExists(log);
+    }
+
+    private SimulationLogParser parse(boolean cache, long skip, long truncate) {
+        SimulationLogParser parser = new SimulationLogParser(log.toString());
+        parser.setParallelism(3);
+        parser.setColumnarCache(cache);
+        parser.setWindow(skip, truncate);
+        parser.setBreakdown(true, true);
+        parser.parseLogFile();
+        return parser;
+    }
+
+    public void testCacheMatchesText() throws IOException {
+        SimulationLogParser text = parse(false, 1000, 500);
+        assertNull(ColumnarLog.open(log.toString()));
+
+        parse(true, -1, -1);
+        ColumnarLog columns = ColumnarLog.open(log.toString());
+        assertNotNull(columns);
+        assertEquals(122, columns.rows());
+        SimulationInfo info = text.parseInfo();
+        assertEquals(info.startTime, columns.getInfo().startTime);
+        assertEquals(info.clazz, columns.getInfo().clazz);
+        assertEquals(info.firstRequestStart, columns.getInfo().firstRequestStart);
+        assertEquals(info.lastRequestComplete, columns.getInfo().lastRequestComplete);
+        assertEquals(1462831088129L, columns.requestStart(0));
+        assertEquals(1462831088151L, columns.requestEnd(0));
+        assertEquals("OK", columns.statuses().get(columns.statusId(0)));
+
+        SimulationLogParser cached = parse(true, 1000, 500);
+        assertEquals(text.getStatistics().getHistogram(), cached.getStatistics().getHistogram());
+        assertEquals(text.getBreakdown().getStatistics().keySet(), cached.getBreakdown().getStatistics().keySet());
+    }
+
+    public void testStaleCacheIsIgnored() throws IOException {
+        parse(true, -1, -1);
+        assertNotNull(ColumnarLog.open(log.toString()));
+        Files.setLastModifiedTime(log, FileTime.fromMillis(Files.getLastModifiedTime(log).toMillis() + 5000));
+        assertNull(ColumnarLog.open(log.toString()));
+    }
+
+    public void testRequestOutsideCacheFormatSkipsCache() throws IOException {
+        List<String> lines = Files.readAllLines(log);
+        int last = lines.size() - 1;
+        while (!lines.get(last).contains("\tREQUEST\t")) {
+            --last;
+        }
+        // move the last request more than Integer.MAX_VALUE ms past the start of the run
+        String[] fields = lines.get(last).split("\t", -1);
+        for (int i = 0; i < fields.length; ++i) {
+            if (fields[i].matches("\\d{13}")) {
+                fields[i] = String.valueOf(Long.parseLong(fields[i]) + 3_000_000_000L);
+            }
+        }
+        lines.set(last, String.join("\t", fields));
+        Files.write(log, lines);
+
+        SimulationLogParser text = parse(false, -1, -1);
+        SimulationLogParser cached = parse(true, -1, -1);
+        assertNull(ColumnarLog.open(log.toString()));
+        assertEquals(text.getStatistics().getHistogram(), cached.getStatistics().getHistogram());
+        assertEquals(text.getBreakdown().getStatistics().keySet(), cached.getBreakdown().getStatistics().keySet());
+    }
+}
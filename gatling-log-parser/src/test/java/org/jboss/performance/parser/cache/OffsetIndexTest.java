@@ -0,0 +1,104 @@
+package org.jboss.performance.parser.cache;
+
+import junit.framework.TestCase;
+import org.jboss.performance.parser.SimulationInfo;
+import org.jboss.performance.parser.SimulationLogParser;
+import org.jboss.performance.parser.filter.Filter;
+import org.jboss.performance.parser.filter.SkipFilter;
+import org.jboss.performance.parser.filter.TimeWindowFilter;
+import org.jboss.performance.parser.filter.TruncateFilter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.List;
+
+public class OffsetIndexTest extends TestCase {
+
+    private Path log;
+
+    @Override
+    protected void setUp() throws IOException {
+        log = Files.createTempFile("simulation", ".log");
+        Files.copy(Paths.get(getClass().getClassLoader().getResource("simulation.log").getPath()), log, StandardCopyOption.REPLACE_EXISTING);
+        // small blocks, so that the window leaves some of them out
+        SimulationLogParser parser = new SimulationLogParser(log.toString());
+        OffsetIndex.build(log, parser.fileFormat, 2048).write(OffsetIndex.sidecar(log.toString()), Files.getLastModifiedTime(log).toMillis());
+    }
+
+    @Override
+    protected void tearDown() throws IOException {
+        Files.deleteIfExists(OffsetIndex.sidecar(log.toString()));
+        Files.deleteIfExists(log);
+    }
+
+    private SimulationLogParser parse(boolean index, int parallelism, long skip, long truncate) {
+        SimulationLogParser parser = new SimulationLogParser(log.toString());
+        parser.setParallelism(parallelism);
+        parser.setOffsetIndex(index);
+        parser.setWindow(skip, truncate);
+        parser.setBreakdown(true, true);
+        parser.parseLogFile();
+        return parser;
+    }
+
+    private byte[] rewrite(boolean index, List<Filter> filters) {
+        SimulationLogParser parser = new SimulationLogParser(log.toString());
+        parser.setOffsetIndex(index);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        parser.rewrite(parser.readInfo(), output, filters);
+        return output.toByteArray();
+    }
+
+    public void testRangesCoverWindow() throws IOException {
+        OffsetIndex index = OffsetIndex.open(log.toString());
+        assertNotNull(index);
+        assertEquals(Files.size(log), index.getSize());
+        assertEquals(1, index.ranges(Long.MIN_VALUE, Long.MAX_VALUE, false).size());
+        SimulationInfo info = new SimulationLogParser(log.toString()).parseInfo();
+        List<long[]> ranges = index.ranges(info.startTime + 3000, info.lastRequestComplete - 2000, false);
+        long length = 0;
+        for (long[] range : ranges) {
+            length += range[1] - range[0];
+        }
+        assertTrue(length > 0);
+        assertTrue(length < index.getSize());
+        // the RUN row is in the first block
+        assertEquals(0, index.ranges(info.startTime + 3000, info.lastRequestComplete - 2000, true).get(0)[0]);
+    }
+
+    public void testWindowedStatsMatchFullPass() {
+        for (int parallelism : new int[]{1, 3}) {
+            SimulationLogParser full = parse(false, parallelism, 3000, 2000);
+            SimulationLogParser indexed = parse(true, parallelism, 3000, 2000);
+            assertTrue(full.getStatistics().getHistogram().getTotalCount() > 0);
+            assertEquals(full.getStatistics().getHistogram(), indexed.getStatistics().getHistogram());
+            assertEquals(full.getBreakdown().getStatistics().keySet(), indexed.getBreakdown().getStatistics().keySet());
+        }
+    }
+
+    public void testFilteredLogMatchesFullPass() {
+        SimulationInfo info = new SimulationLogParser(log.toString()).parseInfo();
+        List<List<Filter>> cases = Arrays.asList(
+                Arrays.<Filter>asList(new SkipFilter(3000), new TruncateFilter(2000)),
+                Arrays.<Filter>asList(new TimeWindowFilter(info.startTime + 2000, info.startTime + 4000)));
+        for (List<Filter> filters : cases) {
+            byte[] full = rewrite(false, filters);
+            assertTrue(full.length > 0);
+            assertTrue(Arrays.equals(full, rewrite(true, filters)));
+        }
+    }
+
+    public void testStaleIndexIsRebuilt() throws IOException {
+        Files.setLastModifiedTime(log, FileTime.fromMillis(Files.getLastModifiedTime(log).toMillis() + 5000));
+        assertNull(OffsetIndex.open(log.toString()));
+        SimulationLogParser parser = new SimulationLogParser(log.toString());
+        assertNotNull(OffsetIndex.openOrBuild(log.toString(), parser.fileFormat));
+        assertNotNull(OffsetIndex.open(log.toString()));
+    }
+}
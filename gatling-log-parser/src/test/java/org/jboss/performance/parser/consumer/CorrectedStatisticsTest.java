@@ -0,0 +1,32 @@
+package org.jboss.performance.parser.consumer;
+
+import junit.framework.TestCase;
+import org.jboss.performance.parser.SimulationLogParser;
+
+public class CorrectedStatisticsTest extends TestCase {
+
+    public void testBackFill() {
+        CorrectedStatistics statistics = new CorrectedStatistics(10, 1000, 3);
+        statistics.accept(5);
+        statistics.accept(100);
+        // 5 is within the interval; 100 also stands for the requests held back for 90, 80, ... 10 ms
+        assertEquals(11, statistics.getHistogram().getTotalCount());
+        assertEquals(10, statistics.getHistogram().getCountBetweenValues(10, 100));
+    }
+
+    public void testParserReportsBoth() {
+        String filePath = getClass().getClassLoader().getResource("simulation.formatB.log").getPath();
+        SimulationLogParser simulationLogParser = new SimulationLogParser(filePath);
+        assertTrue(simulationLogParser.estimateArrivalInterval() > 0);
+
+        simulationLogParser.setExpectedInterval(2);
+        simulationLogParser.setParallelism(2);
+        simulationLogParser.parseLogFile();
+
+        long raw = simulationLogParser.getStatistics().getHistogram().getTotalCount();
+        assertTrue(simulationLogParser.getCorrectedStatistics().getHistogram().getTotalCount() > raw);
+        assertTrue(simulationLogParser.getCorrectedStatistics().getHistogram().getValueAtPercentile(95)
+                >= simulationLogParser.getStatistics().getHistogram().getValueAtPercentile(95));
+        assertNotNull(simulationLogParser.getReport(50, 95).getCorrected());
+    }
+}
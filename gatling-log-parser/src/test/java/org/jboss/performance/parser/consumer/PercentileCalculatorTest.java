@@ -0,0 +1,43 @@
+package org.jboss.performance.parser.consumer;
+
+import junit.framework.TestCase;
+import org.HdrHistogram.Histogram;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class PercentileCalculatorTest extends TestCase {
+
+    private static final double[] CENTILES = {0, 50, 75, 95, 99, 99.9, 100};
+
+    public void testSortedValues() {
+        double[] values = new double[1000];
+        for (int i = 0; i < values.length; ++i) {
+            values[i] = i + 1;
+        }
+        double[] result = PercentileCalculator.fromSorted(values, CENTILES);
+        assertTrue(Arrays.equals(new double[]{1, 500, 750, 950, 990, 999, 1000}, result));
+    }
+
+    public void testUnsortedValuesAndEdgeCases() {
+        double[] result = PercentileCalculator.fromValues(Arrays.asList(5d, 1d, 3d), 0, 50, 100);
+        assertTrue(Arrays.equals(new double[]{1, 3, 5}, result));
+        assertTrue(Double.isNaN(PercentileCalculator.fromValues(Collections.<Double>emptyList(), 0, 99)[1]));
+    }
+
+    public void testHistogramMatchesGetValueAtPercentile() {
+        Histogram histogram = new Histogram(3600000, 3);
+        for (int i = 0; i < 10000; ++i) {
+            histogram.recordValue((i * 7919L) % 50000);
+        }
+        double[] centiles = {99.9, 50, 0, 75, 99.9999, 100};
+        double[] result = PercentileCalculator.fromHistogram(histogram, centiles);
+        for (int i = 0; i < centiles.length; ++i) {
+            if (centiles[i] > 0) {
+                assertEquals("p" + centiles[i], (double) histogram.getValueAtPercentile(centiles[i]), result[i]);
+            }
+        }
+        assertEquals((double) histogram.getMinValue(), result[2]);
+        assertTrue(Double.isNaN(PercentileCalculator.fromHistogram(new Histogram(3), 50)[0]));
+    }
+}
@@ -0,0 +1,34 @@
+package org.jboss.performance.parser.consumer;
+
+import junit.framework.TestCase;
+
+public class SampledStatisticsTest extends TestCase {
+
+    private static SampledStatistics range(long... responseTimes) {
+        SampledStatistics range = new SampledStatistics(60000);
+        for (long responseTime : responseTimes) {
+            range.accept(responseTime);
+        }
+        return range;
+    }
+
+    public void testEstimates() {
+        SampledStatistics sample = range(10, 20);
+        sample.combine(range(10, 20, 30, 40));
+        sample.combine(range(10, 20, 30));
+        sample.setTotalRanges(30);
+
+        assertEquals(3, sample.getSampledRanges());
+        assertEquals(0.1, sample.getFraction(), 1e-9);
+        assertEquals(90, sample.getEstimatedCount(), 1e-9);
+        // counts 2, 4, 3: variance 1, corrected by 1 - 3/30
+        assertEquals(30 * Math.sqrt(0.9 / 3), sample.getCountStandardError(), 1e-9);
+        assertEquals(0, sample.getShareStandardError(40), 1e-9);
+        assertTrue(sample.getShareStandardError(20) > 0);
+
+        // reading every range leaves no error
+        sample.setTotalRanges(3);
+        assertEquals(9, sample.getEstimatedCount(), 1e-9);
+        assertEquals(0, sample.getCountStandardError(), 1e-9);
+    }
+}
@@ -0,0 +1,87 @@
+package org.jboss.performance.parser.consumer;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class TimelineTest extends TestCase {
+
+    private final List<long[]> emitted = new ArrayList<>();
+
+    private Timeline timeline(int window) {
+        return new Timeline(1000, window, 60000, 2,
+                bucket -> emitted.add(new long[]{bucket.getStart(), bucket.getCount(), bucket.getErrors()}));
+    }
+
+    public void testBucketsAreContiguous() {
+        Timeline timeline = timeline(3);
+        timeline.accept(10500, 10, true);
+        timeline.accept(10999, 20, false);
+        timeline.accept(11000, 5, true);
+        timeline.accept(20001, 5, true);
+        timeline.finish();
+
+        assertEquals(11, emitted.size());
+        for (int i = 0; i < emitted.size(); ++i) {
+            assertEquals(10000 + i * 1000, emitted.get(i)[0]);
+        }
+        assertEquals(2, emitted.get(0)[1]);
+        assertEquals(1, emitted.get(0)[2]);
+        assertEquals(1, emitted.get(1)[1]);
+        assertEquals(0, emitted.get(5)[1]);
+        assertEquals(1, emitted.get(10)[1]);
+        assertEquals(0, timeline.getLate());
+    }
+
+    public void testOutOfOrderWithinWindow() {
+        Timeline timeline = timeline(2);
+        timeline.accept(5000, 1, true);
+        timeline.accept(6100, 1, true);
+        timeline.accept(5900, 1, true);
+        timeline.accept(7000, 1, true);
+        timeline.accept(5100, 1, true);
+        timeline.finish();
+
+        assertEquals(3, emitted.size());
+        assertEquals(2, emitted.get(0)[1]);
+        assertEquals(1, emitted.get(1)[1]);
+        assertEquals(1, emitted.get(2)[1]);
+        assertEquals(1, timeline.getLate());
+    }
+
+    public void testActiveUsers() {
+        List<long[]> users = new ArrayList<>();
+        Timeline timeline = new Timeline(1000, 2, 60000, 2,
+                bucket -> users.add(new long[]{bucket.getStart(), bucket.getActiveUsers(), bucket.getPeakUsers()}));
+        timeline.acceptUser(1000, true);
+        timeline.acceptUser(1200, true);
+        timeline.accept(1300, 10, true);
+        // written out of order, but within the window
+        timeline.acceptUser(1100, true);
+        timeline.acceptUser(1500, false);
+        timeline.acceptUser(2000, false);
+        timeline.acceptUser(2000, true);
+        timeline.accept(2500, 10, true);
+        timeline.acceptUser(3999, false);
+        timeline.acceptUser(6000, false);
+        timeline.finish();
+
+        assertEquals(6, users.size());
+        assertEquals(1000, users.get(0)[0]);
+        assertEquals(2, users.get(0)[1]);
+        assertEquals(3, users.get(0)[2]);
+        // the user ending at 2000 is not counted together with the one starting at the same time
+        assertEquals(2, users.get(1)[1]);
+        assertEquals(2, users.get(1)[2]);
+        assertEquals(1, users.get(2)[1]);
+        assertEquals(2, users.get(2)[2]);
+        assertEquals(1, users.get(4)[1]);
+        assertEquals(0, users.get(5)[1]);
+        assertEquals(1, users.get(5)[2]);
+        assertEquals(3, timeline.getPeakUsers());
+        assertEquals(1200, timeline.getPeakUsersTime());
+        assertEquals(0, timeline.getActiveUsers());
+        assertEquals(0, timeline.getLateUsers());
+    }
+}
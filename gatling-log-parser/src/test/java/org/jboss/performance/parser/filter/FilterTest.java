@@ -0,0 +1,99 @@
+package org.jboss.performance.parser.filter;
+
+import junit.framework.TestCase;
+import org.jboss.performance.parser.SimulationInfo;
+import org.jboss.performance.parser.format.FileFormat;
+import org.jboss.performance.parser.format.FileVersionA;
+import org.jboss.performance.parser.format.FileVersionB;
+import org.jboss.performance.parser.reader.FieldCursor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class FilterTest extends TestCase {
+
+    private final FileFormat formatB = new FileVersionB();
+    private final SimulationInfo info = new SimulationInfo("simulation.log");
+
+    @Override
+    protected void setUp() {
+        info.startTime = 1000;
+        info.lastRequestComplete = 9000;
+    }
+
+    private List<String> run(FileFormat fileFormat, List<Filter> filters, String... lines) {
+        List<String> output = new ArrayList<>();
+        FilterPipeline pipeline = new FilterPipeline(filters);
+        LogRecord record = new LogRecord(fileFormat, info);
+        for (String line : lines) {
+            byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+            record.reset(new FieldCursor(fileFormat).reset(bytes, 0, bytes.length));
+            if (!pipeline.test(record)) {
+                continue;
+            }
+            LogRecord result = pipeline.apply(record, added -> output.add(String.join("\t", added.getCursor().columns())));
+            if (result != null) {
+                output.add(String.join("\t", result.getCursor().columns()));
+            }
+        }
+        return output;
+    }
+
+    public void testSkipSplitsRunningUsers() {
+        List<String> output = run(formatB, Arrays.<Filter>asList(new SkipFilter(2000)),
+                "RUN\tSim\t\t5000\t1000\tnull\t2.0",
+                "USER\tScn\t1\tSTART\t1500\t1500",
+                "USER\tScn\t2\tSTART\t2500\t2500",
+                "REQUEST\tScn\t1\t\tget\t1600\t1700\tOK\t ",
+                "REQUEST\tScn\t2\t\tget\t3000\t3100\tOK\t ",
+                "USER\tScn\t1\tEND\t1500\t3500",
+                "USER\tScn\t2\tEND\t2500\t4000");
+        assertEquals(Arrays.asList(
+                "RUN\tSim\t\t5000\t3000\tnull\t2.0",
+                "REQUEST\tScn\t2\t\tget\t3000\t3100\tOK\t ",
+                "USER\tScn\t1\tSTART\t3000\t0",
+                "USER\tScn\t1\tEND\t3000\t3500",
+                "USER\tScn\t2\tSTART\t3000\t0",
+                "USER\tScn\t2\tEND\t3000\t4000"), output);
+    }
+
+    public void testTruncate() {
+        List<String> output = run(formatB, Arrays.<Filter>asList(new TruncateFilter(1000)),
+                "REQUEST\tScn\t1\t\tget\t7000\t7500\tOK\t ",
+                "REQUEST\tScn\t1\t\tget\t7600\t8500\tOK\t ",
+                "USER\tScn\t1\tEND\t1500\t8500");
+        assertEquals(Arrays.asList("REQUEST\tScn\t1\t\tget\t7000\t7500\tOK\t "), output);
+    }
+
+    public void testNameStatusAndScenario() {
+        FileFormat formatA = new FileVersionA();
+        String[] lines = {
+                "ScnA\t1\tUSER\tSTART\t1500\t0",
+                "ScnA\t1\tREQUEST\t\tget\t1600\t1601\t1700\t1700\tOK\t ",
+                "ScnA\t1\tREQUEST\t\tput\t1600\t1601\t1700\t1700\tKO\t ",
+                "ScnB\t2\tREQUEST\t\tget\t1600\t1601\t1700\t1700\tKO\t ",
+        };
+        assertEquals(Arrays.asList(lines[0], lines[1], lines[3]),
+                run(formatA, Arrays.<Filter>asList(new RequestNameFilter("get", "post")), lines));
+        assertEquals(Arrays.asList(lines[0], lines[2], lines[3]),
+                run(formatA, Arrays.<Filter>asList(new StatusFilter("KO")), lines));
+        assertEquals(Arrays.asList(lines[0], lines[2]),
+                run(formatA, Arrays.<Filter>asList(new ScenarioFilter("ScnA"), new StatusFilter("KO")), lines));
+    }
+
+    public void testTimeWindowKeepsUsersBalanced() {
+        List<String> output = run(formatB, Arrays.<Filter>asList(new TimeWindowFilter(2000, 5000)),
+                "USER\tScn\t1\tSTART\t1500\t1500",
+                "USER\tScn\t2\tSTART\t2500\t2500",
+                "REQUEST\tScn\t2\t\tget\t2600\t2700\tOK\t ",
+                "REQUEST\tScn\t2\t\tget\t4900\t5100\tOK\t ",
+                "USER\tScn\t1\tEND\t1500\t3000",
+                "USER\tScn\t2\tEND\t2500\t4000");
+        assertEquals(Arrays.asList(
+                "USER\tScn\t2\tSTART\t2500\t2500",
+                "REQUEST\tScn\t2\t\tget\t2600\t2700\tOK\t ",
+                "USER\tScn\t2\tEND\t2500\t4000"), output);
+    }
+}
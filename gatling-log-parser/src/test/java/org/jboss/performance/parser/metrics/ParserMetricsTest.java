@@ -0,0 +1,57 @@
+package org.jboss.performance.parser.metrics;
+
+import junit.framework.TestCase;
+import org.jboss.performance.parser.SimulationInfo;
+import org.jboss.performance.parser.SimulationLogParser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+public class ParserMetricsTest extends TestCase {
+
+    private String filePath;
+    private long size;
+    private long lines;
+
+    @Override
+    protected void setUp() throws IOException {
+        filePath = getClass().getClassLoader().getResource("simulation.formatB.log").getPath();
+        size = Files.size(Paths.get(filePath));
+        lines = Files.readAllLines(Paths.get(filePath)).size();
+    }
+
+    public void testCountsEveryByteAndLine() {
+        for (int parallelism : new int[]{1, 3}) {
+            ParserMetrics metrics = new ParserMetrics();
+            SimulationLogParser simulationLogParser = new SimulationLogParser(filePath);
+            simulationLogParser.setParallelism(parallelism);
+            simulationLogParser.setMetrics(metrics);
+            simulationLogParser.parseLogFile();
+
+            assertEquals(size, metrics.getExpectedBytes());
+            assertEquals(size, metrics.getBytesRead());
+            assertEquals(lines, metrics.getLinesRead());
+            assertTrue(metrics.getTime(Stage.PARSE, TimeUnit.NANOSECONDS) > 0);
+            assertEquals(0, metrics.getLinesWritten());
+        }
+    }
+
+    public void testRewriteIsMetered() {
+        ParserMetrics metrics = new ParserMetrics();
+        SimulationLogParser simulationLogParser = new SimulationLogParser(filePath);
+        simulationLogParser.setMetrics(metrics);
+        SimulationInfo info = simulationLogParser.readInfo();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        simulationLogParser.rewrite(info, new MeteredOutputStream(output, metrics), Collections.emptyList());
+
+        assertEquals(size, metrics.getBytesRead());
+        assertEquals(lines, metrics.getLinesWritten());
+        assertEquals(output.size(), metrics.getBytesWritten());
+        assertTrue(metrics.getTime(Stage.FILTER, TimeUnit.NANOSECONDS) > 0);
+        assertTrue(metrics.profile().contains(lines + " lines read"));
+    }
+}
@@ -0,0 +1,93 @@
+package org.jboss.performance.parser.query;
+
+import junit.framework.TestCase;
+import org.jboss.performance.parser.SimulationLogParser;
+import org.jboss.performance.parser.cache.ColumnarLog;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+public class QueryTest extends TestCase {
+
+    public void testParse() {
+        Query query = Query.parse("SELECT count(*), mean, p99.9 WHERE name IN ('a b', c) AND status != ko AND time BETWEEN 5m AND 10m GROUP BY name, status");
+        assertEquals(3, query.getAggregates().size());
+        assertEquals("p99.9", query.getAggregates().get(2).getLabel());
+        assertEquals(3, query.getConditions().size());
+        assertTrue(query.getConditions().get(0).getValues().contains("a b"));
+        assertTrue(query.getConditions().get(1).isNegated());
+        assertTrue(query.getConditions().get(1).getValues().contains("KO"));
+        assertEquals(300000, query.getConditions().get(2).getMin());
+        assertEquals(600001, query.getConditions().get(2).getMax());
+
+        for (String invalid : new String[]{"", "count where", "p101", "count group by time", "count where name ~ x", "count 'x'"}) {
+            try {
+                Query.parse(invalid);
+                fail(invalid);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    public void testCacheAndTextAgree() throws IOException {
+        Path log = Files.createTempFile("simulation", ".log");
+        try {
+            Files.copy(Paths.get(getClass().getClassLoader().getResource("simulation.formatB.log").getPath()), log, StandardCopyOption.REPLACE_EXISTING);
+            SimulationLogParser simulationLogParser = new SimulationLogParser(log.toString());
+            simulationLogParser.setColumnarCache(true);
+            simulationLogParser.setParallelism(2);
+            RequestColumns text = simulationLogParser.readColumns();
+            assertTrue(text instanceof RequestTable);
+            RequestColumns cached = simulationLogParser.readColumns();
+            assertTrue(cached instanceof ColumnarLog);
+
+            simulationLogParser.parseLogFile();
+            long total = simulationLogParser.getStatistics().getHistogram().getTotalCount();
+            QueryEngine engine = new QueryEngine(Query.parse("count, mean, max, p95 group by status, name"));
+            QueryResult fromText = engine.execute(text);
+            QueryResult fromCache = engine.execute(cached);
+            assertEquals(fromText.getRows().size(), fromCache.getRows().size());
+            long count = 0;
+            for (int i = 0; i < fromText.getRows().size(); ++i) {
+                assertEquals(fromText.getRows().get(i).getKeys(), fromCache.getRows().get(i).getKeys());
+                for (int j = 0; j < 4; ++j) {
+                    assertEquals(fromText.getRows().get(i).getValue(j), fromCache.getRows().get(i).getValue(j));
+                }
+                count += (long) fromText.getRows().get(i).getValue(0);
+            }
+            assertEquals(total, count);
+
+            List<QueryResult.Row> slow = new QueryEngine(Query.parse("count, min where duration >= 50 and time < 1h")).execute(cached).getRows();
+            assertEquals(1, slow.size());
+            assertTrue(slow.get(0).getValue(0) > 0 && slow.get(0).getValue(0) < total);
+            assertEquals(50.0, slow.get(0).getValue(1), 50.0);
+
+            QueryResult none = new QueryEngine(Query.parse("count, mean where name = missing")).execute(text);
+            assertEquals(0.0, none.getRows().get(0).getValue(0));
+            assertTrue(Double.isNaN(none.getRows().get(0).getValue(1)));
+        } finally {
+            Files.deleteIfExists(ColumnarLog.sidecar(log.toString()));
+            Files.delete(log);
+        }
+    }
+
+    public void testUnreadableLogFails() throws IOException {
+        Path log = Files.createTempFile("simulation", ".log");
+        Files.copy(Paths.get(getClass().getClassLoader().getResource("simulation.formatB.log").getPath()), log, StandardCopyOption.REPLACE_EXISTING);
+        SimulationLogParser simulationLogParser = new SimulationLogParser(log.toString());
+        simulationLogParser.setColumnarCache(true);
+        Files.delete(log);
+        try {
+            simulationLogParser.readColumns();
+            fail("Expected UncheckedIOException");
+        } catch (UncheckedIOException e) {
+            assertTrue(e.getMessage().contains(log.toString()));
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package org.jboss.performance.parser.reader;
+
+import junit.framework.TestCase;
+import org.jboss.performance.parser.SimulationInfo;
+import org.jboss.performance.parser.SimulationLogParser;
+import org.jboss.performance.parser.format.BinaryFileVersion;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+public class BinaryLogReaderTest extends TestCase {
+
+    private Path text;
+    private Path binary;
+
+    @Override
+    protected void setUp() throws IOException {
+        text = Files.createTempFile("simulation", ".log");
+        binary = Files.createTempFile("simulation", ".log");
+    }
+
+    @Override
+    protected void tearDown() throws IOException {
+        Files.deleteIfExists(text);
+        Files.deleteIfExists(binary);
+    }
+
+    public void testDecodesRecordsAndLines() throws IOException {
+        Files.write(text, Arrays.asList(
+                "RUN\tSim\t\tdescription\t1000\t\t3.4",
+                "USER\tScn\t1\tSTART\t1100\t1100",
+                "REQUEST\tScn\t1\tcheckout,pay\tpost\t1200\t1300\tKO\tfailed\twith tab",
+                "REQUEST\tScn\t1\t\tget\t1300\t1350\tOK\t",
+                "USER\tScn\t1\tEND\t1100\t1400"), StandardCharsets.UTF_8);
+        BinaryLogWriter.convert(text, binary);
+        assertTrue(BinaryLogReader.detect(binary.toString()));
+        assertFalse(BinaryLogReader.detect(text.toString()));
+
+        try (BinaryLogReader reader = new BinaryLogReader(binary.toString())) {
+            assertTrue(reader.next());
+            assertEquals(BinaryLogReader.RecordType.RUN, reader.getType());
+            assertEquals("Sim", reader.getSimulationClass());
+            assertEquals(1000, reader.getRunStart());
+            assertTrue(reader.next());
+            assertTrue(reader.isUserStart());
+            assertEquals("Scn", reader.getScenario());
+            assertTrue(reader.next());
+            assertEquals(BinaryLogReader.RecordType.REQUEST, reader.getType());
+            assertEquals("checkout,pay", reader.getGroup());
+            assertEquals("post", reader.getName());
+            assertEquals(1200, reader.getStart());
+            assertEquals(1300, reader.getEnd());
+            assertFalse(reader.isOk());
+            assertEquals("failed", reader.getMessage());
+            assertTrue(reader.next());
+            assertEquals("", reader.getGroup());
+            assertTrue(reader.isOk());
+            assertTrue(reader.next());
+            assertFalse(reader.isUserStart());
+            assertEquals(1400, reader.getEnd());
+            assertFalse(reader.next());
+            assertEquals(Files.size(binary), reader.position());
+        }
+
+        ByteArrayOutputStream lines = new ByteArrayOutputStream();
+        try (BinaryLogInputStream input = new BinaryLogInputStream(new BinaryLogReader(binary.toString()))) {
+            byte[] buffer = new byte[7];
+            for (int read; (read = input.read(buffer)) > 0; ) {
+                lines.write(buffer, 0, read);
+            }
+        }
+        assertEquals(Arrays.asList(
+                "RUN\tSim\t\tdescription\t1000\t\t3.4",
+                "USER\tScn\t0\tSTART\t1100\t1100",
+                "REQUEST\t\t0\tcheckout,pay\tpost\t1200\t1300\tKO\tfailed",
+                "REQUEST\t\t0\t\tget\t1300\t1350\tOK\t",
+                "USER\tScn\t0\tEND\t1400\t1400"), Arrays.asList(lines.toString("UTF-8").split("\n")));
+    }
+
+    public void testParserMatchesTextLog() throws IOException {
+        Path source = Paths.get(getClass().getClassLoader().getResource("simulation.formatB.log").getPath());
+        BinaryLogWriter.convert(source, binary);
+        for (Compression compression : new Compression[]{Compression.NONE, Compression.GZIP}) {
+            if (compression != Compression.NONE) {
+                byte[] plain = Files.readAllBytes(binary);
+                try (OutputStream output = compression.compress(Files.newOutputStream(binary))) {
+                    output.write(plain);
+                }
+            }
+            SimulationLogParser textParser = new SimulationLogParser(source.toString());
+            textParser.setBreakdown(true, true);
+            textParser.parseLogFile();
+            SimulationLogParser binaryParser = new SimulationLogParser(binary.toString());
+            assertTrue(binaryParser.fileFormat instanceof BinaryFileVersion);
+            binaryParser.setBreakdown(true, true);
+            binaryParser.setParallelism(2);
+            binaryParser.parseLogFile();
+
+            assertEquals(textParser.getStatistics().getHistogram(), binaryParser.getStatistics().getHistogram());
+            assertEquals(textParser.getStatistics().getSummary().getAverage(), binaryParser.getStatistics().getSummary().getAverage());
+            assertEquals(textParser.getBreakdown().getStatistics().keySet(), binaryParser.getBreakdown().getStatistics().keySet());
+
+            SimulationInfo textInfo = textParser.parseInfo();
+            SimulationInfo binaryInfo = binaryParser.readInfo();
+            assertEquals(textInfo.clazz, binaryInfo.clazz);
+            assertEquals(textInfo.startTime, binaryInfo.startTime);
+            assertEquals(textInfo.firstRequestStart, binaryInfo.firstRequestStart);
+            assertEquals(textInfo.lastRequestComplete, binaryInfo.lastRequestComplete);
+            assertEquals(textInfo.lastRequestComplete, binaryParser.parseInfo().lastRequestComplete);
+
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            binaryParser.rewrite(binaryInfo, output, Collections.emptyList());
+            List<String> lines = Arrays.asList(output.toString("UTF-8").split("\n"));
+            List<String> sourceLines = Files.readAllLines(source, StandardCharsets.UTF_8);
+            assertEquals(sourceLines.size(), lines.size());
+            assertEquals(sourceLines.get(sourceLines.size() - 1).split("\t")[5], lines.get(lines.size() - 1).split("\t")[5]);
+        }
+    }
+
+    /** simulation.binary.log was written by Gatling 3.13.5, with Latin-1 and UTF-16 strings, a group and KOs. */
+    public void testDecodesGatlingLog() throws IOException {
+        String log = Paths.get(getClass().getClassLoader().getResource("simulation.binary.log").getPath()).toString();
+        assertTrue(BinaryLogReader.detect(log));
+        Set<String> scenarios = new HashSet<>();
+        Map<String, Integer> requests = new TreeMap<>();
+        int users = 0;
+        int failures = 0;
+        try (BinaryLogReader reader = new BinaryLogReader(log)) {
+            assertTrue(reader.next());
+            assertEquals(BinaryLogReader.RecordType.RUN, reader.getType());
+            assertEquals("3.13.5", reader.getVersion());
+            assertEquals("SmallSimulation", reader.getSimulationClass());
+            assertEquals("", reader.getDescription());
+            while (reader.next()) {
+                switch (reader.getType()) {
+                    case USER:
+                        scenarios.add(reader.getScenario());
+                        users += reader.isUserStart() ? 1 : 0;
+                        break;
+                    case REQUEST:
+                        String name = reader.getGroup().isEmpty() ? reader.getName() : reader.getGroup() + "/" + reader.getName();
+                        requests.merge(name, 1, Integer::sum);
+                        if (!reader.isOk()) {
+                            ++failures;
+                            assertEquals("status.find.in([200, 209], 304), found 404", reader.getMessage());
+                        }
+                        break;
+                    default:
+                }
+            }
+            assertEquals(Files.size(Paths.get(log)), reader.position());
+        }
+        assertEquals(new HashSet<>(Arrays.asList("Browse", "Suche 検索")), scenarios);
+        assertEquals(9, users);
+        assertEquals("{checkout/cart=6, checkout/missing=6, déjà vu=6, home=6, 検索=3}", requests.toString());
+        assertEquals(6, failures);
+
+        SimulationLogParser parser = new SimulationLogParser(log);
+        assertTrue(parser.fileFormat instanceof BinaryFileVersion);
+        parser.parseLogFile();
+        assertEquals(27, parser.getStatistics().getHistogram().getTotalCount());
+        assertEquals(2, parser.getStatistics().getHistogram().getMinValue());
+        assertEquals(224, parser.getStatistics().getHistogram().getMaxValue());
+    }
+}
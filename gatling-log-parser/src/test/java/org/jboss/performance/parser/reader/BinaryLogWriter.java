@@ -0,0 +1,108 @@
+package org.jboss.performance.parser.reader;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes a binary log with the records of a format B text log, in the layout of the writer of Gatling 3.13 read by
+ * {@link BinaryLogReader}.
+ */
+class BinaryLogWriter {
+
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    private DataOutputStream output;
+    private long runStart;
+
+    static void convert(Path text, Path binary) throws IOException {
+        new BinaryLogWriter().write(text, binary);
+    }
+
+    private void write(Path text, Path binary) throws IOException {
+        List<String> lines = Files.readAllLines(text, StandardCharsets.UTF_8);
+        List<String> scenarios = new ArrayList<>();
+        for (String line : lines) {
+            String[] columns = line.split("\t", -1);
+            if ("USER".equals(columns[0]) && !scenarios.contains(columns[1])) {
+                scenarios.add(columns[1]);
+            }
+        }
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(binary)))) {
+            this.output = output;
+            for (String line : lines) {
+                String[] columns = line.split("\t", -1);
+                switch (columns[0]) {
+                    case "RUN":
+                        if (runStart != 0) {
+                            break;
+                        }
+                        runStart = Long.parseLong(columns[4]);
+                        output.writeByte(0);
+                        writeString(columns[6]);
+                        writeString(columns[1]);
+                        output.writeLong(runStart);
+                        writeString(columns[3]);
+                        output.writeInt(scenarios.size());
+                        for (String scenario : scenarios) {
+                            writeString(scenario);
+                        }
+                        output.writeInt(0);
+                        break;
+                    case "USER":
+                        output.writeByte(2);
+                        output.writeInt(scenarios.indexOf(columns[1]));
+                        boolean start = "START".equals(columns[3]);
+                        output.writeBoolean(start);
+                        output.writeInt((int) (Long.parseLong(columns[start ? 4 : 5]) - runStart));
+                        break;
+                    case "REQUEST":
+                        output.writeByte(1);
+                        String[] groups = columns[3].isEmpty() ? new String[0] : columns[3].split(",");
+                        output.writeInt(groups.length);
+                        for (String group : groups) {
+                            writeCachedString(group);
+                        }
+                        writeCachedString(columns[4]);
+                        output.writeInt((int) (Long.parseLong(columns[5]) - runStart));
+                        output.writeInt((int) (Long.parseLong(columns[6]) - runStart));
+                        output.writeBoolean("OK".equals(columns[7]));
+                        writeCachedString(columns.length > 8 ? columns[8] : "");
+                        break;
+                    default:
+                }
+            }
+        }
+    }
+
+    private void writeCachedString(String value) throws IOException {
+        Integer index = dictionary.get(value);
+        if (index != null) {
+            output.writeInt(-index);
+            return;
+        }
+        index = dictionary.size() + 1;
+        dictionary.put(value, index);
+        output.writeInt(index);
+        writeString(value);
+    }
+
+    /** Writes the internal value of the string: Latin-1 when all its chars fit, else little-endian UTF-16. */
+    private void writeString(String value) throws IOException {
+        if (value.isEmpty()) {
+            output.writeInt(0);
+            return;
+        }
+        boolean latin1 = value.chars().allMatch(c -> c < 256);
+        byte[] bytes = value.getBytes(latin1 ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_16LE);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+        output.writeByte(latin1 ? 0 : 1);
+    }
+}
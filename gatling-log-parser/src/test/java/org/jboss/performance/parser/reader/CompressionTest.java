@@ -0,0 +1,103 @@
+package org.jboss.performance.parser.reader;
+
+import junit.framework.TestCase;
+import org.jboss.performance.parser.SimulationInfo;
+import org.jboss.performance.parser.SimulationLogParser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+public class CompressionTest extends TestCase {
+
+    private final String plain = getClass().getClassLoader().getResource("simulation.formatB.log").getPath();
+
+    private Path compress(byte[] content, Compression compression) throws IOException {
+        Path file = Files.createTempFile("simulation", ".log." + compression.name().toLowerCase());
+        file.toFile().deleteOnExit();
+        try (OutputStream output = compression.compress(Files.newOutputStream(file))) {
+            output.write(content);
+        }
+        return file;
+    }
+
+    public void testDetectAndParse() throws IOException {
+        byte[] content = Files.readAllBytes(Paths.get(plain));
+        SimulationLogParser expected = new SimulationLogParser(plain);
+        expected.parseLogFile();
+        SimulationInfo expectedInfo = expected.parseInfo();
+
+        assertEquals(Compression.NONE, Compression.detect(plain));
+        for (Compression compression : new Compression[]{Compression.GZIP, Compression.ZSTD}) {
+            String file = compress(content, compression).toString();
+            assertEquals(compression, Compression.detect(file));
+
+            SimulationLogParser parser = new SimulationLogParser(file);
+            parser.setParallelism(4);
+            parser.parseLogFile();
+            assertEquals(expected.getStatistics().getHistogram(), parser.getStatistics().getHistogram());
+            assertEquals(expectedInfo.lastRequestComplete, parser.readInfo().lastRequestComplete);
+
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            parser.rewrite(parser.readInfo(), output, Collections.emptyList());
+            assertTrue(Arrays.equals(content, output.toByteArray()));
+        }
+    }
+
+    public void testPrefetchLargeStream() throws IOException {
+        byte[] content = new byte[3 * 1024 * 1024 + 17];
+        new Random(1).nextBytes(content);
+        Path file = compress(content, Compression.GZIP);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (InputStream input = Compression.open(file.toString(), true)) {
+            byte[] buffer = new byte[10000];
+            int read;
+            while ((read = input.read(buffer)) >= 0) {
+                output.write(buffer, 0, read);
+            }
+            assertEquals(-1, input.read());
+        }
+        assertTrue(Arrays.equals(content, output.toByteArray()));
+        assertEquals(Compression.ZSTD, Compression.forFileName("run" + File.separator + "simulation.log.ZST"));
+    }
+
+    public void testCorruptStreamFailsInsteadOfHanging() throws IOException {
+        byte[] content = new byte[3 * 1024 * 1024];
+        new Random(2).nextBytes(content);
+        for (Compression compression : new Compression[]{Compression.GZIP, Compression.ZSTD}) {
+            Path file = compress(content, compression);
+            byte[] compressed = Files.readAllBytes(file);
+            Arrays.fill(compressed, compressed.length / 2, compressed.length / 2 + 16, (byte) 'X');
+            Files.write(file, compressed, StandardOpenOption.TRUNCATE_EXISTING);
+            try (InputStream input = Compression.open(file.toString(), true)) {
+                byte[] buffer = new byte[10000];
+                while (input.read(buffer) >= 0) {
+                    // drain
+                }
+                fail("Corrupt " + compression + " stream read without error");
+            } catch (IOException e) {
+                // expected, for zstd with the decompressor's unchecked exception as cause
+            }
+        }
+    }
+
+    public void testCloseWhilePrefetching() throws IOException {
+        byte[] content = new byte[3 * 1024 * 1024];
+        new Random(3).nextBytes(content);
+        Path file = compress(content, Compression.GZIP);
+        for (int i = 0; i < 20; ++i) {
+            try (InputStream input = Compression.open(file.toString(), true)) {
+                assertTrue(input.read(new byte[100]) > 0);
+            }
+        }
+    }
+}
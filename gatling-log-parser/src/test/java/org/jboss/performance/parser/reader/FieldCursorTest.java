@@ -0,0 +1,55 @@
+package org.jboss.performance.parser.reader;
+
+import junit.framework.TestCase;
+import org.jboss.performance.parser.format.FileVersionB;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+public class FieldCursorTest extends TestCase {
+
+    private static final String LINES = "RUN\torg.jboss.Simulation\t\t5000\t1464356362472\tnull\t2.0\r\n"
+            + "REQUEST\tSimulation\t1\t\tGet\t1464356363230\t1464356363331\tOK\t \n"
+            + "\n"
+            + "REQUEST\tSimulation\t2\t\tGet\t-5\tx12\tKO\t";
+
+    public void testFieldsMatchSplit() throws IOException {
+        FieldCursor cursor = new FieldCursor(new FileVersionB());
+        try (LineReader reader = new LineReader(new ByteArrayInputStream(LINES.getBytes(StandardCharsets.UTF_8)), 8)) {
+            assertTrue(reader.next());
+            cursor.reset(reader);
+            assertTrue(cursor.fieldEquals(0, "RUN"));
+            assertFalse(cursor.fieldEquals(0, "RU"));
+            assertEquals("", cursor.field(2));
+            assertEquals(1464356362472L, cursor.longField(4));
+            assertEquals("2.0", cursor.field(6));
+            assertEquals(7, cursor.fieldCount());
+
+            assertTrue(reader.next());
+            cursor.reset(reader);
+            assertTrue(cursor.fieldEquals(0, "REQUEST"));
+            assertEquals(101L, cursor.longField(6) - cursor.longField(5));
+            assertEquals(" ", cursor.field(8));
+            assertFalse(cursor.hasField(9));
+            assertFalse(cursor.fieldEquals(9, "OK"));
+
+            assertTrue(reader.next());
+            cursor.reset(reader);
+            assertEquals(1, cursor.fieldCount());
+            assertEquals("", cursor.field(0));
+
+            assertTrue(reader.next());
+            cursor.reset(reader);
+            assertEquals(-5L, cursor.longField(5));
+            assertEquals(9, cursor.columns().length);
+            try {
+                cursor.longField(6);
+                fail();
+            } catch (NumberFormatException e) {
+                // expected
+            }
+            assertFalse(reader.next());
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package org.jboss.performance.parser.reader;
+
+import junit.framework.TestCase;
+import org.jboss.performance.parser.format.FileVersionB;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class LogFollowerTest extends TestCase {
+
+    private static void append(Path file, String content) throws IOException {
+        Files.write(file, content.getBytes(StandardCharsets.US_ASCII), StandardOpenOption.APPEND);
+    }
+
+    public void testPartialLinesAreCarriedOver() throws IOException {
+        Path file = Files.createTempFile("simulation", ".log");
+        file.toFile().deleteOnExit();
+        List<String> lines = new ArrayList<>();
+        try (LogFollower follower = new LogFollower(file.toString(), new FileVersionB())) {
+            assertEquals(0, follower.poll(cursor -> lines.add(cursor.field(0))));
+
+            append(file, "REQUEST\ta\nREQ");
+            assertEquals(13, follower.poll(cursor -> lines.add(cursor.field(0) + "/" + cursor.field(1))));
+            assertEquals(1, lines.size());
+            assertEquals("REQUEST/a", lines.get(0));
+
+            append(file, "UEST\tb\r\nUSER\tc");
+            follower.poll(cursor -> lines.add(cursor.field(0) + "/" + cursor.field(1)));
+            assertEquals(2, lines.size());
+            assertEquals("REQUEST/b", lines.get(1));
+            assertEquals(0, follower.poll(cursor -> lines.add(cursor.field(0))));
+
+            append(file, "\n");
+            follower.poll(cursor -> lines.add(cursor.field(0) + "/" + cursor.field(1)));
+            assertEquals("USER/c", lines.get(2));
+            assertEquals(Files.size(file), follower.getPosition());
+        }
+    }
+
+    public void testTruncatedFileIsReadAgain() throws IOException {
+        Path file = Files.createTempFile("simulation", ".log");
+        file.toFile().deleteOnExit();
+        List<String> lines = new ArrayList<>();
+        try (LogFollower follower = new LogFollower(file.toString(), new FileVersionB())) {
+            follower.setRewindListener(() -> lines.add("rewind"));
+            append(file, "RUN\tfirst\nREQUEST\tx\n");
+            follower.poll(cursor -> lines.add(cursor.field(1)));
+            Files.write(file, "RUN\tsecond\n".getBytes(StandardCharsets.US_ASCII));
+            follower.poll(cursor -> lines.add(cursor.field(1)));
+            assertEquals(Arrays.asList("first", "x", "rewind", "second"), lines);
+        }
+    }
+}
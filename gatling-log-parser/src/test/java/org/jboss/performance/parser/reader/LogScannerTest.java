@@ -0,0 +1,61 @@
+package org.jboss.performance.parser.reader;
+
+import junit.framework.TestCase;
+import org.jboss.performance.parser.format.FileFormat;
+import org.jboss.performance.parser.format.FileVersionA;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class LogScannerTest extends TestCase {
+
+    private final String file = getClass().getClassLoader().getResource("simulation.log").getPath();
+    private final FileFormat fileFormat = new FileVersionA();
+
+    public void testChunksAreNewlineAligned() throws IOException {
+        LogScanner scanner = new LogScanner(file, fileFormat, 4, 1000);
+        try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+            long[] boundaries = scanner.chunkBoundaries(channel);
+            assertEquals(0, boundaries[0]);
+            assertEquals(channel.size(), boundaries[boundaries.length - 1]);
+            assertTrue(boundaries.length > 4);
+            ByteBuffer b = ByteBuffer.allocate(1);
+            for (int i = 1; i < boundaries.length - 1; ++i) {
+                b.clear();
+                channel.read(b, boundaries[i] - 1);
+                assertEquals('\n', b.get(0));
+            }
+        }
+    }
+
+    public void testParallelScanMatchesSequential() throws IOException {
+        List<String> sequential = lines(new LogScanner(file, fileFormat, 1));
+        List<String> parallel = lines(new LogScanner(file, fileFormat, 3, 777));
+        assertEquals(500, sequential.size());
+        assertEquals(sequential, parallel);
+    }
+
+    public void testSampleReadsWholeLines() throws IOException {
+        List<String> all = lines(new LogScanner(file, fileFormat, 1));
+        // asking for every range reads every line exactly once, in file order
+        List<String> everyRange = new LogScanner(file, fileFormat, 3).sample(100, Integer.MAX_VALUE, new Random(1),
+                ArrayList::new, (list, cursor) -> list.add(String.join("\t", cursor.columns())), List::addAll);
+        assertEquals(all, everyRange);
+
+        List<String> sample = new LogScanner(file, fileFormat, 2).sample(1000, 5, new Random(1),
+                ArrayList::new, (list, cursor) -> list.add(String.join("\t", cursor.columns())), List::addAll);
+        assertFalse(sample.isEmpty());
+        assertTrue(sample.size() < all.size());
+        assertTrue(all.containsAll(sample));
+    }
+
+    private static List<String> lines(LogScanner scanner) throws IOException {
+        return scanner.scan(ArrayList::new, (list, cursor) -> list.add(String.join("\t", cursor.columns())), List::addAll);
+    }
+}
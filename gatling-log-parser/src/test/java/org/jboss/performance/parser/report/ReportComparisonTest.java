@@ -0,0 +1,56 @@
+package org.jboss.performance.parser.report;
+
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class ReportComparisonTest extends TestCase {
+
+    private static final double[] CENTILES = {50, 95, 99};
+
+    private static StatisticsResult statistics(double p50, double p95, double p99) {
+        return new StatisticsResult(100, 1, p99, p50, new double[]{p50, p95, p99});
+    }
+
+    private static SimulationReport report(StatisticsResult total, RequestResult... requests) {
+        return new SimulationReport(CENTILES, total, false, false, Arrays.asList(requests), Collections.<IntervalResult>emptyList());
+    }
+
+    public void testThresholds() {
+        SimulationReport baseline = report(statistics(10, 20, 30),
+                new RequestResult(null, "fast", null, statistics(1, 2, 3)),
+                new RequestResult(null, "slow", null, statistics(100, 200, 300)),
+                new RequestResult(null, "gone", null, statistics(1, 2, 3)));
+        SimulationReport candidate = report(statistics(10, 21, 30),
+                // +100 % but only 2 ms
+                new RequestResult(null, "fast", null, statistics(1, 4, 5)),
+                // only p50 got worse, which is not gated
+                new RequestResult(null, "slow", null, statistics(200, 200, 250)),
+                new RequestResult(null, "added", null, statistics(1, 2, 3)));
+
+        ReportComparison comparison = new ReportComparison(baseline, candidate, new double[]{95, 99}, 0.1, 5);
+        assertFalse(comparison.hasRegression());
+        assertEquals(5, comparison.getRows().size());
+        assertEquals(ReportComparison.Verdict.SAME, comparison.getRows().get(0).getVerdict());
+        assertEquals(ReportComparison.Verdict.SAME, comparison.getRows().get(1).getVerdict());
+        assertEquals(ReportComparison.Verdict.IMPROVED, comparison.getRows().get(2).getVerdict());
+        assertEquals(ReportComparison.Verdict.MISSING, comparison.getRows().get(3).getVerdict());
+        assertEquals("added", comparison.getRows().get(4).getName());
+        assertEquals(ReportComparison.Verdict.NEW, comparison.getRows().get(4).getVerdict());
+
+        comparison = new ReportComparison(baseline, candidate, new double[]{50}, 0.1, 5);
+        assertTrue(comparison.hasRegression());
+        assertEquals(ReportComparison.Verdict.REGRESSED, comparison.getRows().get(2).getVerdict());
+    }
+
+    public void testUnknownCentile() {
+        SimulationReport report = report(statistics(1, 2, 3));
+        try {
+            new ReportComparison(report, report, new double[]{99.9}, 0.1, 1);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
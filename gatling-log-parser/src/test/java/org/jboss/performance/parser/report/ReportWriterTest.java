@@ -0,0 +1,64 @@
+package org.jboss.performance.parser.report;
+
+import junit.framework.TestCase;
+import org.jboss.performance.parser.SimulationLogParser;
+import org.jboss.performance.parser.printer.BreakdownPrinter;
+import org.jboss.performance.parser.printer.Util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class ReportWriterTest extends TestCase {
+
+    private static String write(ReportFormat format, SimulationReport report) throws IOException {
+        StringWriter output = new StringWriter();
+        format.writer().write(report, output);
+        return output.toString();
+    }
+
+    public void testTextMatchesPrinters() throws IOException {
+        String filePath = getClass().getClassLoader().getResource("simulation.log").getPath();
+        SimulationLogParser simulationLogParser = new SimulationLogParser(filePath);
+        simulationLogParser.setBreakdown(true, true);
+        simulationLogParser.parseLogFile();
+
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(printed, true, "UTF-8"));
+        try {
+            simulationLogParser.printStats(Util.getPrinters());
+            simulationLogParser.printBreakdown(new BreakdownPrinter(Util.CENTILES));
+        } finally {
+            System.setOut(out);
+        }
+
+        assertEquals(printed.toString("UTF-8"), write(ReportFormat.TEXT, simulationLogParser.getReport(Util.CENTILES)));
+    }
+
+    public void testJsonAndCsvEscaping() throws IOException {
+        double[] centiles = {50, 99};
+        StatisticsResult statistics = new StatisticsResult(2, 1, 3, 2, new double[]{1, 3});
+        StatisticsResult empty = new StatisticsResult(0, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, 0, new double[]{Double.NaN, Double.NaN});
+        SimulationReport report = new SimulationReport(centiles, statistics, true, false,
+                Arrays.asList(new RequestResult("a,b", "say \"hi\"\n", null, statistics)),
+                Collections.singletonList(new IntervalResult(1000, 1000, 0, empty)));
+
+        assertEquals("{\"centiles\":[50.0,99.0],"
+                + "\"total\":{\"count\":2,\"min\":1.0,\"max\":3.0,\"mean\":2.0,\"percentiles\":[1.0,3.0]},"
+                + "\"requests\":[{\"group\":\"a,b\",\"name\":\"say \\\"hi\\\"\\n\",\"status\":null,"
+                + "\"statistics\":{\"count\":2,\"min\":1.0,\"max\":3.0,\"mean\":2.0,\"percentiles\":[1.0,3.0]}}],"
+                + "\"timeline\":[{\"start\":1000,\"interval\":1000,\"errors\":0,"
+                + "\"statistics\":{\"count\":0,\"min\":null,\"max\":null,\"mean\":0.0,\"percentiles\":[null,null]}}]}\n",
+                write(ReportFormat.JSON, report));
+
+        assertEquals("scope,group,name,status,start,interval,errors,count,min,max,mean,p50.0,p99.0\n"
+                + "total,,,,,,,2,1.0,3.0,2.0,1.0,3.0\n"
+                + "request,\"a,b\",\"say \"\"hi\"\"\n\",,,,,2,1.0,3.0,2.0,1.0,3.0\n"
+                + "interval,,,,1000,1000,0,0,,,0.0,,\n",
+                write(ReportFormat.CSV, report));
+    }
+}
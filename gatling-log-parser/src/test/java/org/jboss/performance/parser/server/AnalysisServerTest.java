@@ -0,0 +1,100 @@
+package org.jboss.performance.parser.server;
+
+import junit.framework.TestCase;
+import org.jboss.performance.parser.SimulationInfo;
+import org.jboss.performance.parser.SimulationLogParser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+public class AnalysisServerTest extends TestCase {
+
+    private AnalysisServer server;
+
+    @Override
+    protected void setUp() throws Exception {
+        Path log = Paths.get(getClass().getClassLoader().getResource("simulation.log").toURI());
+        server = new AnalysisServer(new InetSocketAddress("127.0.0.1", 0), log.getParent(), 2, 1, AnalysisServer.DEFAULT_CACHE_BYTES);
+        server.start();
+    }
+
+    @Override
+    protected void tearDown() {
+        server.close();
+    }
+
+    private String get(String path, int expectedCode) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + server.getAddress().getPort() + path).openConnection();
+        assertEquals(expectedCode, connection.getResponseCode());
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (InputStream input = expectedCode == 200 ? connection.getInputStream() : connection.getErrorStream()) {
+            byte[] buffer = new byte[4096];
+            for (int read; (read = input.read(buffer)) > 0; ) {
+                body.write(buffer, 0, read);
+            }
+        }
+        return new String(body.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    public void testStatsAreCached() throws IOException {
+        String first = get("/stats?file=simulation.log&centiles=50,99", 200);
+        assertTrue(first, first.startsWith("{\"centiles\":[50.0,99.0],\"total\":{\"count\":"));
+        assertEquals(first, get("/stats?file=simulation.log&centiles=50,99", 200));
+        assertTrue(get("/stats?file=simulation.log&format=text", 200).startsWith("count: "));
+        assertEquals(1, server.getCache().getMisses());
+        assertEquals(2, server.getCache().getHits());
+
+        get("/stats?file=simulation.log&breakdown=true", 200);
+        assertEquals(2, server.getCache().size());
+    }
+
+    public void testInfoMatchesFullParse() throws Exception {
+        // copies of the run shifted by 10 s each, so that the first request start is far from the end of the log
+        Path root = Files.createTempDirectory("runs");
+        Path log = root.resolve("long.log");
+        List<String> lines = Files.readAllLines(Paths.get(getClass().getClassLoader().getResource("simulation.log").toURI()));
+        List<String> content = new ArrayList<>(lines);
+        for (int copy = 1; copy <= 5; ++copy) {
+            for (String line : lines.subList(1, lines.size())) {
+                String[] fields = line.split("\t", -1);
+                for (int i = 4; i < fields.length; ++i) {
+                    if (fields[i].matches("1\\d{12}")) {
+                        fields[i] = String.valueOf(Long.parseLong(fields[i]) + copy * 10000L);
+                    }
+                }
+                content.add(String.join("\t", fields));
+            }
+        }
+        Files.write(log, content);
+        SimulationInfo expected = new SimulationLogParser(log.toString()).parseInfo();
+        server.close();
+        server = new AnalysisServer(new InetSocketAddress("127.0.0.1", 0), root, 2, 1, AnalysisServer.DEFAULT_CACHE_BYTES);
+        server.start();
+        try {
+            String info = get("/info?file=long.log", 200);
+            assertTrue(info, info.contains("\"startTime\":" + expected.startTime + ","));
+            assertTrue(info, info.contains("\"firstRequestStart\":" + expected.firstRequestStart + ","));
+            assertTrue(info, info.contains("\"lastRequestComplete\":" + expected.lastRequestComplete + "}"));
+        } finally {
+            Files.delete(log);
+            Files.delete(root);
+        }
+    }
+
+    public void testErrors() throws IOException {
+        get("/stats", 400);
+        get("/stats?file=missing.log", 404);
+        get("/stats?file=simulation.log&skip=soon", 400);
+        get("/info?file=../classes", 403);
+    }
+}
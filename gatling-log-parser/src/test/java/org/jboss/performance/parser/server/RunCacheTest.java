@@ -0,0 +1,64 @@
+package org.jboss.performance.parser.server;
+
+import junit.framework.TestCase;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class RunCacheTest extends TestCase {
+
+    private final AtomicInteger loads = new AtomicInteger();
+    private final RunCache<Long> cache = new RunCache<>(100, Long::longValue);
+
+    private Long get(String path, long size, long weight) throws Exception {
+        return cache.get(new RunKey(path, size, 0, ""), key -> {
+            loads.incrementAndGet();
+            return weight;
+        });
+    }
+
+    public void testEvictsLeastRecentlyUsed() throws Exception {
+        get("a", 1, 40);
+        get("b", 1, 40);
+        get("a", 1, 40);
+        assertEquals(2, loads.get());
+        assertEquals(1, cache.getHits());
+
+        // b is the least recently used
+        get("c", 1, 40);
+        assertEquals(2, cache.size());
+        assertEquals(80, cache.getBytes());
+        get("a", 1, 40);
+        assertEquals(3, loads.get());
+        get("b", 1, 40);
+        assertEquals(4, loads.get());
+        assertEquals(2, cache.getEvictions());
+
+        // a run larger than the cache is kept until the next one
+        get("d", 1, 150);
+        assertEquals(1, cache.size());
+        assertEquals(150, cache.getBytes());
+    }
+
+    public void testNewerVersionReplacesOlder() throws Exception {
+        get("a", 1, 10);
+        get("a", 2, 10);
+        assertEquals(2, loads.get());
+        assertEquals(1, cache.size());
+        assertEquals(10, cache.getBytes());
+    }
+
+    public void testFailuresAreNotCached() throws Exception {
+        RunKey key = new RunKey("a", 1, 0, "");
+        try {
+            cache.get(key, k -> {
+                throw new IllegalStateException("broken");
+            });
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        assertEquals(0, cache.size());
+        assertEquals(Long.valueOf(5), cache.get(key, k -> 5L));
+    }
+}